@@ -0,0 +1,68 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import java.util.Arrays;
+
+// not thread safe, one per load generator thread then merged
+class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(final long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    LatencyRecorder merge(final LatencyRecorder other) {
+        final LatencyRecorder merged = new LatencyRecorder();
+        merged.latencies = Arrays.copyOf(latencies, count + other.count);
+        System.arraycopy(other.latencies, 0, merged.latencies, count, other.count);
+        merged.count = count + other.count;
+        merged.errors = errors + other.errors;
+        return merged;
+    }
+
+    Snapshot snapshot() {
+        final long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted);
+    }
+
+    static class Snapshot {
+        private final long[] sorted;
+
+        private Snapshot(final long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        double mean() {
+            return sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0);
+        }
+
+        long max() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        long percentile(final double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100. * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed loop: each worker sends its next request when the previous one completed, latency is the call duration.
+ *
+ * Open loop: requests are scheduled at a fixed rate and latency is measured from the intended start time,
+ * so a slow response delaying the next sends is accounted (no coordinated omission).
+ */
+class LoadGenerator {
+    private final Transport.Server server;
+    private final Options options;
+
+    LoadGenerator(final Transport.Server server, final Options options) {
+        this.server = server;
+        this.options = options;
+    }
+
+    Result run() throws InterruptedException {
+        final byte[] payload = options.workload.payload(options.batchSize);
+        final long start = System.nanoTime();
+        final long measureStart = start + SECONDS.toNanos(options.warmupSeconds);
+        final long end = measureStart + SECONDS.toNanos(options.durationSeconds);
+
+        final Collection<Worker> workers = new ArrayList<>(options.concurrency);
+        final CountDownLatch latch = new CountDownLatch(options.concurrency);
+        for (int i = 0; i < options.concurrency; i++) {
+            final Worker worker = new Worker(i, payload, start, measureStart, end, latch);
+            workers.add(worker);
+            final Thread thread = new Thread(worker, "load-generator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        latch.await();
+        final long measuredDuration = Math.min(System.nanoTime(), end) - measureStart;
+        return new Result(workers.stream()
+                .map(it -> it.recorder)
+                .reduce(new LatencyRecorder(), LatencyRecorder::merge), measuredDuration);
+    }
+
+    private class Worker implements Runnable {
+        private final int index;
+        private final byte[] payload;
+        private final long start;
+        private final long measureStart;
+        private final long end;
+        private final CountDownLatch latch;
+        private final LatencyRecorder recorder = new LatencyRecorder();
+
+        private Worker(final int index, final byte[] payload, final long start, final long measureStart,
+                       final long end, final CountDownLatch latch) {
+            this.index = index;
+            this.payload = payload;
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            try (final Transport.Client client = server.newClient()) {
+                if (options.mode == Mode.OPEN) {
+                    runOpen(client);
+                } else {
+                    runClosed(client);
+                }
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        private void runClosed(final Transport.Client client) {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                execute(client, now, now >= measureStart);
+            }
+        }
+
+        private void runOpen(final Transport.Client client) {
+            // each worker owns 1/concurrency of the rate, offset to spread the sends
+            final long interval = (long) (SECONDS.toNanos(1) * options.concurrency / options.rate);
+            long intended = start + interval * index / options.concurrency;
+            while (intended < end) {
+                long now;
+                while ((now = System.nanoTime()) < intended) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                execute(client, intended, intended >= measureStart);
+                intended += interval;
+            }
+        }
+
+        private void execute(final Transport.Client client, final long startTime, final boolean record) {
+            boolean valid;
+            try {
+                valid = options.workload.isValid(client.call(payload));
+            } catch (final IOException | RuntimeException e) {
+                valid = false;
+            }
+            final long latency = System.nanoTime() - startTime;
+            if (!record) {
+                return;
+            }
+            if (valid) {
+                recorder.record(latency);
+            } else {
+                recorder.error();
+            }
+        }
+    }
+
+    enum Mode {
+        OPEN, CLOSED
+    }
+
+    static class Options {
+        Transport transport = Transport.SERVLET;
+        Mode mode = Mode.CLOSED;
+        Workload workload = Workload.SINGLE;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        double rate = 1000;
+        int batchSize = 100;
+        int warmupSeconds = 5;
+        int durationSeconds = 30;
+        String output;
+    }
+
+    static class Result {
+        final LatencyRecorder recorder;
+        final long durationNanos;
+
+        private Result(final LatencyRecorder recorder, final long durationNanos) {
+            this.recorder = recorder;
+            this.durationNanos = durationNanos;
+        }
+
+        double throughput() {
+            return recorder.getCount() / (durationNanos / (double) SECONDS.toNanos(1));
+        }
+    }
+}
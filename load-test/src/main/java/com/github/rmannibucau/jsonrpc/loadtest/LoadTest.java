@@ -0,0 +1,153 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Locale;
+
+import javax.json.Json;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyOrderStrategy;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGenerator;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+
+/**
+ * Starts a JSON-RPC server on loopback and loads it.
+ *
+ * Options (all optional, {@code --key=value}): transport (servlet|socket), mode (closed|open), workload
+ * (single|batch|async|error), concurrency, rate (open mode, requests/s), batchSize, warmup and duration (seconds)
+ * and output (JSON report file, default to {@code target/load-test-<workload>-<timestamp>.json}).
+ */
+public final class LoadTest {
+    private LoadTest() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadGenerator.Options options = parse(args);
+        try (final Jsonb jsonb = JsonbBuilder.create(new JsonbConfig()
+                .withPropertyOrderStrategy(PropertyOrderStrategy.LEXICOGRAPHICAL));
+             final Transport.Server server = options.transport.start(createHandler(jsonb))) {
+            final LoadGenerator.Result result = new LoadGenerator(server, options).run();
+            report(options, result);
+        }
+    }
+
+    static JsonRpcHandler createHandler(final Jsonb jsonb) {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        SampleEndpoints.register(registry);
+
+        final JsonRpcHandler handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+        return handler;
+    }
+
+    private static void report(final LoadGenerator.Options options, final LoadGenerator.Result result) throws IOException {
+        final LatencyRecorder.Snapshot snapshot = result.recorder.snapshot();
+        System.out.printf(Locale.ROOT,
+                "%s/%s/%s: %d requests, %d errors, %.1f req/s, p50=%dus p99=%dus p999=%dus max=%dus%n",
+                options.transport, options.mode, options.workload, result.recorder.getCount(), result.recorder.getErrors(),
+                result.throughput(), micros(snapshot.percentile(50)), micros(snapshot.percentile(99)),
+                micros(snapshot.percentile(99.9)), micros(snapshot.max()));
+
+        final Instant now = Instant.now();
+        final Path output = Paths.get(options.output != null ?
+                options.output :
+                "target/load-test-" + options.workload.name().toLowerCase(Locale.ROOT) + "-" + now.toEpochMilli() + ".json");
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (final Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             final JsonGenerator generator = Json.createGeneratorFactory(
+                     Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true)).createGenerator(writer)) {
+            generator.writeStartObject()
+                    .write("timestamp", now.toString())
+                    .writeStartObject("configuration")
+                    .write("transport", options.transport.name())
+                    .write("mode", options.mode.name())
+                    .write("workload", options.workload.name())
+                    .write("concurrency", options.concurrency)
+                    .write("rate", options.rate)
+                    .write("batchSize", options.batchSize)
+                    .write("warmupSeconds", options.warmupSeconds)
+                    .write("durationSeconds", options.durationSeconds)
+                    .writeEnd()
+                    .write("requests", result.recorder.getCount())
+                    .write("errors", result.recorder.getErrors())
+                    .write("throughput", result.throughput())
+                    .writeStartObject("latencyMicros")
+                    .write("mean", snapshot.mean() / 1000.)
+                    .write("p50", micros(snapshot.percentile(50)))
+                    .write("p99", micros(snapshot.percentile(99)))
+                    .write("p999", micros(snapshot.percentile(99.9)))
+                    .write("max", micros(snapshot.max()))
+                    .writeEnd()
+                    .writeEnd();
+        }
+        System.out.println("Report: " + output.toAbsolutePath());
+    }
+
+    private static long micros(final long nanos) {
+        return NANOSECONDS.toMicros(nanos);
+    }
+
+    private static LoadGenerator.Options parse(final String[] args) {
+        final LoadGenerator.Options options = new LoadGenerator.Options();
+        for (final String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', expected --key=value");
+            }
+            final String key = arg.substring(2, arg.indexOf('='));
+            final String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "transport":
+                    options.transport = Transport.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "mode":
+                    options.mode = LoadGenerator.Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "workload":
+                    options.workload = Workload.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "batchSize":
+                    options.batchSize = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option '" + key + "'");
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+
+public class SampleEndpoints {
+    @JsonRpcMethod("echo")
+    public String echo(@JsonRpcParam("value") final String value) {
+        return value;
+    }
+
+    @JsonRpcMethod("asyncEcho")
+    public CompletionStage<String> asyncEcho(@JsonRpcParam("value") final String value) {
+        return CompletableFuture.supplyAsync(() -> value);
+    }
+
+    @JsonRpcMethod("user")
+    public User user(@JsonRpcParam("id") final long id) {
+        final User user = new User();
+        user.setId(id);
+        user.setName("user_" + id);
+        user.setActive(id % 2 == 0);
+        user.setScore(id * 1.5);
+        return user;
+    }
+
+    @JsonRpcMethod("fail")
+    @JsonRpcException(handled = IllegalArgumentException.class, code = 1)
+    public String fail(@JsonRpcParam("value") final String value) {
+        throw new IllegalArgumentException("Failing for '" + value + "'");
+    }
+
+    // what the CDI extension does, without a container
+    public static void register(final HandlerRegistry registry) {
+        final SampleEndpoints instance = new SampleEndpoints();
+        Stream.of(SampleEndpoints.class.getMethods())
+                .filter(it -> it.isAnnotationPresent(JsonRpcMethod.class))
+                .forEach(method -> registry.registerMethodReflect(
+                        instance, method, method.getAnnotation(JsonRpcMethod.class),
+                        Stream.of(method.getParameters())
+                                .map(p -> p.getAnnotation(JsonRpcParam.class))
+                                .toArray(JsonRpcParam[]::new),
+                        method.getAnnotationsByType(JsonRpcException.class)));
+    }
+
+    public static class User {
+        private long id;
+        private String name;
+        private boolean active;
+        private double score;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(final long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(final double score) {
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.json.Json;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyOrderStrategy;
+import javax.json.stream.JsonGenerator;
+
+import com.github.rmannibucau.jsonrpc.capture.TrafficCapture;
+
+/**
+ * Replays a file written by {@link TrafficCapture} against a JSON-RPC server started on loopback.
+ *
+ * Requests are sent at their captured pace divided by {@code speed} and latency is measured from the intended send time
+ * (open loop), {@code speed=0} sends them as fast as the workers can (latency is then the call duration).
+ * Latencies are reported per method next to the captured durations.
+ *
+ * Options ({@code --key=value}): file (required), transport (servlet|socket), speed (default 1), concurrency
+ * and output (JSON report file, default to {@code target/traffic-replay-<timestamp>.json}).
+ */
+public final class TrafficReplay {
+    private static final String BATCH = "batch";
+
+    private TrafficReplay() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Options options = parse(args);
+        final List<TrafficCapture.Entry> entries = new ArrayList<>();
+        TrafficCapture.read(Paths.get(options.file), entries::add);
+        entries.sort(comparingLong(TrafficCapture.Entry::getTimestamp)); // written in completion order
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("No request in " + options.file);
+        }
+
+        try (final Jsonb jsonb = JsonbBuilder.create(new JsonbConfig()
+                .withPropertyOrderStrategy(PropertyOrderStrategy.LEXICOGRAPHICAL));
+             final Transport.Server server = options.transport.start(LoadTest.createHandler(jsonb))) {
+            final long start = System.nanoTime();
+            final Map<String, LatencyRecorder> replayed = replay(server, entries, options);
+            final long duration = System.nanoTime() - start;
+
+            final Map<String, LatencyRecorder> captured = new TreeMap<>();
+            entries.forEach(entry -> captured.computeIfAbsent(method(entry), k -> new LatencyRecorder()).record(entry.getDuration()));
+            report(options, entries.size(), duration, captured, replayed);
+        }
+    }
+
+    private static Map<String, LatencyRecorder> replay(final Transport.Server server, final List<TrafficCapture.Entry> entries,
+                                                       final Options options) throws InterruptedException {
+        final long origin = entries.get(0).getTimestamp();
+        final long start = System.nanoTime();
+        final AtomicInteger next = new AtomicInteger();
+        final List<Map<String, LatencyRecorder>> recorders = new ArrayList<>(options.concurrency);
+        final CountDownLatch latch = new CountDownLatch(options.concurrency);
+        for (int i = 0; i < options.concurrency; i++) {
+            final Map<String, LatencyRecorder> recorder = new HashMap<>(); // one per worker, merged at the end
+            recorders.add(recorder);
+            final Thread thread = new Thread(() -> {
+                try (final Transport.Client client = server.newClient()) {
+                    int index;
+                    while ((index = next.getAndIncrement()) < entries.size()) {
+                        final TrafficCapture.Entry entry = entries.get(index);
+                        long intended = options.speed > 0 ?
+                                start + (long) ((entry.getTimestamp() - origin) / options.speed) : System.nanoTime();
+                        long now;
+                        while ((now = System.nanoTime()) < intended) {
+                            LockSupport.parkNanos(intended - now);
+                        }
+                        if (options.speed <= 0) {
+                            intended = now;
+                        }
+                        boolean valid;
+                        try {
+                            final String response = client.call(entry.getPayload().getBytes(UTF_8));
+                            valid = response != null && !response.contains("\"error\"");
+                        } catch (final IOException | RuntimeException e) {
+                            valid = false;
+                        }
+                        final long latency = System.nanoTime() - intended;
+                        final LatencyRecorder methodRecorder = recorder.computeIfAbsent(method(entry), k -> new LatencyRecorder());
+                        if (valid) {
+                            methodRecorder.record(latency);
+                        } else {
+                            methodRecorder.error();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }, "traffic-replay-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        latch.await();
+
+        final Map<String, LatencyRecorder> merged = new TreeMap<>();
+        recorders.forEach(recorder -> recorder.forEach((method, latencies) -> merged.merge(method, latencies, LatencyRecorder::merge)));
+        return merged;
+    }
+
+    private static void report(final Options options, final int requests, final long durationNanos,
+                               final Map<String, LatencyRecorder> captured,
+                               final Map<String, LatencyRecorder> replayed) throws IOException {
+        System.out.printf(Locale.ROOT, "Replayed %d requests in %.1fs (speed=%s)%n",
+                requests, durationNanos / (double) SECONDS.toNanos(1), options.speed);
+        System.out.printf(Locale.ROOT, "%-30s %8s %8s %12s %12s %12s %12s%n",
+                "method", "requests", "errors", "captured p50", "p50", "captured p99", "p99");
+        replayed.forEach((method, recorder) -> {
+            final LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+            final LatencyRecorder.Snapshot original = captured.get(method).snapshot();
+            System.out.printf(Locale.ROOT, "%-30s %8d %8d %10dus %10dus %10dus %10dus%n",
+                    method, recorder.getCount() + recorder.getErrors(), recorder.getErrors(),
+                    micros(original.percentile(50)), micros(snapshot.percentile(50)),
+                    micros(original.percentile(99)), micros(snapshot.percentile(99)));
+        });
+
+        final Instant now = Instant.now();
+        final Path output = Paths.get(options.output != null ? options.output : "target/traffic-replay-" + now.toEpochMilli() + ".json");
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (final Writer writer = Files.newBufferedWriter(output, UTF_8);
+             final JsonGenerator generator = Json.createGeneratorFactory(
+                     Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true)).createGenerator(writer)) {
+            generator.writeStartObject()
+                    .write("timestamp", now.toString())
+                    .writeStartObject("configuration")
+                    .write("file", options.file)
+                    .write("transport", options.transport.name())
+                    .write("speed", options.speed)
+                    .write("concurrency", options.concurrency)
+                    .writeEnd()
+                    .write("requests", requests)
+                    .write("durationSeconds", durationNanos / (double) SECONDS.toNanos(1))
+                    .writeStartObject("methods");
+            replayed.forEach((method, recorder) -> {
+                final LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+                final LatencyRecorder.Snapshot original = captured.get(method).snapshot();
+                generator.writeStartObject(method)
+                        .write("requests", recorder.getCount() + recorder.getErrors())
+                        .write("errors", recorder.getErrors())
+                        .writeStartObject("capturedLatencyMicros")
+                        .write("p50", micros(original.percentile(50)))
+                        .write("p99", micros(original.percentile(99)))
+                        .write("max", micros(original.max()))
+                        .writeEnd()
+                        .writeStartObject("latencyMicros")
+                        .write("mean", snapshot.mean() / 1000.)
+                        .write("p50", micros(snapshot.percentile(50)))
+                        .write("p99", micros(snapshot.percentile(99)))
+                        .write("p999", micros(snapshot.percentile(99.9)))
+                        .write("max", micros(snapshot.max()))
+                        .writeEnd()
+                        .writeEnd();
+            });
+            generator.writeEnd().writeEnd();
+        }
+        System.out.println("Report: " + output.toAbsolutePath());
+    }
+
+    private static String method(final TrafficCapture.Entry entry) {
+        return entry.getMethod().isEmpty() ? BATCH : entry.getMethod();
+    }
+
+    private static long micros(final long nanos) {
+        return NANOSECONDS.toMicros(nanos);
+    }
+
+    private static Options parse(final String[] args) {
+        final Options options = new Options();
+        for (final String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', expected --key=value");
+            }
+            final String key = arg.substring(2, arg.indexOf('='));
+            final String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "file":
+                    options.file = value;
+                    break;
+                case "transport":
+                    options.transport = Transport.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "speed":
+                    options.speed = Double.parseDouble(value);
+                    break;
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option '" + key + "'");
+            }
+        }
+        if (options.file == null) {
+            throw new IllegalArgumentException("Missing --file=<capture file>");
+        }
+        return options;
+    }
+
+    private static class Options {
+        private String file;
+        private Transport transport = Transport.SERVLET;
+        private double speed = 1;
+        private int concurrency = Runtime.getRuntime().availableProcessors() * 4;
+        private String output;
+    }
+}
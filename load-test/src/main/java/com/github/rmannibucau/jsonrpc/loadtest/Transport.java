@@ -0,0 +1,175 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.file.Files;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.servlet.JsonRpcServlet;
+import com.github.rmannibucau.jsonrpc.socket.Framing;
+import com.github.rmannibucau.jsonrpc.socket.JsonRpcSocketServer;
+
+public enum Transport {
+    SERVLET {
+        @Override
+        Server start(final JsonRpcHandler handler) {
+            final Tomcat tomcat = new Tomcat();
+            try {
+                tomcat.setBaseDir(Files.createTempDirectory("json-rpc-load-test").toString());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tomcat.setPort(0);
+            tomcat.getConnector(); // creates the default connector
+
+            final JsonRpcServlet servlet = new JsonRpcServlet();
+            servlet.setHandler(handler);
+
+            final Context context = tomcat.addContext("", null);
+            final Wrapper wrapper = Tomcat.addServlet(context, "jsonrpc", servlet);
+            wrapper.setAsyncSupported(true);
+            context.addServletMappingDecoded("/jsonrpc", "jsonrpc");
+            try {
+                tomcat.start();
+            } catch (final LifecycleException e) {
+                throw new IllegalStateException(e);
+            }
+            final int port = tomcat.getConnector().getLocalPort();
+            return new Server() {
+                @Override
+                public Client newClient() {
+                    return new HttpClient(port);
+                }
+
+                @Override
+                public void close() throws Exception {
+                    try {
+                        tomcat.stop();
+                    } finally {
+                        tomcat.destroy();
+                    }
+                }
+            };
+        }
+    },
+    SOCKET {
+        @Override
+        Server start(final JsonRpcHandler handler) {
+            final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.NDJSON)
+                    .start(new InetSocketAddress("localhost", 0));
+            return new Server() {
+                @Override
+                public Client newClient() {
+                    return new SocketClient(server.getPort());
+                }
+
+                @Override
+                public void close() {
+                    server.close();
+                }
+            };
+        }
+    };
+
+    abstract Server start(JsonRpcHandler handler);
+
+    interface Server extends AutoCloseable {
+        Client newClient();
+    }
+
+    interface Client extends AutoCloseable {
+        String call(byte[] payload) throws IOException;
+
+        @Override
+        void close();
+    }
+
+    // relies on the JVM keep-alive connection pool
+    private static class HttpClient implements Client {
+        private final URL url;
+        private final byte[] buffer = new byte[8192];
+
+        private HttpClient(final int port) {
+            try {
+                this.url = new URL("http://localhost:" + port + "/jsonrpc");
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String call(final byte[] payload) throws IOException {
+            final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(payload.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (final OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(payload);
+            }
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            try (final InputStream inputStream = connection.getInputStream()) {
+                int read;
+                while ((read = inputStream.read(buffer)) >= 0) {
+                    response.write(buffer, 0, read);
+                }
+            }
+            return new String(response.toByteArray(), UTF_8);
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
+    private static class SocketClient implements Client {
+        private final Socket socket;
+        private final OutputStream outputStream;
+        private final BufferedReader reader;
+
+        private SocketClient(final int port) {
+            try {
+                socket = new Socket("localhost", port);
+                socket.setTcpNoDelay(true);
+                outputStream = socket.getOutputStream();
+                reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String call(final byte[] payload) throws IOException {
+            outputStream.write(payload);
+            outputStream.write('\n');
+            outputStream.flush();
+            return reader.readLine();
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.rmannibucau.jsonrpc.loadtest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+import java.util.stream.IntStream;
+
+public enum Workload {
+    SINGLE {
+        @Override
+        String request(final int batchSize) {
+            return call(1, "echo", "[\"payload\"]");
+        }
+    },
+    BATCH {
+        @Override
+        String request(final int batchSize) {
+            return IntStream.range(0, batchSize)
+                    .mapToObj(i -> call(i, "user", "[" + i + "]"))
+                    .collect(joining(",", "[", "]"));
+        }
+    },
+    ASYNC {
+        @Override
+        String request(final int batchSize) {
+            return call(1, "asyncEcho", "[\"payload\"]");
+        }
+    },
+    ERROR {
+        @Override
+        String request(final int batchSize) {
+            return call(1, "fail", "[\"payload\"]");
+        }
+
+        @Override
+        boolean isValid(final String response) {
+            return response != null && response.contains("\"error\"") && response.contains("\"code\":1");
+        }
+    };
+
+    abstract String request(int batchSize);
+
+    boolean isValid(final String response) {
+        return response != null && response.contains("\"result\"") && !response.contains("\"error\"");
+    }
+
+    byte[] payload(final int batchSize) {
+        return request(batchSize).getBytes(UTF_8);
+    }
+
+    private static String call(final int id, final String method, final String params) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":\"" + id + "\",\"method\":\"" + method + "\",\"params\":" + params + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.rmannibucau.jsonrpc.loadtest.benchmark;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.json.JsonStructure;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the sequential and the fork-join parsing of a batch by number of calls,
+ * run it with: {@code java -jar target/benchmarks.jar BatchParsingBenchmark}
+ * and vary the cores with {@code -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=<n>}.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchParsingBenchmark {
+    @Param({"100", "10000", "50000"})
+    private int calls;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+    private String batch;
+
+    @Setup
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+
+        final Configuration configuration = new Configuration();
+        configuration.setMaxBatchSize(0);
+        configuration.setParallelBatchParsingThreshold(parallel ? 1 : 0);
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(configuration);
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+
+        batch = IntStream.range(0, calls)
+                .mapToObj(i -> "{\"jsonrpc\":\"2.0\",\"id\":\"" + i + "\",\"method\":\"user\"," +
+                        "\"params\":{\"id\":" + i + ",\"name\":\"user #" + i + "\",\"tags\":[\"a\",\"b\"]}}")
+                .collect(joining(",", "[", "]"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public JsonStructure parse() {
+        return handler.readRequest(new StringReader(batch));
+    }
+}
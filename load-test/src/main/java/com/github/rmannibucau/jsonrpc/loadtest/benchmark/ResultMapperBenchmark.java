@@ -0,0 +1,69 @@
+package com.github.rmannibucau.jsonrpc.loadtest.benchmark;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.json.Json;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.loadtest.SampleEndpoints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the JSON-B round trip and the specialized result mappers on the {@code user} sample endpoint,
+ * run it with: {@code java -jar target/benchmarks.jar ResultMapperBenchmark -prof gc}.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultMapperBenchmark {
+    @Param({"false", "true"})
+    private boolean specialized;
+
+    private Jsonb jsonb;
+    private Function<JsonStructure, CompletionStage<JsonValue>> executor;
+    private JsonStructure params;
+
+    @Setup
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.setSpecializedResultMappers(specialized);
+        SampleEndpoints.register(registry);
+        executor = registry.getHandlers().get("user").getExecutor();
+        params = Json.createArrayBuilder().add(42).build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public JsonValue user() throws ExecutionException, InterruptedException {
+        return executor.apply(params).toCompletableFuture().get();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.rmannibucau.jsonrpc.annotations;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the bulk form of a JSON-RPC method of the same bean: when a batch contains several calls of this method
+ * they are executed with a single invocation of the bulk form.
+ *
+ * With a positive {@link #windowMicros()}, calls coming from independent requests are also collected
+ * during this window (or until {@link #maxSize()} calls are pending) and executed with a single bulk invocation.
+ *
+ * The bulk method takes a {@code List} of the parameter values if the method has a single parameter,
+ * a {@code List<Object[]>} of the parameter sets otherwise, and returns a {@code List} of the results
+ * (or a {@code CompletionStage} of it) in the same order.
+ */
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface JsonRpcBatchable {
+    /**
+     * @return the JSON-RPC method (identifier) this method is the bulk form of.
+     */
+    String value();
+
+    /**
+     * @return how long, in microseconds, single calls wait for other calls to be executed with them,
+     * {@code 0} to only use the bulk form for batches.
+     */
+    long windowMicros() default 0;
+
+    /**
+     * @return the max number of calls of a cross-request bulk invocation, reaching it flushes the pending calls.
+     */
+    int maxSize() default 256;
+}
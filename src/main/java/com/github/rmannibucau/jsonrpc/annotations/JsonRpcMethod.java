@@ -20,4 +20,41 @@ public @interface JsonRpcMethod {
      * @return some explanation about this method.
      */
     String documentation() default "";
+
+    /**
+     * When calls are scheduled (see {@code Configuration#setSchedulerThreads(int)}), higher priority classes run first,
+     * calls of the same class run earliest deadline first.
+     *
+     * @return the priority class of this method.
+     */
+    int priority() default 0;
+
+    /**
+     * When calls are scheduled, {@code AUTO} runs them in the transport thread while they usually complete
+     * under {@code Configuration#setInlineThresholdMicros(long)} and offloads them to the scheduler otherwise.
+     *
+     * @return how the calls of this method are dispatched.
+     */
+    Dispatch dispatch() default Dispatch.AUTO;
+
+    /**
+     * When the gateway is enabled (see {@code Configuration#setGatewayNodes(String)}), the calls are executed
+     * by the node owning the value of this parameter and forwarded to it if needed.
+     *
+     * @return the name of the parameter sharding the calls, empty to always execute them locally.
+     */
+    String shardKey() default "";
+
+    /**
+     * Job methods return a {@code {"jobId":"..."}} result as soon as the params are bound and are executed in background,
+     * their result is then fetched with the {@code job.status} and {@code job.result} methods
+     * (see {@code Configuration#setJobDirectory(String)}).
+     *
+     * @return true if the calls run as background jobs.
+     */
+    boolean job() default false;
+
+    enum Dispatch {
+        AUTO, INLINE, OFFLOAD
+    }
 }
@@ -0,0 +1,255 @@
+package com.github.rmannibucau.jsonrpc.capture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Samples the requests to a compact append-only file to replay them later (see the {@code load-test} module).
+ *
+ * The request threads only enqueue the captured requests, a background thread encodes and appends them to a memory
+ * mapped file. When the queue or the file is full the requests are dropped (see {@link #getDropped()}).
+ *
+ * The file starts with a magic number and a version then each request is {@code [size][timestamp][duration][method][payload]}
+ * where timestamp is the request start in nanoseconds since the capture started, in completion order.
+ */
+public class TrafficCapture implements AutoCloseable {
+    private static final int MAGIC = 0x4a525043; // JRPC
+    private static final int VERSION = 1;
+    private static final int HEADER = Integer.BYTES * 2;
+    private static final int MAPPING_INCREMENT = 8 * 1024 * 1024;
+
+    private final Path file;
+    private final double sampleRate;
+    private final long maxSize;
+    private final long origin = System.nanoTime();
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final FileChannel channel;
+    private final Thread writer;
+    private MappedByteBuffer buffer; // writer thread only
+    private int position;
+    private volatile boolean closed;
+
+    /**
+     * @param file the capture file, replaced if it exists.
+     * @param sampleRate the ratio of captured requests, between 0 and 1.
+     * @param queueSize the max number of requests waiting to be written.
+     * @param maxSize the max size of the file in bytes (at most 2GB).
+     */
+    public TrafficCapture(final Path file, final double sampleRate, final int queueSize, final long maxSize) {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.maxSize = Math.min(Integer.MAX_VALUE, maxSize);
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        try {
+            channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(this.maxSize, MAPPING_INCREMENT));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't open capture file " + file, e);
+        }
+        buffer.putInt(MAGIC).putInt(VERSION);
+        position = HEADER;
+        writer = new Thread(this::write, TrafficCapture.class.getName() + "-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return true if the current request must be captured.
+     */
+    public boolean sample() {
+        return !closed && (sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate));
+    }
+
+    /**
+     * @param method the method of the request, {@code null} for batches or unknown methods.
+     * @param start the {@link System#nanoTime()} when the request started.
+     * @param duration the request duration in nanoseconds.
+     * @param payload the request.
+     */
+    public void record(final String method, final long start, final long duration, final String payload) {
+        if (closed || !queue.offer(new Entry(start - origin, duration, method == null ? "" : method, payload))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getCaptured() {
+        return captured.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the pending requests and truncates the file to its content.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            buffer.force();
+            channel.truncate(position);
+            channel.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't close capture file " + file, e);
+        }
+    }
+
+    /**
+     * @param file a capture file.
+     * @param consumer the callback receiving the captured requests in the file order.
+     */
+    public static void read(final Path file, final Consumer<Entry> consumer) {
+        try (final FileChannel channel = FileChannel.open(file, READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a capture file");
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException("Unsupported capture file version in " + file);
+            }
+            while (buffer.remaining() > Integer.BYTES) {
+                final int size = buffer.getInt();
+                if (size <= 0 || size > buffer.remaining()) { // end of a capture which was not closed
+                    break;
+                }
+                final long timestamp = buffer.getLong();
+                final long duration = buffer.getLong();
+                final int methodLength = buffer.getShort() & 0xffff;
+                final String method = string(buffer, methodLength);
+                final String payload = string(buffer, size - Long.BYTES * 2 - Short.BYTES - methodLength);
+                consumer.accept(new Entry(timestamp, duration, method, payload));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't read capture file " + file, e);
+        }
+    }
+
+    private static String string(final ByteBuffer buffer, final int length) {
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private void write() {
+        final List<Entry> entries = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                final Entry first = queue.poll(100, MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                entries.add(first);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(entries);
+            entries.forEach(this::append);
+            entries.clear();
+        }
+    }
+
+    private void append(final Entry entry) {
+        final byte[] method = entry.method.getBytes(UTF_8);
+        final byte[] payload = entry.payload.getBytes(UTF_8);
+        final int size = Long.BYTES * 2 + Short.BYTES + method.length + payload.length;
+        if (!ensureCapacity(Integer.BYTES + size)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        final ByteBuffer mapping = buffer; // MappedByteBuffer#position(int) only exists since java 13
+        mapping.position(position + Integer.BYTES);
+        mapping.putLong(entry.timestamp)
+                .putLong(entry.duration)
+                .putShort((short) method.length)
+                .put(method)
+                .put(payload);
+        mapping.putInt(position, size); // last so a reader never sees a partial request
+        position += Integer.BYTES + size;
+        captured.incrementAndGet();
+    }
+
+    private boolean ensureCapacity(final int size) {
+        if (position + size <= buffer.capacity()) {
+            return true;
+        }
+        if (position + size > maxSize) {
+            return false;
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.min(maxSize, Math.max((long) buffer.capacity() + MAPPING_INCREMENT, (long) position + size)));
+            return true;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't grow capture file " + file, e);
+        }
+    }
+
+    public static class Entry {
+        private final long timestamp;
+        private final long duration;
+        private final String method;
+        private final String payload;
+
+        private Entry(final long timestamp, final long duration, final String method, final String payload) {
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.method = method;
+            this.payload = payload;
+        }
+
+        /**
+         * @return the request start in nanoseconds since the capture started.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the captured request duration in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the method of the request, empty for batches or unknown methods.
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
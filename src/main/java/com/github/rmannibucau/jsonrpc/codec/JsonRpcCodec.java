@@ -0,0 +1,57 @@
+package com.github.rmannibucau.jsonrpc.codec;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+/**
+ * JSON engine SPI: request parsing, parameter binding and response writing.
+ *
+ * The default implementation is {@link JsonbCodec}, another one can be provided as a {@code @JsonRpc} CDI bean
+ * or registered with a {@link java.util.ServiceLoader} (the CDI bean wins).
+ * Implementations must be thread safe.
+ */
+public interface JsonRpcCodec {
+    /**
+     * The requests are parsed with this provider parser (and built with its builders),
+     * a streaming engine can plug its own parser there.
+     *
+     * @return the JSON-P provider used for the requests and the JSON results.
+     */
+    JsonProvider getJsonProvider();
+
+    /**
+     * @param value a parameter value, never {@code null}.
+     * @param type the parameter type.
+     * @return the bound parameter.
+     */
+    Object fromJson(JsonValue value, Type type);
+
+    /**
+     * Writes a {@link com.github.rmannibucau.jsonrpc.protocol.Response}, a batch ({@code Response[]})
+     * or an element of a streamed result. The writer must not be closed.
+     *
+     * @param value the value to write.
+     * @param writer the output.
+     */
+    void toJson(Object value, Writer writer);
+
+    /**
+     * Used for the results without a specialized mapper, the default implementation writes then parses the value.
+     *
+     * @param value the result of a method, never {@code null}.
+     * @return its JSON representation.
+     */
+    default JsonValue toJsonValue(final Object value) {
+        final StringWriter writer = new StringWriter();
+        toJson(value, writer);
+        try (final JsonReader reader = getJsonProvider().createReader(new StringReader(writer.toString()))) {
+            return reader.readValue();
+        }
+    }
+}
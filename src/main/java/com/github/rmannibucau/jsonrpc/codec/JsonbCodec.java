@@ -0,0 +1,64 @@
+package com.github.rmannibucau.jsonrpc.codec;
+
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.stream.Stream;
+
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.bind.Jsonb;
+import javax.json.spi.JsonProvider;
+
+/**
+ * Default codec, binding and writing with the {@code @JsonRpc} {@link Jsonb}.
+ */
+public class JsonbCodec implements JsonRpcCodec {
+    private final Jsonb jsonb;
+    private final JsonProvider provider;
+
+    public JsonbCodec(final Jsonb jsonb, final JsonProvider provider) {
+        this.jsonb = jsonb;
+        this.provider = provider;
+    }
+
+    public Jsonb getJsonb() {
+        return jsonb;
+    }
+
+    @Override
+    public JsonProvider getJsonProvider() {
+        return provider;
+    }
+
+    @Override
+    public Object fromJson(final JsonValue value, final Type type) {
+        if (JsonString.class.isInstance(value) && Class.class.isInstance(type) && Class.class.cast(type).isEnum()) {
+            return toEnum(Class.class.cast(type), JsonString.class.cast(value).getString());
+        }
+        return jsonb.fromJson(value.toString(), type);
+    }
+
+    @Override
+    public void toJson(final Object value, final Writer writer) {
+        jsonb.toJson(value, writer);
+    }
+
+    @Override
+    public JsonValue toJsonValue(final Object value) {
+        // top level strings and enums are not handled by all JSON-B implementations
+        if (String.class.isInstance(value)) {
+            return provider.createValue(String.class.cast(value));
+        }
+        if (Enum.class.isInstance(value)) {
+            return provider.createValue(Enum.class.cast(value).name());
+        }
+        return jsonb.fromJson(jsonb.toJson(value), JsonValue.class);
+    }
+
+    private static Object toEnum(final Class<?> type, final String name) {
+        return Stream.of(type.getEnumConstants())
+                .filter(it -> Enum.class.cast(it).name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No enum constant " + type.getName() + "." + name));
+    }
+}
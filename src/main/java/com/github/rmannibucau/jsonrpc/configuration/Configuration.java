@@ -8,6 +8,379 @@ public class Configuration {
     private long timeout = 30000L;
     private boolean active = true;
     private String specificationMethod = "jsonrpc.specification";
+    private boolean lazyEndpoints = false;
+    private boolean parallelRegistration = false;
+    private boolean serverTiming = false;
+    private int schedulerThreads = 0;
+    private boolean specializedResultMappers = false;
+    private long maxRequestSize = 0;
+    private int maxBatchSize = 0;
+    private int maxDepth = 0;
+    private int maxStringLength = 0;
+    private boolean pipelinedBatches = false;
+    private int parallelBatchParsingThreshold = 0;
+    private long inlineThresholdMicros = 100;
+    private boolean parameterValidation = false;
+    private boolean openRpcSpecification = false;
+    private String gatewayNodes;
+    private String gatewaySelf;
+    private int gatewayVirtualNodes = 128;
+    private int gatewayThreads = 16;
+    private int gatewayConnectTimeout = 1000;
+    private int warmupIterations = 0;
+    private long warmupDuration = 0;
+    private boolean warmupInvoke = false;
+    private String warmupSamples;
+    private String jobDirectory;
+    private long jobTtl = 24 * 60 * 60 * 1000L;
+    private int jobThreads = 4;
+    private int jobJournalSize = 16 * 1024 * 1024;
+    private String captureFile;
+    private double captureSampleRate = 0.01;
+    private int captureQueueSize = 10000;
+    private long captureMaxSize = 256 * 1024 * 1024;
+
+    public String getCaptureFile() {
+        return captureFile;
+    }
+
+    /**
+     * @param captureFile the file where sampled requests are captured to be replayed, {@code null} to disable the capture.
+     */
+    public void setCaptureFile(final String captureFile) {
+        this.captureFile = captureFile;
+    }
+
+    public double getCaptureSampleRate() {
+        return captureSampleRate;
+    }
+
+    /**
+     * @param captureSampleRate the ratio of captured requests, between 0 and 1.
+     */
+    public void setCaptureSampleRate(final double captureSampleRate) {
+        this.captureSampleRate = captureSampleRate;
+    }
+
+    public int getCaptureQueueSize() {
+        return captureQueueSize;
+    }
+
+    /**
+     * @param captureQueueSize the max number of captured requests waiting to be written, others are dropped.
+     */
+    public void setCaptureQueueSize(final int captureQueueSize) {
+        this.captureQueueSize = captureQueueSize;
+    }
+
+    public long getCaptureMaxSize() {
+        return captureMaxSize;
+    }
+
+    /**
+     * @param captureMaxSize the max size of the capture file in bytes, next requests are dropped.
+     */
+    public void setCaptureMaxSize(final long captureMaxSize) {
+        this.captureMaxSize = captureMaxSize;
+    }
+
+    public String getJobDirectory() {
+        return jobDirectory;
+    }
+
+    /**
+     * @param jobDirectory the directory of the job results journal, {@code null} to disable the job methods
+     *                     (see {@code JsonRpcMethod#job()}).
+     */
+    public void setJobDirectory(final String jobDirectory) {
+        this.jobDirectory = jobDirectory;
+    }
+
+    public long getJobTtl() {
+        return jobTtl;
+    }
+
+    /**
+     * @param jobTtl how long the job results are kept after their completion in milliseconds.
+     */
+    public void setJobTtl(final long jobTtl) {
+        this.jobTtl = jobTtl;
+    }
+
+    public int getJobThreads() {
+        return jobThreads;
+    }
+
+    public void setJobThreads(final int jobThreads) {
+        this.jobThreads = jobThreads;
+    }
+
+    public int getJobJournalSize() {
+        return jobJournalSize;
+    }
+
+    /**
+     * @param jobJournalSize the initial size of the job journal in bytes, it grows when full.
+     */
+    public void setJobJournalSize(final int jobJournalSize) {
+        this.jobJournalSize = jobJournalSize;
+    }
+
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * @param warmupIterations how many times the warmup requests are sent after the registration,
+     *                         {@code 0} to only rely on the warmup duration.
+     */
+    public void setWarmupIterations(final int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+    }
+
+    public long getWarmupDuration() {
+        return warmupDuration;
+    }
+
+    /**
+     * @param warmupDuration the max duration of the warmup in milliseconds, {@code 0} to only rely on the iterations.
+     */
+    public void setWarmupDuration(final long warmupDuration) {
+        this.warmupDuration = warmupDuration;
+    }
+
+    public boolean isWarmupInvoke() {
+        return warmupInvoke;
+    }
+
+    /**
+     * @param warmupInvoke if false the warmup binds the params and serializes a {@code null} result without invoking
+     *                     the methods, use true if they don't have side effects.
+     */
+    public void setWarmupInvoke(final boolean warmupInvoke) {
+        this.warmupInvoke = warmupInvoke;
+    }
+
+    public String getWarmupSamples() {
+        return warmupSamples;
+    }
+
+    /**
+     * @param warmupSamples a classpath resource or file with the requests to replay during the warmup,
+     *                      {@code null} to generate them from the specification.
+     */
+    public void setWarmupSamples(final String warmupSamples) {
+        this.warmupSamples = warmupSamples;
+    }
+
+    public String getGatewayNodes() {
+        return gatewayNodes;
+    }
+
+    /**
+     * @param gatewayNodes the comma separated endpoint URLs of the nodes sharing the sharded methods
+     *                     (see {@code JsonRpcMethod#shardKey()}), {@code null} to disable the gateway.
+     */
+    public void setGatewayNodes(final String gatewayNodes) {
+        this.gatewayNodes = gatewayNodes;
+    }
+
+    public String getGatewaySelf() {
+        return gatewaySelf;
+    }
+
+    /**
+     * @param gatewaySelf the endpoint URL of this node, as written in the gateway nodes.
+     */
+    public void setGatewaySelf(final String gatewaySelf) {
+        this.gatewaySelf = gatewaySelf;
+    }
+
+    public int getGatewayVirtualNodes() {
+        return gatewayVirtualNodes;
+    }
+
+    public void setGatewayVirtualNodes(final int gatewayVirtualNodes) {
+        this.gatewayVirtualNodes = gatewayVirtualNodes;
+    }
+
+    public int getGatewayThreads() {
+        return gatewayThreads;
+    }
+
+    public void setGatewayThreads(final int gatewayThreads) {
+        this.gatewayThreads = gatewayThreads;
+    }
+
+    public int getGatewayConnectTimeout() {
+        return gatewayConnectTimeout;
+    }
+
+    public void setGatewayConnectTimeout(final int gatewayConnectTimeout) {
+        this.gatewayConnectTimeout = gatewayConnectTimeout;
+    }
+
+    public boolean isParameterValidation() {
+        return parameterValidation;
+    }
+
+    /**
+     * @param parameterValidation if true, params are checked against the JSON schema of the parameter types
+     *                            before the binding and invalid calls fail with a {@code -32602} error.
+     */
+    public void setParameterValidation(final boolean parameterValidation) {
+        this.parameterValidation = parameterValidation;
+    }
+
+    public boolean isOpenRpcSpecification() {
+        return openRpcSpecification;
+    }
+
+    /**
+     * @param openRpcSpecification if true, the specification method returns an OpenRPC document.
+     */
+    public void setOpenRpcSpecification(final boolean openRpcSpecification) {
+        this.openRpcSpecification = openRpcSpecification;
+    }
+
+    public long getInlineThresholdMicros() {
+        return inlineThresholdMicros;
+    }
+
+    /**
+     * @param inlineThresholdMicros when calls are scheduled, methods whose average latency is under this value
+     *                              run in the transport thread (see {@code JsonRpcMethod#dispatch()}).
+     */
+    public void setInlineThresholdMicros(final long inlineThresholdMicros) {
+        this.inlineThresholdMicros = inlineThresholdMicros;
+    }
+
+    public int getParallelBatchParsingThreshold() {
+        return parallelBatchParsingThreshold;
+    }
+
+    /**
+     * @param parallelBatchParsingThreshold if positive, batches of at least this number of characters are buffered
+     *                                      and their elements parsed in parallel on the common fork-join pool.
+     */
+    public void setParallelBatchParsingThreshold(final int parallelBatchParsingThreshold) {
+        this.parallelBatchParsingThreshold = parallelBatchParsingThreshold;
+    }
+
+    public boolean isPipelinedBatches() {
+        return pipelinedBatches;
+    }
+
+    /**
+     * @param pipelinedBatches if true, each call of a batch is submitted as soon as it is read,
+     *                         it only overlaps with the upload if calls do not run in the transport thread
+     *                         (asynchronous methods or a scheduler) and disables batch level bulk calls.
+     */
+    public void setPipelinedBatches(final boolean pipelinedBatches) {
+        this.pipelinedBatches = pipelinedBatches;
+    }
+
+    public long getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    /**
+     * @param maxRequestSize the max number of characters of a request (bytes of a frame for the socket transport),
+     *                       {@code 0} to disable the check.
+     */
+    public void setMaxRequestSize(final long maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the max number of requests of a batch, {@code 0} to disable the check.
+     */
+    public void setMaxBatchSize(final int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth the max nesting of objects and arrays in a request, {@code 0} to disable the check.
+     */
+    public void setMaxDepth(final int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * @param maxStringLength the max length of a string (or key) of a request, {@code 0} to disable the check.
+     */
+    public void setMaxStringLength(final int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+    }
+
+    public boolean isSpecializedResultMappers() {
+        return specializedResultMappers;
+    }
+
+    /**
+     * @param specializedResultMappers if true, plain bean results are converted with generated accessors instead of
+     *                                 a JSON-B round trip, it assumes the default JSON-B mapping.
+     */
+    public void setSpecializedResultMappers(final boolean specializedResultMappers) {
+        this.specializedResultMappers = specializedResultMappers;
+    }
+
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    /**
+     * @param schedulerThreads if positive, calls are executed on a shared pool of this size, by priority then
+     *                         earliest deadline first, instead of the transport thread.
+     */
+    public void setSchedulerThreads(final int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public boolean isServerTiming() {
+        return serverTiming;
+    }
+
+    /**
+     * @param serverTiming if true, HTTP responses get a {@code Server-Timing} header with the phase durations.
+     */
+    public void setServerTiming(final boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    public boolean isLazyEndpoints() {
+        return lazyEndpoints;
+    }
+
+    /**
+     * @param lazyEndpoints if true, endpoint beans are looked up and their binders/invokers are built at first call.
+     */
+    public void setLazyEndpoints(final boolean lazyEndpoints) {
+        this.lazyEndpoints = lazyEndpoints;
+    }
+
+    public boolean isParallelRegistration() {
+        return parallelRegistration;
+    }
+
+    /**
+     * @param parallelRegistration if true, endpoint beans are registered in parallel on a dedicated pool using the deployment classloader.
+     */
+    public void setParallelRegistration(final boolean parallelRegistration) {
+        this.parallelRegistration = parallelRegistration;
+    }
 
     public String getSpecificationMethod() {
         return specificationMethod;
@@ -12,6 +12,68 @@ public final class MicroprofileInitializer {
                     .ifPresent(configuration::setJsonRpcVersion);
             config.getOptionalValue("com.github.rmannibucau.jsonrpc.timeout", Long.class)
                     .ifPresent(configuration::setTimeout);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.lazyEndpoints", Boolean.class)
+                    .ifPresent(configuration::setLazyEndpoints);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.parallelRegistration", Boolean.class)
+                    .ifPresent(configuration::setParallelRegistration);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.serverTiming", Boolean.class)
+                    .ifPresent(configuration::setServerTiming);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.schedulerThreads", Integer.class)
+                    .ifPresent(configuration::setSchedulerThreads);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.specializedResultMappers", Boolean.class)
+                    .ifPresent(configuration::setSpecializedResultMappers);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.maxRequestSize", Long.class)
+                    .ifPresent(configuration::setMaxRequestSize);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.maxBatchSize", Integer.class)
+                    .ifPresent(configuration::setMaxBatchSize);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.maxDepth", Integer.class)
+                    .ifPresent(configuration::setMaxDepth);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.maxStringLength", Integer.class)
+                    .ifPresent(configuration::setMaxStringLength);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.pipelinedBatches", Boolean.class)
+                    .ifPresent(configuration::setPipelinedBatches);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.parallelBatchParsingThreshold", Integer.class)
+                    .ifPresent(configuration::setParallelBatchParsingThreshold);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.inlineThresholdMicros", Long.class)
+                    .ifPresent(configuration::setInlineThresholdMicros);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.parameterValidation", Boolean.class)
+                    .ifPresent(configuration::setParameterValidation);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.openRpcSpecification", Boolean.class)
+                    .ifPresent(configuration::setOpenRpcSpecification);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.gateway.nodes", String.class)
+                    .ifPresent(configuration::setGatewayNodes);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.gateway.self", String.class)
+                    .ifPresent(configuration::setGatewaySelf);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.gateway.virtualNodes", Integer.class)
+                    .ifPresent(configuration::setGatewayVirtualNodes);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.gateway.threads", Integer.class)
+                    .ifPresent(configuration::setGatewayThreads);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.gateway.connectTimeout", Integer.class)
+                    .ifPresent(configuration::setGatewayConnectTimeout);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.warmup.iterations", Integer.class)
+                    .ifPresent(configuration::setWarmupIterations);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.warmup.duration", Long.class)
+                    .ifPresent(configuration::setWarmupDuration);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.warmup.invoke", Boolean.class)
+                    .ifPresent(configuration::setWarmupInvoke);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.warmup.samples", String.class)
+                    .ifPresent(configuration::setWarmupSamples);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.job.directory", String.class)
+                    .ifPresent(configuration::setJobDirectory);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.job.ttl", Long.class)
+                    .ifPresent(configuration::setJobTtl);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.job.threads", Integer.class)
+                    .ifPresent(configuration::setJobThreads);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.job.journalSize", Integer.class)
+                    .ifPresent(configuration::setJobJournalSize);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.capture.file", String.class)
+                    .ifPresent(configuration::setCaptureFile);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.capture.sampleRate", Double.class)
+                    .ifPresent(configuration::setCaptureSampleRate);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.capture.queueSize", Integer.class)
+                    .ifPresent(configuration::setCaptureQueueSize);
+            config.getOptionalValue("com.github.rmannibucau.jsonrpc.capture.maxSize", Long.class)
+                    .ifPresent(configuration::setCaptureMaxSize);
         } catch (final RuntimeException | Error re) {
             // no-op
         }
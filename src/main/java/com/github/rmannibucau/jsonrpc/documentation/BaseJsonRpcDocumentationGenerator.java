@@ -32,6 +32,7 @@ import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
 import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
 
 public abstract class BaseJsonRpcDocumentationGenerator implements Runnable {
     private final Collection<Class<?>> endpoints;
@@ -111,6 +112,7 @@ public abstract class BaseJsonRpcDocumentationGenerator implements Runnable {
                         extractRealType(method.getGenericReturnType()),
                     a -> null,
                     Stream.of(method.getParameters())
+                        .filter(p -> p.getType() != CallContext.class)
                         .map(p -> {
                             final Optional<JsonRpcParam> conf = ofNullable(p.getAnnotation(JsonRpcParam.class));
                             idx.incrementAndGet();
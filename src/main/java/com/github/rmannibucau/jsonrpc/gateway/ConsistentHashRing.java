@@ -0,0 +1,67 @@
+package com.github.rmannibucau.jsonrpc.gateway;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Maps keys to nodes, each node owns {@code virtualNodes} points of a 64 bits ring and a key belongs to the first point
+ * after its hash. Adding or removing a node only moves the keys of its points.
+ *
+ * The hash only depends on the node and key strings so all the nodes configured with the same list agree on the owners.
+ */
+public final class ConsistentHashRing {
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(final Collection<String> nodes, final int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("A ring needs nodes and virtual nodes");
+        }
+        final String[] distinct = nodes.stream().distinct().sorted().toArray(String[]::new);
+        final long[] hashes = new long[distinct.length * virtualNodes];
+        final String[] nodeOf = new String[hashes.length];
+        for (int n = 0; n < distinct.length; n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[n * virtualNodes + v] = hash(distinct[n] + '#' + v);
+                nodeOf[n * virtualNodes + v] = distinct[n];
+            }
+        }
+        final Integer[] order = IntStream.range(0, hashes.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> hashes[i]).thenComparing(i -> nodeOf[i]));
+        points = new long[hashes.length];
+        owners = new String[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = nodeOf[order[i]];
+        }
+    }
+
+    /**
+     * @param key the shard key.
+     * @return the node owning the key.
+     */
+    public String owner(final String key) {
+        final int index = Arrays.binarySearch(points, hash(key));
+        final int point = index >= 0 ? index : -index - 1;
+        return owners[point == points.length ? 0 : point];
+    }
+
+    // FNV-1a then the murmur3 finalizer to spread close strings ("node#1", "node#2") over the ring
+    static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : value.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
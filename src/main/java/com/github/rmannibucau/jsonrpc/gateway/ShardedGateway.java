@@ -0,0 +1,148 @@
+package com.github.rmannibucau.jsonrpc.gateway;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+
+/**
+ * Forwards the calls of sharded methods to the node owning their key.
+ *
+ * Nodes are the JSON-RPC endpoint URLs, all nodes must be configured with the same list to agree on the owners.
+ * Forwarded requests use {@link HttpURLConnection} whose keep-alive cache pools the connections
+ * (up to the {@code http.maxConnections} system property per node, 5 by default).
+ */
+public class ShardedGateway implements AutoCloseable {
+    /**
+     * Header marking a forwarded request, the receiving node executes it locally whatever its ring says.
+     */
+    public static final String FORWARDED_HEADER = "X-JsonRpc-Forwarded";
+
+    private final ConsistentHashRing ring;
+    private final String self;
+    private final JsonProvider provider;
+    private final ExecutorService executor;
+    private final int connectTimeout;
+    private final long timeout;
+
+    /**
+     * @param nodes the endpoint URL of all the nodes, including this one.
+     * @param self the endpoint URL of this node.
+     * @param virtualNodes the number of points of each node on the ring.
+     * @param threads the number of threads forwarding the calls.
+     * @param connectTimeout the connection timeout in milliseconds.
+     * @param timeout the response timeout in milliseconds when the request has no deadline.
+     * @param provider the JSON-P provider reading the responses.
+     */
+    public ShardedGateway(final Collection<String> nodes, final String self, final int virtualNodes, final int threads,
+                          final int connectTimeout, final long timeout, final JsonProvider provider) {
+        if (!nodes.contains(self)) {
+            throw new IllegalArgumentException("'" + self + "' is not in the gateway nodes: " + nodes);
+        }
+        this.ring = new ConsistentHashRing(nodes, virtualNodes);
+        this.self = self;
+        this.provider = provider;
+        this.connectTimeout = connectTimeout;
+        this.timeout = timeout;
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            final Thread thread = new Thread(task, ShardedGateway.class.getName() + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param key the shard key of a call.
+     * @return the node owning the key, {@code null} if it is this node.
+     */
+    public String findRemoteOwner(final String key) {
+        final String owner = ring.owner(key);
+        return self.equals(owner) ? null : owner;
+    }
+
+    /**
+     * @param node the node to send the request to.
+     * @param request a single request or a batch.
+     * @param context the incoming request, its deadline and trace are propagated.
+     * @return the response of the node (an object for a single request, an array for a batch).
+     */
+    public CompletableFuture<JsonStructure> forward(final String node, final JsonStructure request,
+                                                    final RequestContext context) {
+        return CompletableFuture.supplyAsync(() -> post(node, request, context), executor);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private JsonStructure post(final String node, final JsonStructure request, final RequestContext context) {
+        final long remaining = context.getDeadline() == 0 ?
+                timeout : NANOSECONDS.toMillis(context.getDeadline() - System.nanoTime());
+        if (remaining <= 0) {
+            throw new JsonRpcException(-32603, "Deadline exceeded");
+        }
+        final byte[] payload = request.toString().getBytes(UTF_8);
+        try {
+            final HttpURLConnection connection = HttpURLConnection.class.cast(new URL(node).openConnection());
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, remaining));
+            connection.setFixedLengthStreamingMode(payload.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty(FORWARDED_HEADER, "true");
+            if (context.getDeadline() != 0) {
+                connection.setRequestProperty("X-JsonRpc-Timeout", Long.toString(remaining));
+            }
+            if (context.getTraceParent() != null) {
+                connection.setRequestProperty("traceparent", context.getTraceParent().toString());
+            }
+            try (final OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(payload);
+            }
+            final int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                drain(connection.getErrorStream());
+                throw new JsonRpcException(-32603, "Node " + node + " returned HTTP " + status);
+            }
+            // fully read so the connection goes back to the keep-alive cache
+            try (final JsonReader reader = provider.createReader(new InputStreamReader(connection.getInputStream(), UTF_8))) {
+                return reader.read();
+            }
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Can't forward the request to " + node, ioe);
+        }
+    }
+
+    private static void drain(final InputStream stream) throws IOException {
+        if (stream == null) {
+            return;
+        }
+        try (final InputStream in = stream) {
+            final byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+                // no-op
+            }
+        }
+    }
+}
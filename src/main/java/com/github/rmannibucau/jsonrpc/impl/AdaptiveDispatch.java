@@ -0,0 +1,94 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+
+/**
+ * Running latency estimate of a method (exponentially weighted moving average of the synchronous part of its calls)
+ * deciding if its calls run in the transport thread or are offloaded to the scheduler.
+ *
+ * In {@code AUTO} mode, a method runs inline once its average drops under the threshold and is offloaded again
+ * once it exceeds twice the threshold, methods start offloaded until measured.
+ */
+public class AdaptiveDispatch {
+    private final JsonRpcMethod.Dispatch mode;
+    private final long thresholdNanos;
+
+    private final LongAdder inlineCalls = new LongAdder();
+    private final LongAdder offloadedCalls = new LongAdder();
+
+    // racy updates, a lost sample does not matter for an estimate
+    private volatile long averageNanos = -1;
+    private volatile boolean inline;
+
+    AdaptiveDispatch(final JsonRpcMethod.Dispatch mode, final long thresholdNanos) {
+        this.mode = mode;
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    /**
+     * @param call the call.
+     * @param offloaded if the call runs in the scheduler.
+     * @param <T> the result type.
+     * @return the call result.
+     */
+    public <T> T measure(final Supplier<T> call, final boolean offloaded) {
+        final long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            onCall(System.nanoTime() - start, offloaded);
+        }
+    }
+
+    /**
+     * @param nanos the duration of the synchronous part of a call.
+     * @param offloaded if the call ran in the scheduler.
+     */
+    public void onCall(final long nanos, final boolean offloaded) {
+        (offloaded ? offloadedCalls : inlineCalls).increment();
+        final long current = averageNanos;
+        final long average = current < 0 ? nanos : current + ((nanos - current) >> 3);
+        averageNanos = average;
+        if (average < thresholdNanos) {
+            inline = true;
+        } else if (average > thresholdNanos * 2) {
+            inline = false;
+        }
+    }
+
+    /**
+     * @return {@code true} if the next call should run in the transport thread.
+     */
+    public boolean isInline() {
+        switch (mode) {
+            case INLINE:
+                return true;
+            case OFFLOAD:
+                return false;
+            default:
+                return inline;
+        }
+    }
+
+    public JsonRpcMethod.Dispatch getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the average latency in nanoseconds, {@code -1} if the method was never called.
+     */
+    public long getAverageNanos() {
+        return averageNanos;
+    }
+
+    public long getInlineCalls() {
+        return inlineCalls.sum();
+    }
+
+    public long getOffloadedCalls() {
+        return offloadedCalls.sum();
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+
+/**
+ * View of a single value of a request being parsed, it ends with the value so endpoints can't read the envelope.
+ */
+class BoundedJsonParser implements JsonParser {
+    private final JsonParser delegate;
+    private Event pending; // the first event was already read to find the value
+    private int depth;
+    private boolean done;
+
+    BoundedJsonParser(final JsonParser delegate, final Event first) {
+        this.delegate = delegate;
+        this.pending = first;
+    }
+
+    /**
+     * Skips what the endpoint didn't read of the value.
+     */
+    void drain() {
+        while (hasNext()) {
+            next();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null || !done;
+    }
+
+    @Override
+    public Event next() {
+        final Event event;
+        if (pending != null) {
+            event = pending;
+            pending = null;
+        } else if (done) {
+            throw new NoSuchElementException();
+        } else {
+            event = delegate.next();
+        }
+        switch (event) {
+            case START_ARRAY:
+            case START_OBJECT:
+                depth++;
+                break;
+            case END_ARRAY:
+            case END_OBJECT:
+                depth--;
+                break;
+            default:
+        }
+        done = depth == 0;
+        return event;
+    }
+
+    @Override
+    public JsonValue getValue() {
+        final JsonValue value = delegate.getValue();
+        if (value.getValueType() == JsonValue.ValueType.ARRAY || value.getValueType() == JsonValue.ValueType.OBJECT) {
+            onEnd();
+        }
+        return value;
+    }
+
+    @Override
+    public JsonObject getObject() {
+        final JsonObject object = delegate.getObject();
+        onEnd();
+        return object;
+    }
+
+    @Override
+    public JsonArray getArray() {
+        final JsonArray array = delegate.getArray();
+        onEnd();
+        return array;
+    }
+
+    @Override
+    public void skipArray() {
+        delegate.skipArray();
+        onEnd();
+    }
+
+    @Override
+    public void skipObject() {
+        delegate.skipObject();
+        onEnd();
+    }
+
+    @Override
+    public String getString() {
+        return delegate.getString();
+    }
+
+    @Override
+    public boolean isIntegralNumber() {
+        return delegate.isIntegralNumber();
+    }
+
+    @Override
+    public int getInt() {
+        return delegate.getInt();
+    }
+
+    @Override
+    public long getLong() {
+        return delegate.getLong();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        return delegate.getBigDecimal();
+    }
+
+    @Override
+    public JsonLocation getLocation() {
+        return delegate.getLocation();
+    }
+
+    @Override
+    public void close() {
+        // no-op, the request parser is owned by the handler
+    }
+
+    private void onEnd() {
+        depth--;
+        done = depth == 0;
+    }
+}
@@ -1,58 +1,113 @@
 package com.github.rmannibucau.jsonrpc.impl;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparingInt;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.enterprise.inject.Vetoed;
 import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.json.JsonStructure;
 import javax.json.JsonValue;
 import javax.json.bind.Jsonb;
 import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
 
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcBatchable;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.codec.JsonbCodec;
+import com.github.rmannibucau.jsonrpc.job.JobManager;
+import com.github.rmannibucau.jsonrpc.job.JobStatus;
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
 import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
 import com.github.rmannibucau.jsonrpc.protocol.Specification;
+import com.github.rmannibucau.jsonrpc.protocol.StreamingResult;
+import com.github.rmannibucau.jsonrpc.tracing.FlightRecorder;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
 
 @Vetoed
 public class HandlerRegistry {
     private static final Object[] EMPTY_ARGS = new Object[0];
 
     private final Map<String, JsonRpcMethodRegistration> handlers = new ConcurrentHashMap<>();
+    private final AtomicInteger streamedMethods = new AtomicInteger();
 
-    private Jsonb jsonb;
+    private JsonRpcCodec codec;
     private JsonProvider jsonProvider;
+    private boolean specializedResultMappers;
+    private boolean parameterValidation;
+    private JobManager jobManager;
+    private volatile boolean ready = true;
+    private long inlineThresholdMicros = 100;
+    private volatile ScheduledExecutorService microBatchingTimer;
 
     public Map<String, JsonRpcMethodRegistration> getHandlers() {
         return handlers;
     }
 
+    /**
+     * @return false while the warmup runs, health checks can use it to delay the traffic.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(final boolean ready) {
+        this.ready = ready;
+    }
+
     public Specification createSpecification() {
         final Specification specification = new Specification();
         specification.setMethods(handlers.entrySet().stream()
@@ -63,6 +118,7 @@ public class HandlerRegistry {
                 ms.setMethod(mtd.getKey());
                 ms.setDocumentation(registration.getDocumentation());
                 ms.setParameters(registration.getParameters().stream()
+                    .filter(p -> p.getType() != CallContext.class)
                     .map(p -> {
                         final Specification.ParameterSpecification param = new Specification.ParameterSpecification();
                         param.setDescription(p.getDocumentation());
@@ -87,85 +143,586 @@ public class HandlerRegistry {
         return specification;
     }
 
+    /**
+     * @param title the API title.
+     * @param version the API version.
+     * @return the <a href="https://spec.open-rpc.org">OpenRPC</a> document of the registered methods,
+     * parameters and results are described with the JSON schema of their java type.
+     */
+    public JsonObject createOpenRpcSpecification(final String title, final String version) {
+        final JsonArrayBuilder methods = jsonProvider.createArrayBuilder();
+        new TreeMap<>(handlers).forEach((name, method) -> {
+            final Registration registration = method.getRegistration();
+            final JsonObjectBuilder builder = jsonProvider.createObjectBuilder().add("name", name);
+            ofNullable(registration.getDocumentation())
+                    .filter(it -> !it.isEmpty())
+                    .ifPresent(it -> builder.add("description", it));
+            final JsonArrayBuilder params = jsonProvider.createArrayBuilder();
+            ofNullable(registration.getParameters()).map(Collection::stream).orElseGet(Stream::empty)
+                    .filter(p -> p.getType() != CallContext.class)
+                    .sorted(comparingInt(Registration.Parameter::getPosition))
+                    .map(p -> {
+                        final JsonObjectBuilder param = jsonProvider.createObjectBuilder().add("name", p.getName());
+                        ofNullable(p.getDocumentation())
+                                .filter(it -> !it.isEmpty())
+                                .ifPresent(it -> param.add("description", it));
+                        return param
+                                .add("required", p.isRequired() && !isOptional(p.getType()))
+                                .add("schema", JsonSchemas.toSchema(jsonProvider, p.getType()));
+                    })
+                    .forEach(params::add);
+            builder.add("paramStructure", "either").add("params", params);
+            builder.add("result", jsonProvider.createObjectBuilder()
+                    .add("name", "result")
+                    .add("schema", registration.isJob() ? jsonProvider.createObjectBuilder()
+                            .add("type", "object")
+                            .add("properties", jsonProvider.createObjectBuilder()
+                                    .add("jobId", jsonProvider.createObjectBuilder().add("type", "string")))
+                            .build() :
+                            JsonSchemas.toSchema(jsonProvider, isCompletionStage(registration.getReturnedType()) ?
+                                    ParameterizedType.class.cast(registration.getReturnedType()).getActualTypeArguments()[0] :
+                                    registration.getReturnedType())));
+            final Collection<Registration.ExceptionMapping> exceptions = registration.getExceptionMappings();
+            if (exceptions != null && !exceptions.isEmpty()) {
+                final JsonArrayBuilder errors = jsonProvider.createArrayBuilder();
+                exceptions.forEach(e -> errors.add(jsonProvider.createObjectBuilder()
+                        .add("code", e.getCode())
+                        .add("message", ofNullable(e.getDocumentation()).orElse(""))));
+                builder.add("errors", errors);
+            }
+            methods.add(builder);
+        });
+        return jsonProvider.createObjectBuilder()
+                .add("openrpc", "1.2.6")
+                .add("info", jsonProvider.createObjectBuilder().add("title", title).add("version", version))
+                .add("methods", methods)
+                .build();
+    }
+
     public Unregisterable registerSpecificationMethod(final String methodId) {
+        return registerSpecificationMethod(methodId, false);
+    }
+
+    /**
+     * @param methodId the method returning the specification.
+     * @param openRpc if true the method returns the OpenRPC document instead of the {@link Specification}.
+     * @return a handle to unregister the method.
+     */
+    public Unregisterable registerSpecificationMethod(final String methodId, final boolean openRpc) {
+        requireNonNull(methodId, "Method can't be null");
+        if (openRpc) {
+            return registerMethod(new Registration(
+                    methodId, JsonObject.class, ignored -> createOpenRpcSpecification("JSON-RPC", "1.0.0"),
+                    emptyList(), emptyList(), "Returns the OpenRPC document of the available methods."));
+        }
         return registerMethod(new Registration(
-                requireNonNull(methodId, "Method can't be null"),
-                Specification.class, ignored -> createSpecification(), emptyList(), emptyList(),
+                methodId, Specification.class, ignored -> createSpecification(), emptyList(), emptyList(),
                 "Returns the available methods specification."));
     }
 
+    /**
+     * Registers the {@link JobManager#STATUS_METHOD} and {@link JobManager#RESULT_METHOD} methods, requires a job manager.
+     *
+     * @return a handle to unregister the methods.
+     */
+    public Unregisterable registerJobMethods() {
+        requireNonNull(jobManager, "No job manager");
+        final Collection<Registration.Parameter> id = singletonList(
+                new Registration.Parameter(String.class, "id", 0, true, "The job identifier."));
+        final Unregisterable status = registerMethod(new Registration(
+                JobManager.STATUS_METHOD, JobStatus.class, args -> jobManager.getStatus(String.class.cast(args[0])),
+                id, emptyList(), "Returns the state of a job."));
+        final Unregisterable result = registerMethod(new Registration(
+                JobManager.RESULT_METHOD, JsonValue.class, args -> jobManager.getResult(String.class.cast(args[0])),
+                id, emptyList(), "Returns the result of a completed job or its error."));
+        return () -> {
+            status.close();
+            result.close();
+        };
+    }
+
+    /**
+     * Runs registration tasks (bean lookups, reflection) on a dedicated pool whose threads use the caller
+     * context classloader since container lookups (CDI, JSON-B providers) rely on it.
+     *
+     * @param tasks the registrations to run, they must be independent.
+     */
+    public void registerInParallel(final Collection<Runnable> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()), task -> {
+                    final Thread thread = new Thread(task, HandlerRegistry.class.getName() + "-registration-" + counter.incrementAndGet());
+                    thread.setContextClassLoader(loader);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            final List<Future<?>> futures = tasks.stream().map(executor::submit).collect(toList());
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (final ExecutionException e) {
+            if (RuntimeException.class.isInstance(e.getCause())) {
+                throw RuntimeException.class.cast(e.getCause());
+            }
+            if (Error.class.isInstance(e.getCause())) {
+                throw Error.class.cast(e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public Unregisterable registerMethod(final Registration registration) {
+        return registerMethod(registration, false);
+    }
+
+    /**
+     * @param registration the method to register.
+     * @param lazy if true the parameter binders and invoker are only built at first call.
+     * @return a handle to unregister the method.
+     */
+    public Unregisterable registerMethod(final Registration registration, final boolean lazy) {
+        final boolean streamed = ofNullable(registration.getParameters())
+                .map(p -> p.stream().anyMatch(Registration.Parameter::isStreamed))
+                .orElse(false);
+        if (registration.isJob()) {
+            if (jobManager == null) {
+                throw new IllegalStateException("No job manager to register job method '" + registration.getJsonRpcMethod() + "'");
+            }
+            if (streamed) {
+                throw new IllegalArgumentException("Job method '" + registration.getJsonRpcMethod() + "' can't have streamed parameters");
+            }
+            if (isStreamingResult(registration.getReturnedType())) { // the result is journaled once, when the job completes
+                throw new IllegalArgumentException("Job method '" + registration.getJsonRpcMethod() + "' can't return a Stream or an Iterator");
+            }
+        }
+        if (streamed) {
+            validateStreamedParameter(registration);
+            if (registration.getShardKey() != null && !registration.getShardKey().isEmpty()) { // read before routing
+                throw new IllegalArgumentException(
+                        "Method '" + registration.getJsonRpcMethod() + "' can't have a shard key and streamed parameters");
+            }
+        }
+        final MicroBatcher microBatcher = !registration.isJob() &&
+                registration.getBulkInvoker() != null && registration.getMicroBatchWindowMicros() > 0 ?
+                new MicroBatcher(registration.getBulkInvoker(), MICROSECONDS.toNanos(registration.getMicroBatchWindowMicros()),
+                        registration.getMicroBatchMaxSize(), this::getMicroBatchingTimer) : null;
+        final boolean sync = registration.isJob() || (microBatcher == null && !isCompletionStage(registration.getReturnedType()));
+        final Supplier<Function<JsonStructure, JsonValue>> syncExecutor = !sync ? new Constant<>(null) : (lazy ?
+                new Lazy<>(() -> registration.isJob() ? createJobExecutor(registration) : createSyncExecutor(registration)) :
+                new Constant<>(registration.isJob() ? createJobExecutor(registration) : createSyncExecutor(registration)));
+        final Supplier<Function<JsonStructure, CompletionStage<JsonValue>>> executor = sync ?
+                new Constant<>(parameters -> completedFuture(syncExecutor.get().apply(parameters))) : (lazy ?
+                new Lazy<>(() -> createExecutor(registration, microBatcher)) :
+                new Constant<>(createExecutor(registration, microBatcher)));
+        final Supplier<Function<JsonParser, CompletionStage<JsonValue>>> streamedExecutor = !streamed ?
+                new Constant<>(null) : (lazy ?
+                    new Lazy<>(() -> createStreamedExecutor(registration)) : new Constant<>(createStreamedExecutor(registration)));
+        final Supplier<Function<List<JsonStructure>, List<CompletionStage<JsonValue>>>> bulkExecutor =
+                registration.getBulkInvoker() == null || registration.isJob() ? new Constant<>(null) : (lazy ?
+                    new Lazy<>(() -> createBulkExecutor(registration)) : new Constant<>(createBulkExecutor(registration)));
+        final String jsonRpcMethod = registration.getJsonRpcMethod();
+        final Registration.Parameter shardKey = registration.getShardKey() == null || registration.getShardKey().isEmpty() ?
+                null : ofNullable(registration.getParameters()).map(Collection::stream).orElseGet(Stream::empty)
+                    .filter(it -> it.getName().equals(registration.getShardKey()) && it.getType() != CallContext.class)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "No parameter '" + registration.getShardKey() + "' in '" + jsonRpcMethod + "'"));
+        if (handlers.putIfAbsent(jsonRpcMethod, new JsonRpcMethodRegistration(
+                registration, executor, syncExecutor, streamedExecutor, bulkExecutor, microBatcher, shardKey,
+                new AdaptiveDispatch(registration.getDispatch(), MICROSECONDS.toNanos(inlineThresholdMicros)))) != null) {
+            throw new IllegalArgumentException("Ambiguous method: '" + jsonRpcMethod + "'");
+        }
+        if (streamed) {
+            streamedMethods.incrementAndGet();
+        }
+        return () -> {
+            if (handlers.remove(jsonRpcMethod) != null && streamed) {
+                streamedMethods.decrementAndGet();
+            }
+        };
+    }
+
+    // the invocation starts when the streamed parameter is read so it must be the last one
+    private void validateStreamedParameter(final Registration registration) {
+        final List<Registration.Parameter> params = registration.getParameters().stream()
+                .filter(it -> it.getType() != CallContext.class)
+                .collect(toList());
+        final List<Registration.Parameter> streamed = params.stream().filter(Registration.Parameter::isStreamed).collect(toList());
+        if (streamed.size() > 1 ||
+                params.stream().anyMatch(it -> !it.isStreamed() && it.getPosition() > streamed.get(0).getPosition())) {
+            throw new IllegalArgumentException(
+                    "Method '" + registration.getJsonRpcMethod() + "' must have a single streamed parameter, the last one");
+        }
+    }
+
+    /**
+     * @return true if a registered method has a streamed parameter, see {@link Registration.Parameter#isStreamed()}.
+     */
+    public boolean hasStreamedMethods() {
+        return streamedMethods.get() > 0;
+    }
+
+    // plain value returned in the caller thread, no CompletionStage involved
+    private Function<JsonStructure, JsonValue> createSyncExecutor(final Registration registration) {
+        final Function<JsonObject, Object[]> objectToArgs = mapObjectParams(registration.getParameters());
+        final Function<JsonArray, Object[]> arrayToArgs = mapArrayParams(registration.getParameters());
+        final Function<Throwable, JsonRpcException> exceptionMapper = createExceptionMapper(registration);
+        final Function<Object, JsonValue> resultMapper = createResultMapper(registration.getReturnedType());
+        final Function<Object[], Object> invoker = skippable(registration);
+        final String method = registration.getJsonRpcMethod();
+        return parameters -> {
+            final Object event = FlightRecorder.begin(FlightRecorder.METHOD_INVOKED);
+            try {
+                final JsonValue result = mapResult(CallContext.current(), resultMapper,
+                        doInvoke(invoker, objectToArgs, arrayToArgs, exceptionMapper, parameters));
+                FlightRecorder.commit(event, method, 0, 1, 0, 0);
+                return result;
+            } catch (final RuntimeException re) {
+                FlightRecorder.commit(event, method, FlightRecorder.errorCode(re), 1, 0, 0);
+                throw re;
+            }
+        };
+    }
+
+    private Function<JsonStructure, CompletionStage<JsonValue>> createExecutor(final Registration registration,
+                                                                               final MicroBatcher microBatcher) {
+        final Function<JsonObject, Object[]> objectToArgs = mapObjectParams(registration.getParameters());
+        final Function<JsonArray, Object[]> arrayToArgs = mapArrayParams(registration.getParameters());
+        final Function<Throwable, JsonRpcException> exceptionMapper = createExceptionMapper(registration);
+        if (microBatcher != null) {
+            return recorded(registration.getJsonRpcMethod(),
+                    createMicroBatchedExecutor(registration, objectToArgs, arrayToArgs, exceptionMapper, microBatcher));
+        }
+        return recorded(registration.getJsonRpcMethod(), toStage(registration, exceptionMapper, parameters ->
+                doInvoke(skippable(registration), objectToArgs, arrayToArgs, exceptionMapper, parameters)));
+    }
+
+    // binds in the caller thread so invalid params fail the call, the invocation and the result mapping run in background
+    private Function<JsonStructure, JsonValue> createJobExecutor(final Registration registration) {
+        final Function<JsonObject, Object[]> objectToArgs = mapObjectParams(registration.getParameters());
+        final Function<JsonArray, Object[]> arrayToArgs = mapArrayParams(registration.getParameters());
+        final Function<Throwable, JsonRpcException> exceptionMapper = createExceptionMapper(registration);
+        final boolean completionStage = isCompletionStage(registration.getReturnedType());
+        final Function<Object, JsonValue> resultMapper = createResultMapper(completionStage ?
+                ParameterizedType.class.cast(registration.getReturnedType()).getActualTypeArguments()[0] :
+                registration.getReturnedType());
+        final Function<Object[], Object> invoker = registration.getInvoker();
+        final String method = registration.getJsonRpcMethod();
+        return parameters -> {
+            final Object[] args;
+            try {
+                args = bind(objectToArgs, arrayToArgs, parameters);
+            } catch (final RuntimeException re) {
+                throw exceptionMapper.apply(re);
+            }
+            final CallContext caller = CallContext.current();
+            if (isInvocationSkipped(caller)) {
+                return JsonValue.NULL;
+            }
+            final RequestContext request = new RequestContext(); // the job outlives the request and its deadline
+            if (caller != null) {
+                request.setTraceParent(caller.getTraceParent());
+            }
+            final String id = jobManager.submit(method, jobId -> {
+                final CallContext previous = new CallContext(request, method, jobId).bind();
+                try {
+                    final Object result = invoker.apply(args);
+                    final CompletionStage<?> stage = completionStage ?
+                            (CompletionStage<?>) result : completedFuture(result);
+                    return stage.handle((value, error) -> {
+                        if (error != null) {
+                            throw exceptionMapper.apply(
+                                    CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
+                        }
+                        return resultMapper.apply(value);
+                    });
+                } catch (final RuntimeException re) {
+                    throw exceptionMapper.apply(re);
+                } finally {
+                    CallContext.restore(previous);
+                }
+            });
+            return jsonProvider.createObjectBuilder().add("jobId", id).build();
+        };
+    }
+
+    // emits the flight recorder event of the call, nothing is added when the event is disabled
+    private static <P> Function<P, CompletionStage<JsonValue>> recorded(final String method,
+                                                                        final Function<P, CompletionStage<JsonValue>> executor) {
+        return parameters -> {
+            final Object event = FlightRecorder.begin(FlightRecorder.METHOD_INVOKED);
+            if (event == null) {
+                return executor.apply(parameters);
+            }
+            final CompletionStage<JsonValue> result;
+            try {
+                result = executor.apply(parameters);
+            } catch (final RuntimeException re) {
+                FlightRecorder.commit(event, method, FlightRecorder.errorCode(re), 1, 0, 0);
+                throw re;
+            }
+            return result.whenComplete((value, error) -> FlightRecorder.commit(
+                    event, method, error == null ? 0 : FlightRecorder.errorCode(error), 1, 0, 0));
+        };
+    }
+
+    // binds the call in the caller thread then waits for the bulk invocation of the pending calls
+    private Function<JsonStructure, CompletionStage<JsonValue>> createMicroBatchedExecutor(
+            final Registration registration, final Function<JsonObject, Object[]> objectToArgs,
+            final Function<JsonArray, Object[]> arrayToArgs, final Function<Throwable, JsonRpcException> exceptionMapper,
+            final MicroBatcher microBatcher) {
+        final Function<Object, JsonValue> resultMapper = createResultMapper(isCompletionStage(registration.getReturnedType()) ?
+                ParameterizedType.class.cast(registration.getReturnedType()).getActualTypeArguments()[0] :
+                registration.getReturnedType());
+        return parameters -> {
+            final CallContext context = CallContext.current();
+            final long bindStart = System.nanoTime();
+            final Object[] args;
+            try {
+                args = bind(objectToArgs, arrayToArgs, parameters);
+            } catch (final RuntimeException re) {
+                throw exceptionMapper.apply(re);
+            }
+            if (context != null) {
+                context.record(Phase.BIND, bindStart);
+            }
+            final long invokeStart = System.nanoTime();
+            final CompletionStage<Object> submitted = isInvocationSkipped(context) ?
+                    completedFuture(null) : microBatcher.submit(args);
+            return submitted.handle((result, error) -> {
+                if (context != null) { // includes the window
+                    context.record(Phase.INVOKE, invokeStart);
+                }
+                if (error != null) {
+                    throw exceptionMapper.apply(
+                            CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
+                }
+                return mapResult(context, resultMapper, result);
+            });
+        };
+    }
+
+    private ScheduledExecutorService getMicroBatchingTimer() {
+        ScheduledExecutorService timer = microBatchingTimer;
+        if (timer == null) {
+            synchronized (this) {
+                timer = microBatchingTimer;
+                if (timer == null) {
+                    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+                        final Thread thread = new Thread(task, HandlerRegistry.class.getName() + "-micro-batching");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    timer = executor;
+                    microBatchingTimer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    // binds each call then invokes the bulk form once, a binding failure only fails its own call
+    private Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> createBulkExecutor(final Registration registration) {
         final Function<JsonObject, Object[]> objectToArgs = mapObjectParams(registration.getParameters());
         final Function<JsonArray, Object[]> arrayToArgs = mapArrayParams(registration.getParameters());
+        final Function<Throwable, JsonRpcException> exceptionMapper = createExceptionMapper(registration);
+        final Function<List<Object[]>, Object> bulkInvoker = registration.getBulkInvoker();
+        final Function<Object, JsonValue> resultMapper = createResultMapper(isCompletionStage(registration.getReturnedType()) ?
+                ParameterizedType.class.cast(registration.getReturnedType()).getActualTypeArguments()[0] :
+                registration.getReturnedType());
+        final String method = registration.getJsonRpcMethod();
+        return parameters -> {
+            final Object event = FlightRecorder.begin(FlightRecorder.METHOD_INVOKED);
+            final CallContext context = CallContext.current();
+            final List<CompletableFuture<JsonValue>> results = new ArrayList<>(parameters.size());
+            final List<CompletableFuture<JsonValue>> invoked = new ArrayList<>(parameters.size());
+            final List<Object[]> args = new ArrayList<>(parameters.size());
+            final long bindStart = System.nanoTime();
+            for (final JsonStructure params : parameters) {
+                final CompletableFuture<JsonValue> result = new CompletableFuture<>();
+                results.add(result);
+                try {
+                    args.add(bind(objectToArgs, arrayToArgs, params));
+                    invoked.add(result);
+                } catch (final RuntimeException re) {
+                    result.completeExceptionally(exceptionMapper.apply(re));
+                }
+            }
+            final long invokeStart = System.nanoTime();
+            if (context != null) {
+                context.addDuration(Phase.BIND, invokeStart - bindStart);
+            }
+            if (args.isEmpty()) {
+                return new ArrayList<>(results);
+            }
+            final Object output;
+            try {
+                output = isInvocationSkipped(context) ? nCopies(args.size(), null) : bulkInvoker.apply(args);
+            } catch (final RuntimeException re) {
+                final JsonRpcException error = exceptionMapper.apply(re);
+                invoked.forEach(it -> it.completeExceptionally(error));
+                return new ArrayList<>(results);
+            } finally {
+                if (context != null) {
+                    context.record(Phase.INVOKE, invokeStart);
+                }
+            }
+            final CompletionStage<?> stage = CompletionStage.class.isInstance(output) ?
+                    CompletionStage.class.cast(output) : CompletableFuture.completedFuture(output);
+            stage.whenComplete((values, error) -> {
+                if (error != null) {
+                    final JsonRpcException mapped = exceptionMapper.apply(
+                            CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
+                    invoked.forEach(it -> it.completeExceptionally(mapped));
+                    return;
+                }
+                final List<?> list = List.class.isInstance(values) ? List.class.cast(values) : null;
+                if (list == null || list.size() != invoked.size()) {
+                    final JsonRpcException mismatch = new JsonRpcException(-32603,
+                            "Bulk invocation returned " + (list == null ? "no list" : list.size() + " results") +
+                                    " for " + invoked.size() + " calls");
+                    invoked.forEach(it -> it.completeExceptionally(mismatch));
+                    return;
+                }
+                for (int i = 0; i < list.size(); i++) {
+                    try {
+                        invoked.get(i).complete(mapResult(context, resultMapper, list.get(i)));
+                    } catch (final RuntimeException re) {
+                        invoked.get(i).completeExceptionally(exceptionMapper.apply(re));
+                    }
+                }
+            });
+            if (event != null) {
+                CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) ->
+                        FlightRecorder.commit(event, method, error == null ? 0 : FlightRecorder.errorCode(error),
+                                results.size(), 0, 0));
+            }
+            return new ArrayList<>(results);
+        };
+    }
+
+    // binds the parameters while the request is read, the invocation happens when the streamed parameter is reached
+    private Function<JsonParser, CompletionStage<JsonValue>> createStreamedExecutor(final Registration registration) {
+        final Function<Throwable, JsonRpcException> exceptionMapper = createExceptionMapper(registration);
+        final Registration.Parameter[] params = registration.getParameters().toArray(new Registration.Parameter[0]);
+        final JsonSchemas.Validator[] validators = Stream.of(params)
+                .map(param -> param.isStreamed() ? null : createValidator(param))
+                .toArray(JsonSchemas.Validator[]::new);
+        final Map<String, Integer> byName = new HashMap<>();
+        final int[] byPosition = new int[Stream.of(params).mapToInt(Registration.Parameter::getPosition).max().orElse(-1) + 1];
+        Arrays.fill(byPosition, -1);
+        for (int i = 0; i < params.length; i++) {
+            byName.put(params[i].getName(), i);
+            if (params[i].getPosition() >= 0) {
+                byPosition[params[i].getPosition()] = i;
+            }
+        }
+        return recorded(registration.getJsonRpcMethod(), toStage(registration, exceptionMapper, parser ->
+                doInvokeStreamed(skippable(registration), params, validators, byName, byPosition, exceptionMapper, parser)));
+    }
+
+    // the params are still bound when the invocation is skipped, see RequestContext#isSkipInvocation()
+    private Function<Object[], Object> skippable(final Registration registration) {
+        final Function<Object[], Object> invoker = registration.getInvoker();
+        final Object skipped = isCompletionStage(registration.getReturnedType()) ? completedFuture(null) : null;
+        return args -> isInvocationSkipped(CallContext.current()) ? skipped : invoker.apply(args);
+    }
+
+    private static boolean isInvocationSkipped(final CallContext context) {
+        return context != null && context.getRequest().isSkipInvocation();
+    }
+
+    private Function<Throwable, JsonRpcException> createExceptionMapper(final Registration registration) {
         final Map<Class<? extends Throwable>, Integer> handledEx =
                 ofNullable(registration.getExceptionMappings()).map(Collection::stream).orElseGet(Stream::empty)
                 .flatMap(ex -> ofNullable(ex.getTypes())
                         .map(Collection::stream).orElseGet(Stream::empty)
                         .map(e -> new AbstractMap.SimpleEntry<>(e, ex.getCode())))
                 .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-        final Function<Throwable, JsonRpcException> exceptionMapper = exception -> handleException(handledEx, exception);
+        return exception -> handleException(handledEx, exception);
+    }
+
+    private <P> Function<P, CompletionStage<JsonValue>> toStage(final Registration registration,
+                                                                final Function<Throwable, JsonRpcException> exceptionMapper,
+                                                                final Function<P, Object> invoke) {
         final boolean completionStage = isCompletionStage(registration.getReturnedType());
-        final Function<JsonStructure, Object> invoke = parameters ->
-                doInvoke(registration.getInvoker(), objectToArgs, arrayToArgs, exceptionMapper, parameters);
         final Function<Object, JsonValue> resultMapper = createResultMapper(completionStage ?
                 ParameterizedType.class.cast(registration.getReturnedType()).getActualTypeArguments()[0] :
                 registration.getReturnedType());
-        final Function<JsonStructure, CompletionStage<JsonValue>> handler = !completionStage ?
+        return !completionStage ?
                 invoke
-                        .andThen(resultMapper)
+                        .andThen(result -> mapResult(CallContext.current(), resultMapper, result))
                         .andThen(CompletableFuture::completedFuture) :
-                invoke.andThen(stage -> ((CompletionStage<?>) stage)
-                        .handle((result, error) -> {
-                            if (error == null) {
-                                return resultMapper.apply(result);
-                            }
-                            throw exceptionMapper.apply(
-                                    CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
-                        }));
-        final String jsonRpcMethod = registration.getJsonRpcMethod();
-        if (handlers.putIfAbsent(jsonRpcMethod, new JsonRpcMethodRegistration(registration, handler)) != null) {
-            throw new IllegalArgumentException("Ambiguous method: '" + jsonRpcMethod + "'");
-        }
-        return () -> handlers.remove(jsonRpcMethod);
+                parameters -> {
+                    final CallContext context = CallContext.current(); // completion can happen in another thread
+                    return ((CompletionStage<?>) invoke.apply(parameters))
+                            .handle((result, error) -> {
+                                if (error == null) {
+                                    return mapResult(context, resultMapper, result);
+                                }
+                                throw exceptionMapper.apply(
+                                        CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
+                            });
+                };
     }
 
     public Unregisterable registerMethodReflect(final Object bean, final Method method,
                                                 final JsonRpcMethod config, final JsonRpcParam[] params,
                                                 final com.github.rmannibucau.jsonrpc.annotations.JsonRpcException[] exceptions) {
+        return registerMethodReflect(new Constant<>(bean), method, config, params, exceptions, false);
+    }
+
+    /**
+     * Same as {@link #registerMethodReflect(Object, Method, JsonRpcMethod, JsonRpcParam[], com.github.rmannibucau.jsonrpc.annotations.JsonRpcException[])}
+     * but the bean is only looked up once, at first call, and if {@code lazy} is true the binders are built at first call too.
+     */
+    public Unregisterable registerMethodReflect(final Supplier<?> beanSupplier, final Method method,
+                                                final JsonRpcMethod config, final JsonRpcParam[] params,
+                                                final com.github.rmannibucau.jsonrpc.annotations.JsonRpcException[] exceptions,
+                                                final boolean lazy) {
+        final Supplier<?> bean = Constant.class.isInstance(beanSupplier) ? beanSupplier : new Lazy<>(beanSupplier);
         if (!method.isAccessible()) {
             method.setAccessible(true);
         }
         final Parameter[] types = method.getParameters();
         final AtomicInteger paramIdx = new AtomicInteger(0);
+        final AtomicInteger jsonIdx = new AtomicInteger(0); // CallContext parameters are not in the payload
+        final String jsonRpcMethod = of(config.value())
+                .filter(it -> !it.isEmpty())
+                .orElse(method.getDeclaringClass().getName() + "." + method.getName());
+        final Optional<Method> bulkMethod = Stream.of(method.getDeclaringClass().getMethods())
+                .filter(it -> ofNullable(it.getAnnotation(JsonRpcBatchable.class))
+                        .map(batchable -> batchable.value().equals(jsonRpcMethod))
+                        .orElse(false))
+                .findFirst();
+        final Optional<JsonRpcBatchable> batchable = bulkMethod.map(it -> it.getAnnotation(JsonRpcBatchable.class));
+        final Function<List<Object[]>, Object> bulkInvoker = bulkMethod
+                .map(bulk -> createBulkInvoker(bean, bulk, types.length == 1))
+                .orElse(null);
         return registerMethod(new Registration(
-            of(config.value())
-                    .filter(it -> !it.isEmpty())
-                    .orElse(method.getDeclaringClass().getName() + "." + method.getName()),
+            jsonRpcMethod,
             method.getGenericReturnType(),
-            args -> {
-                try {
-                    return method.invoke(bean, args);
-                } catch (final IllegalAccessException e) {
-                    throw new JsonRpcException(-32601, "Method can't be called", e);
-                } catch (final InvocationTargetException ite) {
-                    final Throwable targetException = ite.getTargetException();
-                    if (JsonRpcException.class.isInstance(targetException)) {
-                        throw JsonRpcException.class.cast(targetException);
-                    }
-                    if (RuntimeException.class.isInstance(targetException)) {
-                        throw RuntimeException.class.cast(targetException);
-                    }
-                    throw new IllegalStateException(targetException);
-                }
-            },
+            args -> invoke(method, bean.get(), args),
             Stream.of(params)
                 .map(p -> {
                     final int idx = paramIdx.getAndIncrement();
                     final Optional<JsonRpcParam> param = ofNullable(params[idx]);
+                    final int position = types[idx].getType() == CallContext.class ? -1 : jsonIdx.getAndIncrement();
                     return new Registration.Parameter(
                             types[idx].getParameterizedType(),
                             param.map(JsonRpcParam::value).filter(it -> !it.isEmpty()).orElseGet(types[idx]::getName),
-                            param.map(JsonRpcParam::position).filter(it -> it >= 0).orElse(idx),
+                            param.map(JsonRpcParam::position).filter(it -> it >= 0).orElse(position),
                             param.map(JsonRpcParam::required).orElse(false),
                             param.map(JsonRpcParam::documentation).orElse(""));
                 })
@@ -175,7 +732,57 @@ public class HandlerRegistry {
                         Stream.of(e.handled()).collect(toList()),
                         e.code(),
                         e.documentation()))
-                .collect(toList()), config.documentation()));
+                .collect(toList()), config.documentation())
+                .setPriority(config.priority())
+                .setDispatch(config.dispatch())
+                .setShardKey(config.shardKey())
+                .setJob(config.job())
+                .setBulkInvoker(bulkInvoker)
+                .setMicroBatching(batchable.map(JsonRpcBatchable::windowMicros).orElse(0L),
+                        batchable.map(JsonRpcBatchable::maxSize).orElse(256)), lazy);
+    }
+
+    private Function<List<Object[]>, Object> createBulkInvoker(final Supplier<?> bean, final Method bulk,
+                                                               final boolean singleParameter) {
+        if (bulk.getParameterCount() != 1 || !List.class.isAssignableFrom(bulk.getParameterTypes()[0])) {
+            throw new IllegalArgumentException("@JsonRpcBatchable method must take a List: " + bulk);
+        }
+        if (!bulk.isAccessible()) {
+            bulk.setAccessible(true);
+        }
+        return singleParameter ?
+                args -> invoke(bulk, bean.get(), args.stream().map(it -> it[0]).collect(toList())) :
+                args -> invoke(bulk, bean.get(), args);
+    }
+
+    private static Object invoke(final Method method, final Object instance, final Object... args) {
+        try {
+            return method.invoke(instance, args);
+        } catch (final IllegalAccessException e) {
+            throw new JsonRpcException(-32601, "Method can't be called", e);
+        } catch (final InvocationTargetException ite) {
+            final Throwable targetException = ite.getTargetException();
+            if (JsonRpcException.class.isInstance(targetException)) {
+                throw JsonRpcException.class.cast(targetException);
+            }
+            if (RuntimeException.class.isInstance(targetException)) {
+                throw RuntimeException.class.cast(targetException);
+            }
+            throw new IllegalStateException(targetException);
+        }
+    }
+
+    private JsonValue mapResult(final CallContext context, final Function<Object, JsonValue> resultMapper,
+                                final Object result) {
+        if (context == null) {
+            return resultMapper.apply(result);
+        }
+        final long start = System.nanoTime();
+        try {
+            return resultMapper.apply(result);
+        } finally {
+            context.record(Phase.MAP, start);
+        }
     }
 
     private JsonRpcException handleException(final Map<Class<? extends Throwable>, Integer> handledEx, final Throwable exception) {
@@ -195,6 +802,18 @@ public class HandlerRegistry {
                     ParameterizedType.class.cast(genericReturnType).getActualTypeArguments()[0]);
             return v -> v == null || !Optional.class.cast(v).isPresent() ? null : nestedMapper.apply(Optional.class.cast(v).get());
         }
+        final Type rawType = ParameterizedType.class.isInstance(genericReturnType) ?
+                ParameterizedType.class.cast(genericReturnType).getRawType() : genericReturnType;
+        if (Class.class.isInstance(rawType)) { // streamed, elements are serialized when the response is written
+            final Class<?> clazz = Class.class.cast(rawType);
+            if (Stream.class.isAssignableFrom(clazz)) {
+                return v -> v == null ? null : new StreamingResult(Stream.class.cast(v).iterator(), Stream.class.cast(v));
+            }
+            if (Iterator.class.isAssignableFrom(clazz)) {
+                return v -> v == null ? null : new StreamingResult(Iterator.class.cast(v),
+                        AutoCloseable.class.isInstance(v) ? AutoCloseable.class.cast(v) : null);
+            }
+        }
         if (Class.class.isInstance(genericReturnType)) {
             final Class<?> clazz = Class.class.cast(genericReturnType);
             if (CharSequence.class.isAssignableFrom(clazz)) {
@@ -206,9 +825,18 @@ public class HandlerRegistry {
             if (Double.class.isAssignableFrom(clazz)) {
                 return v -> v == null ? null : jsonProvider.createValue(Double.class.cast(v));
             }
+            if (JsonValue.class.isAssignableFrom(clazz)) {
+                return v -> v == null ? null : JsonValue.class.cast(v);
+            }
         }
 
-        return v -> v == null ? null : jsonb.fromJson(jsonb.toJson(v), JsonValue.class);
+        final Function<Object, JsonValue> jsonbMapper = v -> v == null ? null : codec.toJsonValue(v);
+        if (!specializedResultMappers || !JsonbCodec.class.isInstance(codec)) { // they mimic JSON-B, not a custom codec
+            return jsonbMapper;
+        }
+        return SpecializedResultMapper.create(genericReturnType, jsonProvider, jsonbMapper)
+                .<Function<Object, JsonValue>>map(mapper -> v -> v == null ? null : mapper.apply(v))
+                .orElse(jsonbMapper);
     }
 
     private Object doInvoke(final Function<Object[], Object> invoker,
@@ -216,7 +844,31 @@ public class HandlerRegistry {
                             final Function<JsonArray, Object[]> arrayToArgs,
                             final Function<Throwable, JsonRpcException> exceptionMapper,
                             final JsonStructure parameters) {
-        final Object[] args = ofNullable(parameters)
+        final CallContext context = CallContext.current();
+        final long bindStart = context == null ? 0 : System.nanoTime();
+        final Object[] args = bind(objectToArgs, arrayToArgs, parameters);
+        if (context == null) {
+            try {
+                return invoker.apply(args);
+            } catch (final RuntimeException e) {
+                throw exceptionMapper.apply(e);
+            }
+        }
+        final long invokeStart = System.nanoTime();
+        context.addDuration(Phase.BIND, invokeStart - bindStart);
+        try {
+            return invoker.apply(args);
+        } catch (final RuntimeException e) {
+            throw exceptionMapper.apply(e);
+        } finally {
+            context.record(Phase.INVOKE, invokeStart);
+        }
+    }
+
+    private Object[] bind(final Function<JsonObject, Object[]> objectToArgs,
+                          final Function<JsonArray, Object[]> arrayToArgs,
+                          final JsonStructure parameters) {
+        return ofNullable(parameters)
                 .map(p -> {
                     switch (p.getValueType()) {
                         case OBJECT:
@@ -228,10 +880,187 @@ public class HandlerRegistry {
                     }
                 })
                 .orElseGet(() -> arrayToArgs.apply(JsonValue.EMPTY_JSON_ARRAY));
+    }
+
+    private Object doInvokeStreamed(final Function<Object[], Object> invoker,
+                                    final Registration.Parameter[] params,
+                                    final JsonSchemas.Validator[] validators,
+                                    final Map<String, Integer> byName,
+                                    final int[] byPosition,
+                                    final Function<Throwable, JsonRpcException> exceptionMapper,
+                                    final JsonParser parser) {
+        final CallContext context = CallContext.current();
+        final long bindStart = context == null ? 0 : System.nanoTime();
+        final Object[] args = new Object[params.length];
+        final boolean[] bound = new boolean[params.length];
+        int unbound = (int) Stream.of(params).filter(it -> !it.isStreamed() && it.getType() != CallContext.class).count();
+        BoundedJsonParser streamed = null;
+
+        final JsonParser.Event container = parser.next();
+        final boolean array;
+        switch (container) {
+            case START_ARRAY:
+                array = true;
+                break;
+            case START_OBJECT:
+                array = false;
+                break;
+            default:
+                throw new JsonRpcException(-32601, "Unsupported params type: " + container);
+        }
+        boolean ended = false;
+        int position = 0;
+        while (streamed == null) {
+            JsonParser.Event event = parser.next();
+            if (event == JsonParser.Event.END_ARRAY || event == JsonParser.Event.END_OBJECT) {
+                ended = true;
+                break;
+            }
+            final int idx;
+            if (array) {
+                idx = position < byPosition.length ? byPosition[position] : -1;
+                position++;
+            } else {
+                idx = ofNullable(byName.get(parser.getString())).orElse(-1);
+                event = parser.next();
+            }
+            if (idx < 0) {
+                skipValue(parser, event);
+                continue;
+            }
+            if (params[idx].isStreamed() && unbound > 0) { // named params after the streamed one, buffer it to read them
+                args[idx] = createBufferedStreamedMapper(params[idx].getType()).apply(parser.getValue());
+            } else if (params[idx].isStreamed()) {
+                streamed = new BoundedJsonParser(parser, event);
+                args[idx] = createStreamedView(params[idx].getType(), streamed);
+            } else {
+                if (!bound[idx]) {
+                    unbound--;
+                }
+                final JsonValue value = parser.getValue();
+                if (validators[idx] != null) {
+                    validate(validators[idx], params[idx], value);
+                }
+                args[idx] = mapToType(params[idx].getType(), isOptional(params[idx].getType()), value);
+            }
+            bound[idx] = true;
+        }
         try {
-            return invoker.apply(args);
-        } catch (final RuntimeException e) {
-            throw exceptionMapper.apply(e);
+            for (int i = 0; i < params.length; i++) {
+                if (bound[i]) {
+                    continue;
+                }
+                final Registration.Parameter param = params[i];
+                if (param.getType() == CallContext.class) {
+                    args[i] = context;
+                } else if (isOptional(param.getType())) {
+                    args[i] = empty();
+                } else if (param.isRequired()) {
+                    throw new JsonRpcException(-32601, "Missing '" + param.getName() + "' parameter.");
+                }
+            }
+            if (context == null) {
+                try {
+                    return invoker.apply(args);
+                } catch (final RuntimeException e) {
+                    throw exceptionMapper.apply(e);
+                }
+            }
+            final long invokeStart = System.nanoTime();
+            context.addDuration(Phase.BIND, invokeStart - bindStart);
+            try {
+                return invoker.apply(args);
+            } catch (final RuntimeException e) {
+                throw exceptionMapper.apply(e);
+            } finally {
+                context.record(Phase.INVOKE, invokeStart);
+            }
+        } finally { // position the parser after params whatever the endpoint read
+            if (streamed != null) {
+                streamed.drain();
+            }
+            while (!ended) {
+                JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_ARRAY || event == JsonParser.Event.END_OBJECT) {
+                    ended = true;
+                } else {
+                    if (!array) {
+                        event = parser.next();
+                    }
+                    skipValue(parser, event);
+                }
+            }
+        }
+    }
+
+    private Object createStreamedView(final Type type, final BoundedJsonParser parser) {
+        final Type raw = ParameterizedType.class.isInstance(type) ? ParameterizedType.class.cast(type).getRawType() : type;
+        if (raw == JsonParser.class) {
+            return parser;
+        }
+        if (raw == Reader.class) {
+            return new JsonParserReader(parser);
+        }
+        // Stream<T>
+        final JsonParser.Event first = parser.next();
+        if (first == JsonParser.Event.VALUE_NULL) {
+            return null;
+        }
+        if (first != JsonParser.Event.START_ARRAY) {
+            throw new JsonRpcException(-32601, "Expected an array, got: " + first);
+        }
+        final Type elementType = ParameterizedType.class.isInstance(type) ?
+                ParameterizedType.class.cast(type).getActualTypeArguments()[0] : JsonValue.class;
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Object>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(final Consumer<? super Object> action) {
+                if (!parser.hasNext() || parser.next() == JsonParser.Event.END_ARRAY) {
+                    return false;
+                }
+                action.accept(mapToType(elementType, false, parser.getValue()));
+                return true;
+            }
+        }, false);
+    }
+
+    private Function<JsonValue, Object> createBufferedStreamedMapper(final Type type) {
+        final Type raw = ParameterizedType.class.isInstance(type) ? ParameterizedType.class.cast(type).getRawType() : type;
+        if (raw == JsonParser.class) {
+            return value -> value == null ? null : jsonProvider.createParser(new StringReader(value.toString()));
+        }
+        if (raw == Reader.class) {
+            return value -> value == null ? null : new StringReader(value.toString());
+        }
+        final Type elementType = ParameterizedType.class.isInstance(type) ?
+                ParameterizedType.class.cast(type).getActualTypeArguments()[0] : JsonValue.class;
+        return value -> {
+            if (value == null || value.getValueType() == JsonValue.ValueType.NULL) {
+                return null;
+            }
+            if (value.getValueType() != JsonValue.ValueType.ARRAY) {
+                throw new JsonRpcException(-32601, "Expected an array, got: " + value.getValueType());
+            }
+            return value.asJsonArray().stream().map(it -> mapToType(elementType, false, it));
+        };
+    }
+
+    private void skipValue(final JsonParser parser, final JsonParser.Event event) {
+        if (event != JsonParser.Event.START_ARRAY && event != JsonParser.Event.START_OBJECT) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case START_ARRAY:
+                case START_OBJECT:
+                    depth++;
+                    break;
+                case END_ARRAY:
+                case END_OBJECT:
+                    depth--;
+                    break;
+                default:
+            }
         }
     }
 
@@ -239,8 +1068,12 @@ public class HandlerRegistry {
         if (params == null) {
             return r -> EMPTY_ARGS;
         }
-        return optimize(params.stream()
+        return validated(params, (request, param) -> request.size() > param.getPosition() ?
+                request.get(param.getPosition()) : null, optimize(params.stream()
             .map(param -> {
+                if (param.getType() == CallContext.class) {
+                    return (Function<JsonArray, Object>) request -> CallContext.current();
+                }
                 final boolean optional = isOptional(param.getType());
                 final Function<JsonArray, JsonValue> jsExtractor = request -> request.size() > param.getPosition() ?
                         request.get(param.getPosition()) : null;
@@ -253,18 +1086,25 @@ public class HandlerRegistry {
                             return applied;
                         } :
                         jsExtractor;
+                if (param.isStreamed()) {
+                    final Function<JsonValue, Object> streamedMapper = createBufferedStreamedMapper(param.getType());
+                    return (Function<JsonArray, Object>) request -> streamedMapper.apply(validatedExtractor.apply(request));
+                }
                 return (Function<JsonArray, Object>) request ->
                         mapToType(param.getType(), optional, validatedExtractor.apply(request));
             })
-            .collect(toList()));
+            .collect(toList())));
     }
 
     private Function<JsonObject, Object[]> mapObjectParams(final Collection<Registration.Parameter> params) {
         if (params == null) {
             return r -> EMPTY_ARGS;
         }
-        return optimize(params.stream()
+        return validated(params, (request, param) -> request.get(param.getName()), optimize(params.stream()
             .map(param -> {
+                if (param.getType() == CallContext.class) {
+                    return (Function<JsonObject, Object>) request -> CallContext.current();
+                }
                 final boolean optional = isOptional(param.getType());
 
                 final Function<JsonObject, JsonValue> jsExtractor = request -> request.get(param.getName());
@@ -277,10 +1117,53 @@ public class HandlerRegistry {
                             return applied;
                         } :
                         jsExtractor;
+                if (param.isStreamed()) {
+                    final Function<JsonValue, Object> streamedMapper = createBufferedStreamedMapper(param.getType());
+                    return (Function<JsonObject, Object>) request -> streamedMapper.apply(validatedExtractor.apply(request));
+                }
                 return (Function<JsonObject, Object>) request ->
                         mapToType(param.getType(), optional, validatedExtractor.apply(request));
             })
-            .collect(toList()));
+            .collect(toList())));
+    }
+
+    // checks all the params against the schema of their type before binding any of them
+    private <A extends JsonStructure> Function<A, Object[]> validated(final Collection<Registration.Parameter> params,
+                                                                      final BiFunction<A, Registration.Parameter, JsonValue> extractor,
+                                                                      final Function<A, Object[]> binder) {
+        if (!parameterValidation) {
+            return binder;
+        }
+        final List<Map.Entry<Registration.Parameter, JsonSchemas.Validator>> validators = params.stream()
+                .filter(param -> param.getType() != CallContext.class)
+                .map(param -> new AbstractMap.SimpleEntry<>(param, createValidator(param)))
+                .filter(it -> it.getValue() != null)
+                .collect(toList());
+        if (validators.isEmpty()) {
+            return binder;
+        }
+        return request -> {
+            for (final Map.Entry<Registration.Parameter, JsonSchemas.Validator> validator : validators) {
+                validate(validator.getValue(), validator.getKey(), extractor.apply(request, validator.getKey()));
+            }
+            return binder.apply(request);
+        };
+    }
+
+    private JsonSchemas.Validator createValidator(final Registration.Parameter param) {
+        return !parameterValidation || param.getType() == CallContext.class ?
+                null : JsonSchemas.compile(JsonSchemas.toSchema(jsonProvider, param.getType()));
+    }
+
+    private static void validate(final JsonSchemas.Validator validator, final Registration.Parameter param,
+                                 final JsonValue value) {
+        if (value == null || value.getValueType() == JsonValue.ValueType.NULL) {
+            return;
+        }
+        final String error = validator.validate(value, param.getName());
+        if (error != null) {
+            throw new JsonRpcException(-32602, "Invalid params: " + error);
+        }
     }
 
     private <A extends JsonStructure> Function<A, Object[]> optimize(Collection<Function<A, Object>> mappers) {
@@ -295,7 +1178,15 @@ public class HandlerRegistry {
     }
 
     private Object mapToType(final Type expectedType, final boolean optional, final JsonValue apply) {
-        return apply == null ? (optional ? empty() : null) : jsonb.fromJson(apply.toString(), expectedType);
+        return apply == null ? (optional ? empty() : null) : codec.fromJson(apply, expectedType);
+    }
+
+    private boolean isStreamingResult(final Type returnedType) {
+        final Type type = isCompletionStage(returnedType) ?
+                ParameterizedType.class.cast(returnedType).getActualTypeArguments()[0] : returnedType;
+        final Type rawType = ParameterizedType.class.isInstance(type) ? ParameterizedType.class.cast(type).getRawType() : type;
+        return Class.class.isInstance(rawType) &&
+                (Stream.class.isAssignableFrom(Class.class.cast(rawType)) || Iterator.class.isAssignableFrom(Class.class.cast(rawType)));
     }
 
     private boolean isCompletionStage(final Type expectedType) {
@@ -311,14 +1202,66 @@ public class HandlerRegistry {
                 ParameterizedType.class.cast(expectedType).getRawType() == Optional.class;
     }
 
-    public void setJsonb(final Jsonb jsonb) {
-        this.jsonb = jsonb;
+    public void setJsonb(final Jsonb jsonb) { // to use without cdi, same as using the default codec
+        setCodec(new JsonbCodec(jsonb, jsonProvider == null ? JsonProvider.provider() : jsonProvider));
+    }
+
+    /**
+     * @param codec the codec binding the parameters and serializing the results, it also provides the JSON-P provider.
+     */
+    public void setCodec(final JsonRpcCodec codec) {
+        this.codec = codec;
+        this.jsonProvider = codec.getJsonProvider();
+    }
+
+    public JsonRpcCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @param specializedResultMappers if true, results registered after this call skip the JSON-B round trip
+     *                                 when their type is a plain bean, ignored with a custom codec.
+     */
+    public void setSpecializedResultMappers(final boolean specializedResultMappers) {
+        this.specializedResultMappers = specializedResultMappers;
+    }
+
+    /**
+     * @param parameterValidation if true, the params of the methods registered after this call are checked against
+     *                            the JSON schema of their type before the binding, invalid ones fail with a {@code -32602} error.
+     */
+    public void setParameterValidation(final boolean parameterValidation) {
+        this.parameterValidation = parameterValidation;
+    }
+
+    public JobManager getJobManager() {
+        return jobManager;
+    }
+
+    /**
+     * @param jobManager the manager executing the job methods (see {@link Registration#setJob(boolean)}),
+     *                   must be set before they are registered.
+     */
+    public void setJobManager(final JobManager jobManager) {
+        this.jobManager = jobManager;
+    }
+
+    /**
+     * @param inlineThresholdMicros the average latency under which {@code AUTO} methods run in the transport thread,
+     *                              it applies to the methods registered after this call.
+     */
+    public void setInlineThresholdMicros(final long inlineThresholdMicros) {
+        this.inlineThresholdMicros = inlineThresholdMicros;
     }
 
     public void setJsonProvider(final JsonProvider jsonProvider) {
         this.jsonProvider = jsonProvider;
     }
 
+    public JsonProvider getJsonProvider() {
+        return jsonProvider;
+    }
+
     @FunctionalInterface
     public interface Unregisterable extends AutoCloseable {
         void close();
@@ -326,12 +1269,50 @@ public class HandlerRegistry {
 
     public static class JsonRpcMethodRegistration {
         private final Registration registration;
-        private final Function<JsonStructure, CompletionStage<JsonValue>> executor;
+        private final Supplier<Function<JsonStructure, CompletionStage<JsonValue>>> executor;
+        private final Supplier<Function<JsonStructure, JsonValue>> syncExecutor;
+        private final Supplier<Function<JsonParser, CompletionStage<JsonValue>>> streamedExecutor;
+        private final Supplier<Function<List<JsonStructure>, List<CompletionStage<JsonValue>>>> bulkExecutor;
+        private final MicroBatcher microBatcher;
+        private final Registration.Parameter shardKey;
+        private final AdaptiveDispatch dispatch;
 
         private JsonRpcMethodRegistration(final Registration registration,
-                                          final Function<JsonStructure, CompletionStage<JsonValue>> executor) {
+                                          final Supplier<Function<JsonStructure, CompletionStage<JsonValue>>> executor,
+                                          final Supplier<Function<JsonStructure, JsonValue>> syncExecutor,
+                                          final Supplier<Function<JsonParser, CompletionStage<JsonValue>>> streamedExecutor,
+                                          final Supplier<Function<List<JsonStructure>, List<CompletionStage<JsonValue>>>> bulkExecutor,
+                                          final MicroBatcher microBatcher, final Registration.Parameter shardKey,
+                                          final AdaptiveDispatch dispatch) {
             this.registration = registration;
             this.executor = executor;
+            this.syncExecutor = syncExecutor;
+            this.streamedExecutor = streamedExecutor;
+            this.bulkExecutor = bulkExecutor;
+            this.microBatcher = microBatcher;
+            this.shardKey = shardKey;
+            this.dispatch = dispatch;
+        }
+
+        /**
+         * @return the parameter selecting the node executing a call, {@code null} if calls are always local.
+         */
+        public Registration.Parameter getShardKey() {
+            return shardKey;
+        }
+
+        /**
+         * @return the latency estimate of this method and the resulting dispatch decision.
+         */
+        public AdaptiveDispatch getDispatch() {
+            return dispatch;
+        }
+
+        /**
+         * @return the cross-request batcher of this method (with its flush metrics), {@code null} if not enabled.
+         */
+        public MicroBatcher getMicroBatcher() {
+            return microBatcher;
         }
 
         public Registration getRegistration() {
@@ -339,7 +1320,69 @@ public class HandlerRegistry {
         }
 
         public Function<JsonStructure, CompletionStage<JsonValue>> getExecutor() {
-            return executor;
+            return executor.get();
+        }
+
+        /**
+         * @return the executor returning the result in the caller thread, {@code null} if the method is asynchronous
+         * (it returns a {@code CompletionStage}) or micro-batched.
+         */
+        public Function<JsonStructure, JsonValue> getSyncExecutor() {
+            return syncExecutor.get();
+        }
+
+        /**
+         * @return the executor reading the parameters from a parser positioned before {@code params} value,
+         * {@code null} if the method has no streamed parameter.
+         */
+        public Function<JsonParser, CompletionStage<JsonValue>> getStreamedExecutor() {
+            return streamedExecutor.get();
+        }
+
+        /**
+         * @return the executor of several calls (one {@code params} per call) with a single invocation,
+         * {@code null} if the method has no bulk form.
+         */
+        public Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> getBulkExecutor() {
+            return bulkExecutor.get();
+        }
+    }
+
+    private static class Constant<T> implements Supplier<T> {
+        private final T value;
+
+        private Constant(final T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+    }
+
+    // memoized supplier, the delegate is called only once even under concurrent first calls
+    private static class Lazy<T> implements Supplier<T> {
+        private final Supplier<T> delegate;
+        private volatile T value;
+
+        private Lazy(final Supplier<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T get() {
+            T current = value;
+            if (current == null) {
+                synchronized (this) {
+                    current = value;
+                    if (current == null) {
+                        current = requireNonNull(delegate.get(), "Lazy value can't be null");
+                        value = current;
+                    }
+                }
+            }
+            return current;
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.io.JsonStrings;
+
+/**
+ * Exposes a parameter value as compact JSON text, it is serialized event by event while the request is read.
+ */
+class JsonParserReader extends Reader {
+    private final JsonParser parser;
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean[] first = new boolean[16]; // per container depth: no element written yet
+    private int depth;
+    private boolean afterKey;
+    private int offset;
+
+    JsonParserReader(final JsonParser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public int read(final char[] chars, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (offset == buffer.length()) {
+            if (!parser.hasNext()) {
+                return -1;
+            }
+            buffer.setLength(0);
+            offset = 0;
+            fill();
+        }
+        final int count = Math.min(len, buffer.length() - offset);
+        buffer.getChars(offset, offset + count, chars, off);
+        offset += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        // no-op, draining is handled by the registry
+    }
+
+    private void fill() throws IOException {
+        final JsonParser.Event event = parser.next();
+        switch (event) {
+            case END_OBJECT:
+                depth--;
+                buffer.append('}');
+                return;
+            case END_ARRAY:
+                depth--;
+                buffer.append(']');
+                return;
+            default:
+        }
+        if (afterKey) {
+            afterKey = false;
+        } else if (depth > 0) {
+            if (!first[depth]) {
+                buffer.append(',');
+            }
+            first[depth] = false;
+        }
+        switch (event) {
+            case START_OBJECT:
+                push();
+                buffer.append('{');
+                break;
+            case START_ARRAY:
+                push();
+                buffer.append('[');
+                break;
+            case KEY_NAME:
+                JsonStrings.write(buffer, parser.getString());
+                buffer.append(':');
+                afterKey = true;
+                break;
+            case VALUE_STRING:
+                JsonStrings.write(buffer, parser.getString());
+                break;
+            case VALUE_NUMBER:
+                buffer.append(parser.getString());
+                break;
+            case VALUE_TRUE:
+                buffer.append("true");
+                break;
+            case VALUE_FALSE:
+                buffer.append("false");
+                break;
+            case VALUE_NULL:
+                buffer.append("null");
+                break;
+            default:
+                throw new IllegalStateException("Unexpected event: " + event);
+        }
+    }
+
+    private void push() {
+        depth++;
+        if (depth == first.length) {
+            first = Arrays.copyOf(first, first.length * 2);
+        }
+        first[depth] = true;
+    }
+}
@@ -0,0 +1,346 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import static java.util.stream.Collectors.toCollection;
+
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.bind.annotation.JsonbProperty;
+import javax.json.bind.annotation.JsonbTransient;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+/**
+ * Derives the JSON schema of a parameter type and compiles it to a validator running before the JSON-B binding.
+ *
+ * Only the constraints the binding would enforce anyway are generated (types, integer ranges, enum constants),
+ * {@code null} values are left to the binding and bean properties are the fields with the default JSON-B naming
+ * (or {@link JsonbProperty}), unknown properties are accepted.
+ */
+final class JsonSchemas {
+    private JsonSchemas() {
+        // no-op
+    }
+
+    /**
+     * @param provider the JSON-P provider creating the schema.
+     * @param type the java type.
+     * @return the JSON schema of the type, an empty schema if any value can be bound.
+     */
+    static JsonObject toSchema(final JsonProvider provider, final Type type) {
+        return toSchema(provider, type, new HashSet<>());
+    }
+
+    /**
+     * @param schema the schema of the value.
+     * @return the validator, {@code null} if the schema accepts any value.
+     */
+    static Validator compile(final JsonObject schema) {
+        final String type = schema.getString("type", null);
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case "string": {
+                final Set<String> constants = !schema.containsKey("enum") ? null : schema.getJsonArray("enum").stream()
+                        .map(JsonString.class::cast)
+                        .map(JsonString::getString)
+                        .collect(toCollection(LinkedHashSet::new));
+                final int length = schema.getInt("maxLength", -1);
+                return (value, path) -> {
+                    if (value.getValueType() != JsonValue.ValueType.STRING) {
+                        return expected(path, "a string", value);
+                    }
+                    final String string = JsonString.class.cast(value).getString();
+                    if (constants != null && !constants.contains(string)) {
+                        return "'" + path + "' must be one of " + constants;
+                    }
+                    if (length >= 0 && string.length() > length) {
+                        return "'" + path + "' must have at most " + length + " character(s)";
+                    }
+                    return null;
+                };
+            }
+            case "boolean":
+                return (value, path) -> value.getValueType() == JsonValue.ValueType.TRUE ||
+                        value.getValueType() == JsonValue.ValueType.FALSE ? null : expected(path, "a boolean", value);
+            case "integer": {
+                final BigDecimal minimum = schema.containsKey("minimum") ? schema.getJsonNumber("minimum").bigDecimalValue() : null;
+                final BigDecimal maximum = schema.containsKey("maximum") ? schema.getJsonNumber("maximum").bigDecimalValue() : null;
+                return (value, path) -> {
+                    if (value.getValueType() != JsonValue.ValueType.NUMBER || !JsonNumber.class.cast(value).isIntegral()) {
+                        return expected(path, "an integer", value);
+                    }
+                    final BigDecimal number = JsonNumber.class.cast(value).bigDecimalValue();
+                    if ((minimum != null && number.compareTo(minimum) < 0) || (maximum != null && number.compareTo(maximum) > 0)) {
+                        return "'" + path + "' must be between " + minimum + " and " + maximum;
+                    }
+                    return null;
+                };
+            }
+            case "number":
+                return (value, path) -> value.getValueType() == JsonValue.ValueType.NUMBER ? null : expected(path, "a number", value);
+            case "array": {
+                final Validator items = schema.containsKey("items") ? compile(schema.getJsonObject("items")) : null;
+                return (value, path) -> {
+                    if (value.getValueType() != JsonValue.ValueType.ARRAY) {
+                        return expected(path, "an array", value);
+                    }
+                    if (items == null) {
+                        return null;
+                    }
+                    final JsonArray array = value.asJsonArray();
+                    for (int i = 0; i < array.size(); i++) {
+                        final JsonValue item = array.get(i);
+                        final String error = item.getValueType() == JsonValue.ValueType.NULL ?
+                                null : items.validate(item, path + '[' + i + ']');
+                        if (error != null) {
+                            return error;
+                        }
+                    }
+                    return null;
+                };
+            }
+            case "object": {
+                final Map<String, Validator> properties = new LinkedHashMap<>();
+                if (schema.containsKey("properties")) {
+                    schema.getJsonObject("properties").forEach((name, property) -> {
+                        final Validator validator = compile(property.asJsonObject());
+                        if (validator != null) {
+                            properties.put(name, validator);
+                        }
+                    });
+                }
+                final JsonValue additional = schema.get("additionalProperties");
+                final Validator values = JsonObject.class.isInstance(additional) ? compile(additional.asJsonObject()) : null;
+                return (value, path) -> {
+                    if (value.getValueType() != JsonValue.ValueType.OBJECT) {
+                        return expected(path, "an object", value);
+                    }
+                    for (final Map.Entry<String, JsonValue> property : value.asJsonObject().entrySet()) {
+                        if (property.getValue().getValueType() == JsonValue.ValueType.NULL) {
+                            continue;
+                        }
+                        final Validator validator = values != null ? values : properties.get(property.getKey());
+                        final String error = validator == null ?
+                                null : validator.validate(property.getValue(), path + '.' + property.getKey());
+                        if (error != null) {
+                            return error;
+                        }
+                    }
+                    return null;
+                };
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param provider the JSON-P provider creating the value.
+     * @param schema the schema of the value.
+     * @return a value valid against the schema, {@link JsonValue#NULL} if the schema accepts any value.
+     */
+    static JsonValue sample(final JsonProvider provider, final JsonObject schema) {
+        switch (schema.getString("type", "")) {
+            case "string":
+                if (schema.containsKey("enum")) {
+                    return schema.getJsonArray("enum").get(0);
+                }
+                return provider.createValue(schema.getInt("maxLength", -1) == 1 ? "a" : "sample");
+            case "boolean":
+                return JsonValue.TRUE;
+            case "integer":
+                return provider.createValue(1);
+            case "number":
+                return provider.createValue(1.5);
+            case "array": {
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                if (schema.containsKey("items")) {
+                    builder.add(sample(provider, schema.getJsonObject("items")));
+                }
+                return builder.build();
+            }
+            case "object": {
+                final JsonObjectBuilder builder = provider.createObjectBuilder();
+                if (schema.containsKey("properties")) {
+                    schema.getJsonObject("properties").forEach((name, property) ->
+                            builder.add(name, sample(provider, property.asJsonObject())));
+                }
+                return builder.build();
+            }
+            default:
+                return JsonValue.NULL;
+        }
+    }
+
+    private static String expected(final String path, final String type, final JsonValue value) {
+        return "'" + path + "' must be " + type + ", got " + value.getValueType().name().toLowerCase();
+    }
+
+    private static JsonObject toSchema(final JsonProvider provider, final Type type, final Set<Type> visiting) {
+        if (ParameterizedType.class.isInstance(type)) {
+            final ParameterizedType pt = ParameterizedType.class.cast(type);
+            final Type raw = pt.getRawType();
+            if (raw == Optional.class) {
+                return toSchema(provider, pt.getActualTypeArguments()[0], visiting);
+            }
+            if (Class.class.isInstance(raw)) {
+                final Class<?> clazz = Class.class.cast(raw);
+                if (Collection.class.isAssignableFrom(clazz) || Stream.class.isAssignableFrom(clazz) ||
+                        Iterator.class.isAssignableFrom(clazz)) {
+                    return array(provider, toSchema(provider, pt.getActualTypeArguments()[0], visiting));
+                }
+                if (Map.class.isAssignableFrom(clazz) && pt.getActualTypeArguments().length == 2) {
+                    return provider.createObjectBuilder()
+                            .add("type", "object")
+                            .add("additionalProperties", toSchema(provider, pt.getActualTypeArguments()[1], visiting))
+                            .build();
+                }
+            }
+            return toSchema(provider, raw, visiting);
+        }
+        if (GenericArrayType.class.isInstance(type)) {
+            return array(provider, toSchema(provider, GenericArrayType.class.cast(type).getGenericComponentType(), visiting));
+        }
+        if (!Class.class.isInstance(type)) { // type variable or wildcard
+            return JsonValue.EMPTY_JSON_OBJECT;
+        }
+
+        final Class<?> clazz = Class.class.cast(type);
+        if (CharSequence.class.isAssignableFrom(clazz) || JsonString.class.isAssignableFrom(clazz) ||
+                clazz == UUID.class || clazz == URI.class || clazz == URL.class || Date.class.isAssignableFrom(clazz) ||
+                Calendar.class.isAssignableFrom(clazz) || TimeZone.class.isAssignableFrom(clazz) ||
+                clazz.getName().startsWith("java.time.")) {
+            return type(provider, "string");
+        }
+        if (clazz == char.class || clazz == Character.class) {
+            return provider.createObjectBuilder().add("type", "string").add("maxLength", 1).build();
+        }
+        if (clazz == boolean.class || clazz == Boolean.class) {
+            return type(provider, "boolean");
+        }
+        if (clazz == int.class || clazz == Integer.class) {
+            return integer(provider, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        if (clazz == long.class || clazz == Long.class) {
+            return integer(provider, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        if (clazz == short.class || clazz == Short.class) {
+            return integer(provider, Short.MIN_VALUE, Short.MAX_VALUE);
+        }
+        if (clazz == byte.class || clazz == Byte.class) {
+            return integer(provider, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        }
+        if (clazz == BigInteger.class) {
+            return type(provider, "integer");
+        }
+        if (clazz.isPrimitive() || Number.class.isAssignableFrom(clazz) || JsonNumber.class.isAssignableFrom(clazz)) {
+            return type(provider, "number");
+        }
+        if (clazz.isEnum()) {
+            final JsonArrayBuilder constants = provider.createArrayBuilder();
+            for (final Object constant : clazz.getEnumConstants()) {
+                constants.add(Enum.class.cast(constant).name());
+            }
+            return provider.createObjectBuilder()
+                    .add("type", "string")
+                    .add("enum", constants)
+                    .build();
+        }
+        if (clazz.isArray()) {
+            return array(provider, toSchema(provider, clazz.getComponentType(), visiting));
+        }
+        if (Collection.class.isAssignableFrom(clazz) || JsonArray.class.isAssignableFrom(clazz)) {
+            return type(provider, "array");
+        }
+        if (Map.class.isAssignableFrom(clazz) || JsonObject.class.isAssignableFrom(clazz)) {
+            return type(provider, "object");
+        }
+        if (clazz == Object.class || JsonValue.class.isAssignableFrom(clazz) || clazz == Reader.class ||
+                clazz == JsonParser.class || clazz.isInterface() || clazz.getName().startsWith("java")) {
+            return JsonValue.EMPTY_JSON_OBJECT;
+        }
+        if (!visiting.add(clazz)) { // recursive model, nested values are not described
+            return type(provider, "object");
+        }
+        try {
+            final JsonObjectBuilder properties = provider.createObjectBuilder();
+            for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (final Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) ||
+                            field.isSynthetic() || field.isAnnotationPresent(JsonbTransient.class)) {
+                        continue;
+                    }
+                    final JsonbProperty property = field.getAnnotation(JsonbProperty.class);
+                    properties.add(property != null && !property.value().isEmpty() ? property.value() : field.getName(),
+                            toSchema(provider, field.getGenericType(), visiting));
+                }
+            }
+            return provider.createObjectBuilder()
+                    .add("type", "object")
+                    .add("properties", properties)
+                    .build();
+        } finally {
+            visiting.remove(clazz);
+        }
+    }
+
+    private static JsonObject type(final JsonProvider provider, final String type) {
+        return provider.createObjectBuilder().add("type", type).build();
+    }
+
+    private static JsonObject integer(final JsonProvider provider, final long minimum, final long maximum) {
+        return provider.createObjectBuilder()
+                .add("type", "integer")
+                .add("minimum", minimum)
+                .add("maximum", maximum)
+                .build();
+    }
+
+    private static JsonObject array(final JsonProvider provider, final JsonObject items) {
+        final JsonObjectBuilder builder = provider.createObjectBuilder().add("type", "array");
+        if (!items.isEmpty()) {
+            builder.add("items", items);
+        }
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    interface Validator {
+        /**
+         * @param value the value to validate, not {@code null} nor JSON {@code null}.
+         * @param path the location of the value in the params, used in the error message.
+         * @return the error or {@code null} if the value is valid.
+         */
+        String validate(JsonValue value, String path);
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collects the calls of a method coming from independent requests and executes them with its bulk form,
+ * when the window elapsed (since the first pending call) or when the max size is reached.
+ *
+ * Window flushes run in the registry timer thread so the bulk form should not block long
+ * (or return a {@code CompletionStage}), size flushes run in the thread of the call completing the batch.
+ */
+public class MicroBatcher {
+    private final Function<List<Object[]>, Object> bulkInvoker;
+    private final long windowNanos;
+    private final int maxSize;
+    private final Supplier<ScheduledExecutorService> timer;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder sizeFlushes = new LongAdder();
+    private final LongAdder windowFlushes = new LongAdder();
+
+    private List<Object[]> pendingArgs; // guarded by this
+    private List<CompletableFuture<Object>> pendingResults; // guarded by this
+
+    MicroBatcher(final Function<List<Object[]>, Object> bulkInvoker, final long windowNanos, final int maxSize,
+                 final Supplier<ScheduledExecutorService> timer) {
+        this.bulkInvoker = bulkInvoker;
+        this.windowNanos = windowNanos;
+        this.maxSize = Math.max(1, maxSize);
+        this.timer = timer;
+    }
+
+    /**
+     * @param args the call arguments.
+     * @return the result of this call.
+     */
+    CompletionStage<Object> submit(final Object[] args) {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final List<Object[]> flushArgs;
+        final List<CompletableFuture<Object>> flushResults;
+        synchronized (this) {
+            if (pendingArgs == null) {
+                pendingArgs = new ArrayList<>(Math.min(maxSize, 64));
+                pendingResults = new ArrayList<>(Math.min(maxSize, 64));
+                final List<Object[]> batch = pendingArgs;
+                timer.get().schedule(() -> flushWindow(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            pendingArgs.add(args);
+            pendingResults.add(result);
+            if (pendingArgs.size() < maxSize) {
+                return result;
+            }
+            flushArgs = pendingArgs;
+            flushResults = pendingResults;
+            pendingArgs = null;
+            pendingResults = null;
+        }
+        sizeFlushes.increment();
+        flush(flushArgs, flushResults);
+        return result;
+    }
+
+    /**
+     * @return the number of calls executed through this batcher.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of bulk invocations triggered by the max size.
+     */
+    public long getSizeFlushes() {
+        return sizeFlushes.sum();
+    }
+
+    /**
+     * @return the number of bulk invocations triggered by the window.
+     */
+    public long getWindowFlushes() {
+        return windowFlushes.sum();
+    }
+
+    /**
+     * @return the average number of calls per bulk invocation.
+     */
+    public double getAverageBatchSize() {
+        final long flushes = getSizeFlushes() + getWindowFlushes();
+        return flushes == 0 ? 0 : getCalls() / (double) flushes;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void flushWindow(final List<Object[]> batch) {
+        final List<CompletableFuture<Object>> flushResults;
+        synchronized (this) {
+            if (pendingArgs != batch) { // already flushed by size
+                return;
+            }
+            flushResults = pendingResults;
+            pendingArgs = null;
+            pendingResults = null;
+        }
+        windowFlushes.increment();
+        flush(batch, flushResults);
+    }
+
+    private void flush(final List<Object[]> args, final List<CompletableFuture<Object>> results) {
+        calls.add(args.size());
+        final Object output;
+        try {
+            output = bulkInvoker.apply(args);
+        } catch (final RuntimeException re) {
+            results.forEach(it -> it.completeExceptionally(re));
+            return;
+        }
+        final CompletionStage<?> stage = CompletionStage.class.isInstance(output) ?
+                CompletionStage.class.cast(output) : CompletableFuture.completedFuture(output);
+        stage.whenComplete((values, error) -> {
+            if (error != null) {
+                final Throwable cause = CompletionException.class.isInstance(error) && error.getCause() != null ?
+                        error.getCause() : error;
+                results.forEach(it -> it.completeExceptionally(cause));
+                return;
+            }
+            final List<?> list = List.class.isInstance(values) ? List.class.cast(values) : null;
+            if (list == null || list.size() != results.size()) {
+                final IllegalStateException mismatch = new IllegalStateException(
+                        "Bulk invocation returned " + (list == null ? "no list" : list.size() + " results") +
+                                " for " + results.size() + " calls");
+                results.forEach(it -> it.completeExceptionally(mismatch));
+                return;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                results.get(i).complete(list.get(i));
+            }
+        });
+    }
+}
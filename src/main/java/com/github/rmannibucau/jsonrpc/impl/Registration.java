@@ -3,9 +3,17 @@ package com.github.rmannibucau.jsonrpc.impl;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 
+import java.io.Reader;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
 
 public class Registration {
     private final String jsonRpcMethod;
@@ -14,6 +22,13 @@ public class Registration {
     private final Function<Object[], Object> invoker;
     private final Collection<Parameter> parameters;
     private final Collection<ExceptionMapping> exceptionMappings;
+    private int priority;
+    private JsonRpcMethod.Dispatch dispatch = JsonRpcMethod.Dispatch.AUTO;
+    private Function<List<Object[]>, Object> bulkInvoker;
+    private long microBatchWindowMicros;
+    private int microBatchMaxSize = 256;
+    private String shardKey;
+    private boolean job;
 
     public Registration(final String jsonRpcMethod,
                         final Type returnedType, final Function<Object[], Object> invoker,
@@ -52,6 +67,91 @@ public class Registration {
         return exceptionMappings;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @param priority the priority class used by the scheduler, higher values run first.
+     * @return this registration.
+     */
+    public Registration setPriority(final int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public JsonRpcMethod.Dispatch getDispatch() {
+        return dispatch;
+    }
+
+    /**
+     * @param dispatch if the calls run in the transport thread, in the scheduler or depending on their latency.
+     * @return this registration.
+     */
+    public Registration setDispatch(final JsonRpcMethod.Dispatch dispatch) {
+        this.dispatch = requireNonNull(dispatch, "dispatch can't be null");
+        return this;
+    }
+
+    public Function<List<Object[]>, Object> getBulkInvoker() {
+        return bulkInvoker;
+    }
+
+    /**
+     * @param bulkInvoker invoker taking the arguments of several calls and returning the list of their results
+     *                    (or a {@code CompletionStage} of it) in the same order, used for the batches.
+     * @return this registration.
+     */
+    public Registration setBulkInvoker(final Function<List<Object[]>, Object> bulkInvoker) {
+        this.bulkInvoker = bulkInvoker;
+        return this;
+    }
+
+    public long getMicroBatchWindowMicros() {
+        return microBatchWindowMicros;
+    }
+
+    public int getMicroBatchMaxSize() {
+        return microBatchMaxSize;
+    }
+
+    /**
+     * @param windowMicros how long single calls wait to be executed together with the bulk invoker, {@code 0} to disable.
+     * @param maxSize the max number of calls of a bulk invocation.
+     * @return this registration.
+     */
+    public Registration setMicroBatching(final long windowMicros, final int maxSize) {
+        this.microBatchWindowMicros = windowMicros;
+        this.microBatchMaxSize = maxSize;
+        return this;
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    /**
+     * @param shardKey the name of the parameter whose value selects the node executing the calls, {@code null} for none.
+     * @return this registration.
+     */
+    public Registration setShardKey(final String shardKey) {
+        this.shardKey = shardKey;
+        return this;
+    }
+
+    public boolean isJob() {
+        return job;
+    }
+
+    /**
+     * @param job if true the calls return a job id and are executed in background, see {@code HandlerRegistry#setJobManager}.
+     * @return this registration.
+     */
+    public Registration setJob(final boolean job) {
+        this.job = job;
+        return this;
+    }
+
     public static class ExceptionMapping {
         private final Collection<Class<? extends Throwable>> types;
         private final int code;
@@ -112,5 +212,13 @@ public class Registration {
         public boolean isRequired() {
             return required;
         }
+
+        /**
+         * @return true if the parameter is bound while the request is read ({@link JsonParser}, {@link Reader} or {@link Stream}).
+         */
+        public boolean isStreamed() {
+            final Type raw = ParameterizedType.class.isInstance(type) ? ParameterizedType.class.cast(type).getRawType() : type;
+            return raw == JsonParser.class || raw == Reader.class || raw == Stream.class;
+        }
     }
 }
@@ -0,0 +1,345 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Comparator.comparing;
+import static java.util.Optional.ofNullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+/**
+ * Builds the {@link JsonValue} of a result type without the JSON-B serialization/parsing round trip:
+ * getters are {@link MethodHandle}s (primitive ones are not boxed) and property names are resolved once.
+ *
+ * It only handles plain beans with the default JSON-B mapping (no JSON-B annotation, lexicographical order,
+ * null properties skipped), other types are not specialized and values of a subclass use the fallback.
+ */
+final class SpecializedResultMapper {
+    private SpecializedResultMapper() {
+        // no-op
+    }
+
+    /**
+     * @param type the result type.
+     * @param provider the JSON-P provider creating the values.
+     * @param fallback the mapper used for subclass instances.
+     * @return the specialized mapper if the type is supported.
+     */
+    static Optional<Function<Object, JsonValue>> create(final Type type, final JsonProvider provider,
+                                                        final Function<Object, JsonValue> fallback) {
+        return ofNullable(createMapper(type, provider, fallback, new HashSet<>()));
+    }
+
+    private static Function<Object, JsonValue> createMapper(final Type type, final JsonProvider provider,
+                                                            final Function<Object, JsonValue> fallback,
+                                                            final Set<Type> visiting) {
+        if (ParameterizedType.class.isInstance(type)) {
+            final ParameterizedType pt = ParameterizedType.class.cast(type);
+            if (Class.class.isInstance(pt.getRawType()) && Collection.class.isAssignableFrom(Class.class.cast(pt.getRawType()))) {
+                final Function<Object, JsonValue> item = createMapper(pt.getActualTypeArguments()[0], provider, fallback, visiting);
+                if (item == null) {
+                    return null;
+                }
+                return value -> {
+                    final JsonArrayBuilder builder = provider.createArrayBuilder();
+                    for (final Object it : Collection.class.cast(value)) {
+                        builder.add(it == null ? JsonValue.NULL : item.apply(it));
+                    }
+                    return builder.build();
+                };
+            }
+            return null;
+        }
+        if (GenericArrayType.class.isInstance(type)) {
+            return createArrayMapper(GenericArrayType.class.cast(type).getGenericComponentType(), provider, fallback, visiting);
+        }
+        if (!Class.class.isInstance(type)) {
+            return null;
+        }
+        final Class<?> clazz = Class.class.cast(type);
+        if (clazz == String.class) {
+            return value -> provider.createValue(String.class.cast(value));
+        }
+        if (clazz == Integer.class || clazz == int.class || clazz == Short.class || clazz == short.class ||
+                clazz == Byte.class || clazz == byte.class) {
+            return value -> provider.createValue(Number.class.cast(value).intValue());
+        }
+        if (clazz == Long.class || clazz == long.class) {
+            return value -> provider.createValue(Long.class.cast(value));
+        }
+        if (clazz == Double.class || clazz == double.class) {
+            return value -> provider.createValue(Double.class.cast(value));
+        }
+        if (clazz == Boolean.class || clazz == boolean.class) {
+            return value -> Boolean.class.cast(value) ? JsonValue.TRUE : JsonValue.FALSE;
+        }
+        if (clazz.isEnum()) {
+            return value -> provider.createValue(Enum.class.cast(value).name());
+        }
+        if (clazz == int[].class) {
+            return value -> {
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                for (final int it : int[].class.cast(value)) {
+                    builder.add(it);
+                }
+                return builder.build();
+            };
+        }
+        if (clazz == long[].class) {
+            return value -> {
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                for (final long it : long[].class.cast(value)) {
+                    builder.add(it);
+                }
+                return builder.build();
+            };
+        }
+        if (clazz == double[].class) {
+            return value -> {
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                for (final double it : double[].class.cast(value)) {
+                    builder.add(it);
+                }
+                return builder.build();
+            };
+        }
+        if (clazz == boolean[].class) {
+            return value -> {
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                for (final boolean it : boolean[].class.cast(value)) {
+                    builder.add(it);
+                }
+                return builder.build();
+            };
+        }
+        if (clazz.isArray()) {
+            return clazz.getComponentType().isPrimitive() ? null :
+                    createArrayMapper(clazz.getComponentType(), provider, fallback, visiting);
+        }
+        return createBeanMapper(clazz, provider, fallback, visiting);
+    }
+
+    private static Function<Object, JsonValue> createArrayMapper(final Type componentType, final JsonProvider provider,
+                                                                 final Function<Object, JsonValue> fallback,
+                                                                 final Set<Type> visiting) {
+        final Function<Object, JsonValue> item = createMapper(componentType, provider, fallback, visiting);
+        if (item == null) {
+            return null;
+        }
+        return value -> {
+            final JsonArrayBuilder builder = provider.createArrayBuilder();
+            final int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                final Object it = Array.get(value, i);
+                builder.add(it == null ? JsonValue.NULL : item.apply(it));
+            }
+            return builder.build();
+        };
+    }
+
+    private static Function<Object, JsonValue> createBeanMapper(final Class<?> clazz, final JsonProvider provider,
+                                                                final Function<Object, JsonValue> fallback,
+                                                                final Set<Type> visiting) {
+        if (clazz.isPrimitive() || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()) ||
+                clazz.getName().startsWith("java.") || clazz.getName().startsWith("javax.") ||
+                Map.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz) ||
+                hasJsonbAnnotation(clazz) || !visiting.add(clazz)) { // recursive types are not specialized
+            return null;
+        }
+        try {
+            final Map<String, PropertyWriter> properties = new TreeMap<>(); // default lexicographical order
+            for (final Field field : clazz.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                if (hasJsonbAnnotation(field)) {
+                    return null;
+                }
+                field.setAccessible(true);
+                final PropertyWriter writer = createPropertyWriter(
+                        field.getName(), field.getType(), field.getGenericType(),
+                        MethodHandles.lookup().unreflectGetter(field), provider, fallback, visiting);
+                if (writer == null) {
+                    return null;
+                }
+                properties.put(field.getName(), writer);
+            }
+            for (final Method method : Stream.of(clazz.getMethods()).sorted(comparing(Method::getName)).toArray(Method[]::new)) {
+                final String name = toPropertyName(method);
+                if (name == null) {
+                    continue;
+                }
+                if (hasJsonbAnnotation(method) || Stream.of(clazz.getDeclaredFields())
+                        .anyMatch(f -> f.getName().equals(name) && hasJsonbAnnotation(f))) {
+                    return null;
+                }
+                method.setAccessible(true);
+                final PropertyWriter writer = createPropertyWriter(
+                        name, method.getReturnType(), method.getGenericReturnType(),
+                        MethodHandles.lookup().unreflect(method), provider, fallback, visiting);
+                if (writer == null) {
+                    return null;
+                }
+                properties.put(name, writer); // getter wins over the field
+            }
+            final PropertyWriter[] writers = properties.values().toArray(new PropertyWriter[0]);
+            return value -> {
+                if (value.getClass() != clazz) { // the runtime type can have more properties
+                    return fallback.apply(value);
+                }
+                final JsonObjectBuilder builder = provider.createObjectBuilder();
+                for (final PropertyWriter writer : writers) {
+                    writer.write(value, builder);
+                }
+                return builder.build();
+            };
+        } catch (final IllegalAccessException | RuntimeException e) { // not accessible, keep jsonb
+            return null;
+        } finally {
+            visiting.remove(clazz);
+        }
+    }
+
+    private static PropertyWriter createPropertyWriter(final String name, final Class<?> type, final Type genericType,
+                                                       final MethodHandle getter, final JsonProvider provider,
+                                                       final Function<Object, JsonValue> fallback,
+                                                       final Set<Type> visiting) {
+        if (type == int.class || type == short.class || type == byte.class) {
+            final MethodHandle handle = getter.asType(methodType(int.class, Object.class));
+            return (instance, builder) -> builder.add(name, getInt(handle, instance));
+        }
+        if (type == long.class) {
+            final MethodHandle handle = getter.asType(methodType(long.class, Object.class));
+            return (instance, builder) -> builder.add(name, getLong(handle, instance));
+        }
+        if (type == double.class) {
+            final MethodHandle handle = getter.asType(methodType(double.class, Object.class));
+            return (instance, builder) -> builder.add(name, getDouble(handle, instance));
+        }
+        if (type == boolean.class) {
+            final MethodHandle handle = getter.asType(methodType(boolean.class, Object.class));
+            return (instance, builder) -> builder.add(name, getBoolean(handle, instance));
+        }
+        if (type.isPrimitive()) { // char and float are written differently by jsonb
+            return null;
+        }
+        final Function<Object, JsonValue> mapper = createMapper(genericType, provider, fallback, visiting);
+        if (mapper == null) {
+            return null;
+        }
+        final MethodHandle handle = getter.asType(methodType(Object.class, Object.class));
+        return (instance, builder) -> {
+            final Object value = get(handle, instance);
+            if (value != null) {
+                builder.add(name, mapper.apply(value));
+            }
+        };
+    }
+
+    // one method per signature since invokeExact needs the exact type at the call site (no boxing)
+    private static int getInt(final MethodHandle handle, final Object instance) {
+        try {
+            return (int) handle.invokeExact(instance);
+        } catch (final Throwable throwable) {
+            throw propagate(throwable);
+        }
+    }
+
+    private static long getLong(final MethodHandle handle, final Object instance) {
+        try {
+            return (long) handle.invokeExact(instance);
+        } catch (final Throwable throwable) {
+            throw propagate(throwable);
+        }
+    }
+
+    private static double getDouble(final MethodHandle handle, final Object instance) {
+        try {
+            return (double) handle.invokeExact(instance);
+        } catch (final Throwable throwable) {
+            throw propagate(throwable);
+        }
+    }
+
+    private static boolean getBoolean(final MethodHandle handle, final Object instance) {
+        try {
+            return (boolean) handle.invokeExact(instance);
+        } catch (final Throwable throwable) {
+            throw propagate(throwable);
+        }
+    }
+
+    private static Object get(final MethodHandle handle, final Object instance) {
+        try {
+            return (Object) handle.invokeExact(instance);
+        } catch (final Throwable throwable) {
+            throw propagate(throwable);
+        }
+    }
+
+    private static RuntimeException propagate(final Throwable throwable) {
+        if (RuntimeException.class.isInstance(throwable)) {
+            return RuntimeException.class.cast(throwable);
+        }
+        if (Error.class.isInstance(throwable)) {
+            throw Error.class.cast(throwable);
+        }
+        return new IllegalStateException(throwable);
+    }
+
+    private static String toPropertyName(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0 ||
+                method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        final String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 &&
+                (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            return decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private static String decapitalize(final String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static boolean hasJsonbAnnotation(final AnnotatedElement element) {
+        return Stream.of(element.getAnnotations())
+                .map(Annotation::annotationType)
+                .anyMatch(it -> it.getName().startsWith("javax.json.bind.annotation."));
+    }
+
+    @FunctionalInterface
+    private interface PropertyWriter {
+        void write(Object instance, JsonObjectBuilder builder);
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.rmannibucau.jsonrpc.impl;
+
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.io.Utf8BufferWriter;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import com.github.rmannibucau.jsonrpc.protocol.Specification;
+
+/**
+ * Sends requests through the handler (parsing, binding, invocation and serialization) to have this code compiled
+ * before the traffic comes.
+ *
+ * Requests are generated from the specification (one call per method with sample params derived from the parameter
+ * types plus a batch of all the calls) or read from a samples file containing a request or an array of requests
+ * (nested arrays being batches).
+ * By default the methods are not invoked, see {@link RequestContext#isSkipInvocation()}.
+ */
+public class Warmup {
+    private final JsonRpcHandler handler;
+    private final HandlerRegistry registry;
+    private final JsonProvider provider;
+
+    private int iterations;
+    private long duration;
+    private boolean invoke;
+    private String samples;
+
+    public Warmup(final JsonRpcHandler handler, final HandlerRegistry registry, final JsonProvider provider) {
+        this.handler = handler;
+        this.registry = registry;
+        this.provider = provider;
+    }
+
+    /**
+     * @param iterations how many times the requests are sent, {@code 0} to only rely on the duration.
+     */
+    public void setIterations(final int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param duration the max duration in milliseconds, {@code 0} to only rely on the iterations.
+     */
+    public void setDuration(final long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * @param invoke if true the methods are invoked, otherwise only the params are bound.
+     */
+    public void setInvoke(final boolean invoke) {
+        this.invoke = invoke;
+    }
+
+    /**
+     * @param samples a classpath resource or file path, {@code null} to generate the requests.
+     */
+    public void setSamples(final String samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Sends the requests until the iterations are done or the duration elapsed then flips the registry readiness.
+     *
+     * @return the number of sent requests.
+     */
+    public int run() {
+        try {
+            if (iterations <= 0 && duration <= 0) {
+                return 0;
+            }
+            final List<String> requests = samples == null ? createRequests() : loadSamples();
+            if (requests.isEmpty()) {
+                return 0;
+            }
+            final long end = duration > 0 ? System.nanoTime() + MILLISECONDS.toNanos(duration) : Long.MAX_VALUE;
+            final Utf8BufferWriter sink = new Utf8BufferWriter(1024);
+            int sent = 0;
+            for (int i = 0; iterations <= 0 || i < iterations; i++) {
+                for (final String request : requests) {
+                    if (System.nanoTime() >= end) {
+                        return sent;
+                    }
+                    final RequestContext context = new RequestContext();
+                    context.setSkipInvocation(!invoke);
+                    context.setForwarded(true); // warmup only exercises this node, sharded calls must not reach their owner
+                    handler.handle(new StringReader(request), context, (status, writer) -> {
+                        sink.reset();
+                        writer.accept(sink);
+                    }, Optional::empty);
+                    sent++;
+                }
+            }
+            return sent;
+        } finally {
+            registry.setReady(true);
+        }
+    }
+
+    /**
+     * @return a request per method with sample params and a batch of these requests.
+     */
+    public List<String> createRequests() {
+        final String version = handler.getConfiguration().getJsonRpcVersion();
+        final Specification specification = registry.createSpecification();
+        final List<JsonObject> calls = new ArrayList<>(specification.getMethods().size());
+        specification.getMethods().forEach((name, method) -> {
+            final HandlerRegistry.JsonRpcMethodRegistration registration = registry.getHandlers().get(name);
+            if (registration == null) {
+                return;
+            }
+            final Map<String, Registration.Parameter> types = ofNullable(registration.getRegistration().getParameters())
+                    .map(Collection::stream).orElseGet(Stream::empty)
+                    .collect(toMap(Registration.Parameter::getName, identity(), (a, b) -> a));
+            final JsonObjectBuilder params = provider.createObjectBuilder();
+            method.getParameters().forEach(param -> ofNullable(types.get(param.getName()))
+                    .filter(it -> !it.isStreamed())
+                    .ifPresent(it -> params.add(param.getName(),
+                            JsonSchemas.sample(provider, JsonSchemas.toSchema(provider, it.getType())))));
+            calls.add(provider.createObjectBuilder()
+                    .add("jsonrpc", version)
+                    .add("id", "warmup-" + calls.size())
+                    .add("method", name)
+                    .add("params", params)
+                    .build());
+        });
+        final List<String> requests = calls.stream().map(JsonValue::toString).collect(toList());
+        if (calls.size() > 1) {
+            final JsonArrayBuilder batch = provider.createArrayBuilder();
+            final int maxBatchSize = handler.getConfiguration().getMaxBatchSize();
+            calls.stream().limit(maxBatchSize > 0 ? maxBatchSize : Long.MAX_VALUE).forEach(batch::add);
+            requests.add(batch.build().toString());
+        }
+        return requests;
+    }
+
+    private List<String> loadSamples() {
+        final ClassLoader loader = ofNullable(Thread.currentThread().getContextClassLoader())
+                .orElseGet(ClassLoader::getSystemClassLoader);
+        try (final InputStream stream = ofNullable(loader.getResourceAsStream(samples))
+                .orElseGet(() -> {
+                    try {
+                        return Files.newInputStream(Paths.get(samples));
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException("Can't read warmup samples '" + samples + "'", e);
+                    }
+                });
+             final JsonReader reader = provider.createReader(stream)) {
+            final JsonStructure content = reader.read();
+            // an array of requests (a nested array being a batch) or a single request
+            final Stream<JsonValue> requests = content.getValueType() == JsonValue.ValueType.ARRAY ?
+                    content.asJsonArray().stream() : Stream.of(content);
+            return requests.map(JsonValue::toString).collect(toList());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't read warmup samples '" + samples + "'", e);
+        }
+    }
+}
@@ -3,14 +3,19 @@ package com.github.rmannibucau.jsonrpc.impl.cdi;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.spi.CreationalContext;
@@ -36,23 +41,31 @@ import javax.json.spi.JsonProvider;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
 import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.codec.JsonbCodec;
 import com.github.rmannibucau.jsonrpc.configuration.Configuration;
 import com.github.rmannibucau.jsonrpc.configuration.MicroprofileInitializer;
 import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Warmup;
+import com.github.rmannibucau.jsonrpc.job.JobManager;
 import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
 import com.github.rmannibucau.jsonrpc.qualifier.JsonRpc;
+import com.github.rmannibucau.jsonrpc.tracing.Tracer;
 
 public class JsonRpcExtension implements Extension {
     private static final JsonRpcException[] EMPTY_EXCEPTION_ARRAY = new JsonRpcException[0];
 
     // enables to override default instances just by producing it
     private Bean<Jsonb> jsonbBean;
+    private Bean<JsonRpcCodec> codecBean;
     private Bean<Configuration> configurationBean;
+    private Bean<Tracer> tracerBean;
 
     private final HandlerRegistry registry = new HandlerRegistry();
     private final Map<Bean<?>, AnnotatedType<?>> rpcBeans = new HashMap<>();
-    private final Collection<CreationalContext<?>> creationalContexts = new ArrayList<>();
-    private final Collection<HandlerRegistry.Unregisterable> registrations = new ArrayList<>();
+    // concurrent since registration can be parallel and lookups lazy (at runtime)
+    private final Collection<CreationalContext<?>> creationalContexts = new ConcurrentLinkedQueue<>();
+    private final Collection<HandlerRegistry.Unregisterable> registrations = new ConcurrentLinkedQueue<>();
 
     void registerDefaultBeans(@Observes final BeforeBeanDiscovery beforeBeanDiscovery,
                               final BeanManager beanManager) {
@@ -75,10 +88,21 @@ public class JsonRpcExtension implements Extension {
         }
     }
 
+    void captureCodec(@Observes final ProcessBean<JsonRpcCodec> codecProcessBean) {
+        final Bean<JsonRpcCodec> bean = codecProcessBean.getBean();
+        if (bean.getQualifiers().contains(JsonRpc.Literal.INSTANCE)) {
+            codecBean = bean;
+        }
+    }
+
     void captureConfiguration(@Observes final ProcessBean<Configuration> configurationProcessBean) {
         configurationBean = configurationProcessBean.getBean();
     }
 
+    void captureTracer(@Observes final ProcessBean<Tracer> tracerProcessBean) {
+        tracerBean = tracerProcessBean.getBean();
+    }
+
     void registerBeans(@Observes final AfterBeanDiscovery afterBeanDiscovery, final BeanManager beanManager) {
         if (jsonbBean == null) {
             afterBeanDiscovery.<Jsonb>addBean()
@@ -97,6 +121,19 @@ public class JsonRpcExtension implements Extension {
                         }
                     });
         }
+        if (codecBean == null) {
+            afterBeanDiscovery.<JsonRpcCodec>addBean()
+                    .id("event_rpc::codec")
+                    .scope(ApplicationScoped.class)
+                    .qualifiers(JsonRpc.Literal.INSTANCE, Any.Literal.INSTANCE)
+                    .beanClass(JsonRpcCodec.class)
+                    .types(JsonRpcCodec.class, Object.class)
+                    .createWith(c -> StreamSupport.stream(ServiceLoader.load(JsonRpcCodec.class).spliterator(), false)
+                            .findFirst()
+                            .orElseGet(() -> new JsonbCodec(Jsonb.class.cast(beanManager.getReference(
+                                    beanManager.resolve(beanManager.getBeans(Jsonb.class, JsonRpc.Literal.INSTANCE)), Jsonb.class, c)),
+                                    JsonProvider.provider())));
+        }
         if (configurationBean == null) {
             afterBeanDiscovery.<Configuration>addBean()
                     .id("event_rpc::configuration")
@@ -106,6 +143,17 @@ public class JsonRpcExtension implements Extension {
                     .types(Configuration.class, Object.class)
                     .createWith(c -> MicroprofileInitializer.load(new Configuration()));
         }
+        if (tracerBean == null) {
+            afterBeanDiscovery.<Tracer>addBean()
+                    .id("event_rpc::tracer")
+                    .scope(ApplicationScoped.class)
+                    .qualifiers(Default.Literal.INSTANCE, Any.Literal.INSTANCE)
+                    .beanClass(Tracer.class)
+                    .types(Tracer.class, Object.class)
+                    .createWith(c -> StreamSupport.stream(ServiceLoader.load(Tracer.class).spliterator(), false)
+                            .findFirst()
+                            .orElse(Tracer.NOOP));
+        }
         afterBeanDiscovery.<HandlerRegistry>addBean()
                 .id("event_rpc::registry")
                 .scope(ApplicationScoped.class)
@@ -120,22 +168,44 @@ public class JsonRpcExtension implements Extension {
         if (configurationBean == null) { // unlikely but just a guard
             configurationBean = (Bean<Configuration>) beanManager.resolve(beanManager.getBeans(Configuration.class));
         }
-        if (!doLookup(beanManager, configurationBean).isActive()) {
+        final Configuration configuration = doLookup(beanManager, configurationBean);
+        if (!configuration.isActive()) {
             return;
         }
 
-        ofNullable(doLookup(beanManager, configurationBean).getSpecificationMethod())
+        ofNullable(configuration.getSpecificationMethod())
                 .filter(it -> !it.isEmpty())
-                .ifPresent(registry::registerSpecificationMethod);
+                .ifPresent(method -> registry.registerSpecificationMethod(method, configuration.isOpenRpcSpecification()));
 
-        if (jsonbBean == null) { // unlikely but just a guard
-            jsonbBean = (Bean<Jsonb>) beanManager.resolve(beanManager.getBeans(Jsonb.class, JsonRpc.Literal.INSTANCE));
+        if (codecBean == null) { // unlikely but just a guard
+            codecBean = (Bean<JsonRpcCodec>) beanManager.resolve(beanManager.getBeans(JsonRpcCodec.class, JsonRpc.Literal.INSTANCE));
+        }
+        registry.setCodec(doLookup(beanManager, codecBean));
+        registry.setSpecializedResultMappers(configuration.isSpecializedResultMappers());
+        registry.setInlineThresholdMicros(configuration.getInlineThresholdMicros());
+        registry.setParameterValidation(configuration.isParameterValidation());
+        if (configuration.getJobDirectory() != null) {
+            final JobManager jobManager = new JobManager(
+                    Paths.get(configuration.getJobDirectory()), configuration.getJobTtl(), configuration.getJobThreads(),
+                    configuration.getJobJournalSize(), registry.getJsonProvider());
+            registry.setJobManager(jobManager);
+            registrations.add(registry.registerJobMethods());
+            registrations.add(jobManager::close);
         }
-        registry.setJsonb(doLookup(beanManager, jsonbBean));
-        registry.setJsonProvider(JsonProvider.provider());
 
-        rpcBeans.forEach((bean, annotatedType) -> registerBean(beanManager, bean, annotatedType));
+        final boolean lazy = configuration.isLazyEndpoints();
+        if (configuration.isParallelRegistration()) {
+            registry.registerInParallel(rpcBeans.entrySet().stream()
+                    .<Runnable>map(it -> () -> registerBean(beanManager, it.getKey(), it.getValue(), lazy))
+                    .collect(toList()));
+        } else {
+            rpcBeans.forEach((bean, type) -> registerBean(beanManager, bean, type, lazy));
+        }
         rpcBeans.clear();
+
+        if (configuration.getWarmupIterations() > 0 || configuration.getWarmupDuration() > 0) {
+            startWarmup(beanManager, configuration);
+        }
     }
 
     void cleanup(@Observes final BeforeShutdown beforeShutdown) {
@@ -143,8 +213,9 @@ public class JsonRpcExtension implements Extension {
         creationalContexts.forEach(it -> safeRun(it::release));
     }
 
-    private void registerBean(final BeanManager beanManager, final Bean<?> bean, final AnnotatedType<?> annotatedType) {
-        final Object instance = doLookup(beanManager, bean);
+    private void registerBean(final BeanManager beanManager, final Bean<?> bean, final AnnotatedType<?> annotatedType,
+                              final boolean lazy) {
+        final Supplier<?> instance = lazy ? lazyLookup(beanManager, bean) : constant(doLookup(beanManager, bean));
         registrations.addAll(annotatedType.getMethods().stream()
             .filter(method -> method.isAnnotationPresent(JsonRpcMethod.class))
             .map(method -> registry.registerMethodReflect(
@@ -155,10 +226,47 @@ public class JsonRpcExtension implements Extension {
                             .toArray(JsonRpcParam[]::new),
                     ofNullable(method.getAnnotations(JsonRpcException.class))
                             .map(a -> a.toArray(EMPTY_EXCEPTION_ARRAY))
-                            .orElse(EMPTY_EXCEPTION_ARRAY)))
+                            .orElse(EMPTY_EXCEPTION_ARRAY),
+                    lazy))
             .collect(toList()));
     }
 
+    // the warmup runs in background, the registry is not ready until it ends
+    private void startWarmup(final BeanManager beanManager, final Configuration configuration) {
+        final Bean<JsonRpcHandler> handlerBean = (Bean<JsonRpcHandler>) beanManager.resolve(beanManager.getBeans(JsonRpcHandler.class));
+        final Warmup warmup = new Warmup(doLookup(beanManager, handlerBean), registry, registry.getJsonProvider());
+        warmup.setIterations(configuration.getWarmupIterations());
+        warmup.setDuration(configuration.getWarmupDuration());
+        warmup.setInvoke(configuration.isWarmupInvoke());
+        warmup.setSamples(configuration.getWarmupSamples());
+        registry.setReady(false);
+        final Thread thread = new Thread(() -> safeRun(warmup::run), JsonRpcExtension.class.getName() + "-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Supplier<?> constant(final Object instance) {
+        return () -> instance;
+    }
+
+    // shared by all the methods of the bean to keep a single instance per bean as in eager mode
+    private Supplier<?> lazyLookup(final BeanManager beanManager, final Bean<?> bean) {
+        final AtomicReference<Object> instance = new AtomicReference<>();
+        return () -> {
+            Object value = instance.get();
+            if (value == null) {
+                synchronized (instance) {
+                    value = instance.get();
+                    if (value == null) {
+                        value = doLookup(beanManager, bean);
+                        instance.set(value);
+                    }
+                }
+            }
+            return value;
+        };
+    }
+
     private <A> A doLookup(final BeanManager beanManager, final Bean<A> bean) {
         final CreationalContext<A> creationalContext = beanManager.createCreationalContext(null);
         final A instance = (A) beanManager.getReference(bean, bean.getBeanClass(), creationalContext);
@@ -0,0 +1,72 @@
+package com.github.rmannibucau.jsonrpc.io;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of {@link Utf8BufferWriter} sized from the recent response sizes of the requested key (JSON-RPC method).
+ * It avoids to grow (copy) the buffer while serializing and to allocate a new one per response.
+ */
+public class BufferPool {
+    private static final String DEFAULT_KEY = "";
+
+    private final Queue<Utf8BufferWriter> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final Map<String, AtomicInteger> predictions = new ConcurrentHashMap<>();
+    private final int maxPooled;
+    private final int maxRetainedCapacity;
+    private final int defaultCapacity;
+
+    public BufferPool() {
+        this(Math.max(16, Runtime.getRuntime().availableProcessors() * 4), 1024 * 1024, 512);
+    }
+
+    /**
+     * @param maxPooled max number of idle buffers kept in the pool.
+     * @param maxRetainedCapacity buffers bigger than this capacity are not pooled to not keep big responses in memory.
+     * @param defaultCapacity capacity used when there is no size history for a key.
+     */
+    public BufferPool(final int maxPooled, final int maxRetainedCapacity, final int defaultCapacity) {
+        this.maxPooled = maxPooled;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    public Utf8BufferWriter acquire(final String key) {
+        final int predicted = predictSize(key);
+        final Utf8BufferWriter buffer = buffers.poll();
+        if (buffer == null) {
+            return new Utf8BufferWriter(predicted);
+        }
+        pooled.decrementAndGet();
+        buffer.ensureCapacity(predicted);
+        return buffer;
+    }
+
+    public void release(final String key, final Utf8BufferWriter buffer) {
+        final AtomicInteger prediction = predictions.computeIfAbsent(key == null ? DEFAULT_KEY : key, k -> new AtomicInteger(-1));
+        final int size = buffer.size();
+        final int current = prediction.get();
+        // exponential moving average with a 1/4 weight for the last size, cheap and good enough to absorb spikes
+        prediction.lazySet(current < 0 ? size : current + ((size - current) >> 2));
+
+        buffer.reset();
+        if (buffer.capacity() <= maxRetainedCapacity && pooled.incrementAndGet() <= maxPooled) {
+            buffers.add(buffer);
+        } else if (buffer.capacity() <= maxRetainedCapacity) {
+            pooled.decrementAndGet();
+        }
+    }
+
+    public int predictSize(final String key) {
+        final AtomicInteger prediction = predictions.get(key == null ? DEFAULT_KEY : key);
+        if (prediction == null || prediction.get() < 0) {
+            return defaultCapacity;
+        }
+        final int value = prediction.get();
+        return Math.min(maxRetainedCapacity, value + (value >> 3) + 16); // small margin to avoid a resize on +/- same size
+    }
+}
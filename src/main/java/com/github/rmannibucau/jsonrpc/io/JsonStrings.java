@@ -0,0 +1,47 @@
+package com.github.rmannibucau.jsonrpc.io;
+
+import java.io.IOException;
+
+public final class JsonStrings {
+    private JsonStrings() {
+        // no-op
+    }
+
+    /**
+     * Writes a JSON string literal (quoted and escaped).
+     *
+     * @param output the output.
+     * @param value the raw value.
+     * @throws IOException if the output fails.
+     */
+    public static void write(final Appendable output, final String value) throws IOException {
+        output.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    output.append("\\\"");
+                    break;
+                case '\\':
+                    output.append("\\\\");
+                    break;
+                case '\n':
+                    output.append("\\n");
+                    break;
+                case '\r':
+                    output.append("\\r");
+                    break;
+                case '\t':
+                    output.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        output.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        output.append(c);
+                    }
+            }
+        }
+        output.append('"');
+    }
+}
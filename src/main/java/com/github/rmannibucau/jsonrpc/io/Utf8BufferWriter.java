@@ -0,0 +1,120 @@
+package com.github.rmannibucau.jsonrpc.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Writer} encoding chars straight to UTF-8 in a growable byte array.
+ * It avoids the {@code StreamEncoder} char buffer and enables to know the exact payload size before writing it.
+ *
+ * Instances are reusable (see {@link #reset()}) but not thread safe.
+ */
+public class Utf8BufferWriter extends Writer {
+    private byte[] bytes;
+    private int size;
+    private char highSurrogate;
+
+    public Utf8BufferWriter(final int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    @Override
+    public void write(final int c) {
+        ensureCapacity(size + 4);
+        encode((char) c);
+    }
+
+    @Override
+    public void write(final char[] chars, final int off, final int len) {
+        ensureCapacity(size + len * 3 + 1);
+        for (int i = off; i < off + len; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        ensureCapacity(size + len * 3 + 1);
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() {
+        // no-op
+    }
+
+    @Override
+    public void close() {
+        if (highSurrogate != 0) { // dangling surrogate, same replacement as the JVM encoder
+            highSurrogate = 0;
+            ensureCapacity(size + 1);
+            bytes[size++] = '?';
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    public void ensureCapacity(final int capacity) {
+        if (capacity > bytes.length) {
+            final byte[] newBytes = new byte[Math.max(capacity, bytes.length * 2)];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+    }
+
+    public void reset() {
+        size = 0;
+        highSurrogate = 0;
+    }
+
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        close();
+        outputStream.write(bytes, 0, size);
+    }
+
+    public void writeTo(final ByteBuffer buffer) {
+        close();
+        buffer.put(bytes, 0, size);
+    }
+
+    private void encode(final char c) {
+        if (highSurrogate != 0) {
+            final char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            bytes[size++] = '?';
+            ensureCapacity(size + 3);
+        }
+        if (c < 0x80) {
+            bytes[size++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[size++] = (byte) (0xC0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            bytes[size++] = '?';
+        } else {
+            bytes[size++] = (byte) (0xE0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+}
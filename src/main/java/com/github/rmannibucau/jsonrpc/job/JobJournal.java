@@ -0,0 +1,264 @@
+package com.github.rmannibucau.jsonrpc.job;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the jobs backed by a memory mapped file.
+ *
+ * A record is {@code [body size][body crc32][type][timestamp][id][method|code][payload]}, a zero size marks the end
+ * of the journal and a record whose checksum doesn't match (torn write) is dropped with the following ones.
+ * Results are not kept in the heap, {@link #read(int, int)} copies them from the mapping when fetched.
+ */
+final class JobJournal implements AutoCloseable {
+    static final byte SUBMITTED = 1;
+    static final byte COMPLETED = 2;
+    static final byte FAILED = 3;
+
+    private static final int HEADER = Integer.BYTES * 2;
+
+    private final Path file;
+    private final int initialSize;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    JobJournal(final Path file, final int initialSize) {
+        this.file = file;
+        this.initialSize = initialSize;
+        try {
+            channel = FileChannel.open(file, CREATE, READ, WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialSize, channel.size()));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't open job journal " + file, e);
+        }
+    }
+
+    /**
+     * @param consumer the callback receiving the valid records in order, their payload is not read.
+     */
+    synchronized void replay(final Consumer<Record> consumer) {
+        position = 0;
+        final CRC32 crc = new CRC32();
+        while (position + HEADER <= buffer.capacity()) {
+            final int size = buffer.getInt(position);
+            if (size <= 0 || position + HEADER + size > buffer.capacity()) {
+                break;
+            }
+            final ByteBuffer body = slice(position + HEADER, size);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            consumer.accept(decode(body));
+            position += HEADER + size;
+        }
+        // clear a torn record so a later shorter record doesn't end before its garbage
+        if (position + HEADER <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    /**
+     * @param record the record to append.
+     * @return the position of the record payload in the journal.
+     */
+    synchronized int append(final Record record) {
+        final byte[] body = encode(record);
+        ensureCapacity(HEADER + body.length + Integer.BYTES);
+        final int start = position;
+        write(buffer, start, body);
+        buffer.putInt(start + HEADER + body.length, 0); // end marker
+        buffer.force();
+        position += HEADER + body.length;
+        return start + HEADER + body.length - payloadLength(record);
+    }
+
+    /**
+     * @param size the size of a record payload.
+     * @return true if a record with this payload can be appended without growing the journal.
+     */
+    synchronized boolean fits(final int size) {
+        return position + HEADER + 64 + size <= buffer.capacity();
+    }
+
+    synchronized byte[] read(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        slice(offset, length).get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Replaces the journal by the given records, the payload position of each record is set in its {@code offset}.
+     *
+     * @param records the records to keep with their payload.
+     */
+    synchronized void rewrite(final List<Record> records) {
+        final Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+        try {
+            final byte[][] bodies = records.stream().map(JobJournal::encode).toArray(byte[][]::new);
+            final long needed = Stream.of(bodies).mapToLong(it -> HEADER + it.length).sum() + Integer.BYTES;
+            final FileChannel newChannel = FileChannel.open(compacted, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+            final MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(initialSize, Math.min(Integer.MAX_VALUE, needed * 2)));
+            int newPosition = 0;
+            for (int i = 0; i < bodies.length; i++) {
+                write(newBuffer, newPosition, bodies[i]);
+                newPosition += HEADER + bodies[i].length;
+                records.get(i).offset = newPosition - payloadLength(records.get(i));
+            }
+            newBuffer.force();
+            Files.move(compacted, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            channel.close();
+            channel = newChannel;
+            buffer = newBuffer;
+            position = newPosition;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't compact job journal " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't close job journal " + file, e);
+        }
+    }
+
+    private void ensureCapacity(final int size) {
+        if (position + size <= buffer.capacity()) {
+            return;
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.min(Integer.MAX_VALUE, Math.max((long) buffer.capacity() * 2, (long) position + size)));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't grow job journal " + file, e);
+        }
+    }
+
+    private ByteBuffer slice(final int offset, final int length) {
+        final ByteBuffer mapping = buffer; // MappedByteBuffer#duplicate() only exists since java 13
+        final ByteBuffer slice = mapping.duplicate();
+        slice.limit(offset + length).position(offset);
+        return slice;
+    }
+
+    // body then checksum then size so a record is only visible once fully written
+    private static void write(final ByteBuffer target, final int start, final byte[] body) {
+        final CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        final ByteBuffer out = target.duplicate();
+        out.position(start + HEADER);
+        out.put(body);
+        target.putInt(start + Integer.BYTES, (int) crc.getValue());
+        target.putInt(start, body.length);
+    }
+
+    private static int payloadLength(final Record record) {
+        return record.type == SUBMITTED ? 0 : record.payload.length;
+    }
+
+    private static byte[] encode(final Record record) {
+        final byte[] id = record.id.getBytes(UTF_8);
+        final byte[] method = record.type == SUBMITTED ? record.method.getBytes(UTF_8) : null;
+        final ByteBuffer body = ByteBuffer.allocate(1 + Long.BYTES + Short.BYTES + id.length +
+                (method != null ? Short.BYTES + method.length : 0) +
+                (record.type == FAILED ? Integer.BYTES : 0) +
+                (record.type != SUBMITTED ? Integer.BYTES + record.payload.length : 0));
+        body.put(record.type).putLong(record.timestamp).putShort((short) id.length).put(id);
+        if (method != null) {
+            body.putShort((short) method.length).put(method);
+        }
+        if (record.type == FAILED) {
+            body.putInt(record.code);
+        }
+        if (record.type != SUBMITTED) {
+            body.putInt(record.payload.length).put(record.payload);
+        }
+        return body.array();
+    }
+
+    // the body shares the journal indices so its position is the absolute payload offset
+    private static Record decode(final ByteBuffer body) {
+        final Record record = new Record();
+        record.type = body.get();
+        record.timestamp = body.getLong();
+        record.id = string(body, body.getShort() & 0xffff);
+        if (record.type == SUBMITTED) {
+            record.method = string(body, body.getShort() & 0xffff);
+        }
+        if (record.type == FAILED) {
+            record.code = body.getInt();
+        }
+        if (record.type != SUBMITTED) {
+            record.length = body.getInt();
+            record.offset = body.position();
+        }
+        return record;
+    }
+
+    private static String string(final ByteBuffer body, final int length) {
+        final byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    static final class Record {
+        byte type;
+        long timestamp;
+        String id;
+        String method;
+        int code;
+        byte[] payload; // only set when appending or rewriting
+        int offset;
+        int length;
+
+        static Record submitted(final String id, final String method, final long timestamp) {
+            final Record record = new Record();
+            record.type = SUBMITTED;
+            record.id = id;
+            record.method = method;
+            record.timestamp = timestamp;
+            return record;
+        }
+
+        static Record completed(final String id, final long timestamp, final byte[] payload) {
+            final Record record = new Record();
+            record.type = COMPLETED;
+            record.id = id;
+            record.timestamp = timestamp;
+            record.payload = payload;
+            record.length = payload.length;
+            return record;
+        }
+
+        static Record failed(final String id, final long timestamp, final int code, final byte[] message) {
+            final Record record = completed(id, timestamp, message);
+            record.type = FAILED;
+            record.code = code;
+            return record;
+        }
+    }
+}
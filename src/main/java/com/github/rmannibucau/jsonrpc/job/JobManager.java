@@ -0,0 +1,298 @@
+package com.github.rmannibucau.jsonrpc.job;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+
+/**
+ * Executes the job methods in background and keeps their results in a {@link JobJournal}.
+ *
+ * Results are serialized once, when the job completes, and survive a restart until their TTL expires.
+ * Jobs still running when the server stops are reported as failed after the restart.
+ * Expired jobs are dropped when the journal is opened and when it is full (before growing it).
+ */
+public class JobManager implements AutoCloseable {
+    public static final String STATUS_METHOD = "job.status";
+    public static final String RESULT_METHOD = "job.result";
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final JobJournal journal;
+    private final JsonProvider provider;
+    private final ExecutorService executor;
+    private final long ttl;
+    private volatile boolean closed;
+
+    /**
+     * @param directory the directory of the journal.
+     * @param ttl how long the results are kept in milliseconds.
+     * @param threads the number of threads executing the jobs.
+     * @param journalSize the initial size of the journal in bytes.
+     * @param provider the JSON-P provider reading the results.
+     */
+    public JobManager(final Path directory, final long ttl, final int threads, final int journalSize,
+                      final JsonProvider provider) {
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't create job directory " + directory, e);
+        }
+        this.journal = new JobJournal(directory.resolve("jobs.journal"), journalSize);
+        this.provider = provider;
+        this.ttl = ttl;
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            final Thread thread = new Thread(task, JobManager.class.getName() + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    /**
+     * @param method the JSON-RPC method of the job.
+     * @param task the execution taking the job id and returning the result, failures should be {@link JsonRpcException}.
+     * @return the job id.
+     */
+    public String submit(final String method, final Function<String, CompletionStage<JsonValue>> task) {
+        final Job job = new Job(UUID.randomUUID().toString(), method, System.currentTimeMillis());
+        synchronized (journal) {
+            journal.append(JobJournal.Record.submitted(job.id, job.method, job.submitted));
+            jobs.put(job.id, job);
+        }
+        try {
+            executor.execute(() -> {
+                CompletionStage<JsonValue> result;
+                try {
+                    result = task.apply(job.id);
+                } catch (final RuntimeException re) {
+                    final CompletableFuture<JsonValue> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(re);
+                    result = failed;
+                }
+                result.whenComplete((value, error) -> {
+                    if (error == null) {
+                        complete(job, value);
+                    } else {
+                        fail(job, CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error);
+                    }
+                });
+            });
+        } catch (final RejectedExecutionException ree) {
+            fail(job, new JsonRpcException(-32603, "Server shutting down"));
+        }
+        return job.id;
+    }
+
+    /**
+     * @param id the job id.
+     * @return the state of the job.
+     */
+    public JobStatus getStatus(final String id) {
+        final Job job = find(id);
+        final JobStatus status = new JobStatus();
+        status.setId(job.id);
+        status.setMethod(job.method);
+        status.setSubmitted(job.submitted);
+        status.setState(job.state);
+        if (job.state != JobStatus.State.RUNNING) {
+            status.setCompleted(job.completed);
+        }
+        if (job.state == JobStatus.State.FAILED) {
+            status.setErrorCode(job.code);
+            status.setErrorMessage(job.message);
+        }
+        return status;
+    }
+
+    /**
+     * @param id the job id.
+     * @return the result of the job, its error is thrown if it failed.
+     */
+    public JsonValue getResult(final String id) {
+        final Job job = find(id);
+        switch (job.state) {
+            case RUNNING:
+                throw new JsonRpcException(-32001, "Job '" + id + "' is running");
+            case FAILED:
+                throw new JsonRpcException(job.code, job.message);
+            default:
+                final byte[] bytes;
+                synchronized (journal) {
+                    bytes = journal.read(job.offset, job.length);
+                }
+                try (final JsonReader reader = provider.createReader(new ByteArrayInputStream(bytes))) {
+                    return reader.readValue();
+                }
+        }
+    }
+
+    /**
+     * Rewrites the journal without the expired jobs.
+     */
+    public void compact() {
+        final long expiredBefore = System.currentTimeMillis() - ttl;
+        synchronized (journal) {
+            jobs.values().removeIf(job -> job.isExpired(expiredBefore));
+            final List<Job> live = jobs.values().stream().sorted(comparingLong(job -> job.submitted)).collect(toList());
+            final List<JobJournal.Record> records = new ArrayList<>(live.size() * 2);
+            final List<JobJournal.Record> completions = new ArrayList<>(live.size());
+            for (final Job job : live) {
+                records.add(JobJournal.Record.submitted(job.id, job.method, job.submitted));
+                if (job.state == JobStatus.State.RUNNING) {
+                    completions.add(null);
+                    continue;
+                }
+                final JobJournal.Record completion = job.state == JobStatus.State.COMPLETED ?
+                        JobJournal.Record.completed(job.id, job.completed, journal.read(job.offset, job.length)) :
+                        JobJournal.Record.failed(job.id, job.completed, job.code, job.message.getBytes(UTF_8));
+                records.add(completion);
+                completions.add(completion);
+            }
+            journal.rewrite(records);
+            for (int i = 0; i < live.size(); i++) {
+                final JobJournal.Record completion = completions.get(i);
+                if (completion != null) {
+                    live.get(i).offset = completion.offset;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        synchronized (journal) {
+            journal.close();
+        }
+    }
+
+    private void complete(final Job job, final JsonValue value) {
+        final byte[] payload = (value == null ? JsonValue.NULL : value).toString().getBytes(UTF_8);
+        synchronized (journal) {
+            if (closed) { // reported as interrupted after the restart
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            if (!journal.fits(payload.length)) {
+                compact();
+            }
+            job.offset = journal.append(JobJournal.Record.completed(job.id, now, payload));
+            job.length = payload.length;
+            job.completed = now;
+            job.state = JobStatus.State.COMPLETED;
+        }
+    }
+
+    private void fail(final Job job, final Throwable error) {
+        final JsonRpcException exception = JsonRpcException.class.isInstance(error) ?
+                JsonRpcException.class.cast(error) : new JsonRpcException(-32603, error.getMessage());
+        final String message = String.valueOf(exception.getMessage());
+        synchronized (journal) {
+            if (closed) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            final byte[] payload = message.getBytes(UTF_8);
+            if (!journal.fits(payload.length)) {
+                compact();
+            }
+            job.offset = journal.append(JobJournal.Record.failed(job.id, now, exception.getCode(), payload));
+            job.length = payload.length;
+            job.code = exception.getCode();
+            job.message = message;
+            job.completed = now;
+            job.state = JobStatus.State.FAILED;
+        }
+    }
+
+    private Job find(final String id) {
+        final Job job = id == null ? null : jobs.get(id);
+        if (job == null || job.isExpired(System.currentTimeMillis() - ttl)) {
+            throw new JsonRpcException(-32602, "Unknown job '" + id + "'");
+        }
+        return job;
+    }
+
+    private void load() {
+        journal.replay(record -> {
+            switch (record.type) {
+                case JobJournal.SUBMITTED:
+                    jobs.put(record.id, new Job(record.id, record.method, record.timestamp));
+                    break;
+                case JobJournal.COMPLETED:
+                case JobJournal.FAILED: {
+                    final Job job = jobs.get(record.id);
+                    if (job == null) {
+                        break;
+                    }
+                    job.completed = record.timestamp;
+                    job.offset = record.offset;
+                    job.length = record.length;
+                    if (record.type == JobJournal.COMPLETED) {
+                        job.state = JobStatus.State.COMPLETED;
+                    } else {
+                        job.state = JobStatus.State.FAILED;
+                        job.code = record.code;
+                        job.message = new String(journal.read(record.offset, record.length), UTF_8);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown job record type: " + record.type);
+            }
+        });
+        jobs.values().stream()
+                .filter(job -> job.state == JobStatus.State.RUNNING)
+                .collect(toList())
+                .forEach(job -> fail(job, new JsonRpcException(-32603, "Job interrupted by a restart")));
+        compact();
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String method;
+        private final long submitted;
+        private volatile JobStatus.State state = JobStatus.State.RUNNING;
+        private volatile long completed;
+        private volatile int code;
+        private volatile String message;
+        private volatile int offset;
+        private volatile int length;
+
+        private Job(final String id, final String method, final long submitted) {
+            this.id = id;
+            this.method = method;
+            this.submitted = submitted;
+        }
+
+        private boolean isExpired(final long expiredBefore) {
+            return state != JobStatus.State.RUNNING && completed < expiredBefore;
+        }
+    }
+}
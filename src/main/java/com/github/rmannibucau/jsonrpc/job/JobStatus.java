@@ -0,0 +1,83 @@
+package com.github.rmannibucau.jsonrpc.job;
+
+/**
+ * The state of a job as returned by {@code job.status}.
+ */
+public class JobStatus {
+    private String id;
+    private String method;
+    private State state;
+    private long submitted;
+    private Long completed;
+    private Integer errorCode;
+    private String errorMessage;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(final String method) {
+        this.method = method;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(final State state) {
+        this.state = state;
+    }
+
+    /**
+     * @return the submission date in epoch milliseconds.
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(final long submitted) {
+        this.submitted = submitted;
+    }
+
+    /**
+     * @return the completion date in epoch milliseconds, {@code null} while the job runs.
+     */
+    public Long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(final Long completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * @return the JSON-RPC error code of a failed job.
+     */
+    public Integer getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(final Integer errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(final String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+// the calls of a batch to the same method having a bulk form, the first executed call invokes it for all of them
+final class BulkCall {
+    private final Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> executor;
+    private final List<JsonStructure> parameters = new ArrayList<>();
+    private List<CompletionStage<JsonValue>> results;
+
+    private BulkCall(final Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> executor) {
+        this.executor = executor;
+    }
+
+    private synchronized CompletionStage<JsonValue> get(final int index) {
+        if (results == null) {
+            results = executor.apply(parameters);
+        }
+        return results.get(index);
+    }
+
+    /**
+     * @param batch the batch request.
+     * @param executors the bulk executor of a call, {@code null} if it has none or is invalid.
+     * @return the slot of each call of the batch (null for the ones executed alone), {@code null} if there is no bulk call.
+     */
+    static Slot[] group(final JsonArray batch,
+                        final Function<JsonObject, Function<List<JsonStructure>, List<CompletionStage<JsonValue>>>> executors) {
+        if (batch.size() < 2) {
+            return null;
+        }
+        Map<Function<?, ?>, List<Integer>> calls = null;
+        final List<Function<List<JsonStructure>, List<CompletionStage<JsonValue>>>> found = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final JsonValue value = batch.get(i);
+            if (value.getValueType() != JsonValue.ValueType.OBJECT) {
+                continue;
+            }
+            final Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> executor =
+                    executors.apply(value.asJsonObject());
+            if (executor == null) {
+                continue;
+            }
+            if (calls == null) {
+                calls = new HashMap<>();
+            }
+            final List<Integer> indices = calls.computeIfAbsent(executor, k -> new ArrayList<>());
+            if (indices.isEmpty()) {
+                found.add(executor);
+            }
+            indices.add(i);
+        }
+        if (calls == null) {
+            return null;
+        }
+        Slot[] slots = null;
+        for (final Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> executor : found) {
+            final List<Integer> indices = calls.get(executor);
+            if (indices.size() < 2) { // nothing to share
+                continue;
+            }
+            if (slots == null) {
+                slots = new Slot[batch.size()];
+            }
+            final BulkCall call = new BulkCall(executor);
+            for (final int index : indices) {
+                final JsonValue params = batch.get(index).asJsonObject().get("params");
+                slots[index] = new Slot(call, call.parameters.size());
+                call.parameters.add(JsonStructure.class.isInstance(params) ? JsonStructure.class.cast(params) : null);
+            }
+        }
+        return slots;
+    }
+
+    static final class Slot implements Supplier<CompletionStage<JsonValue>> {
+        private final BulkCall call;
+        private final int index;
+
+        private Slot(final BulkCall call, final int index) {
+            this.call = call;
+            this.index = index;
+        }
+
+        @Override
+        public CompletionStage<JsonValue> get() {
+            return call.get(index);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+import com.github.rmannibucau.jsonrpc.tracing.TraceParent;
+
+/**
+ * A JSON-RPC call (a batch element for batches).
+ *
+ * An endpoint can get it either declaring a parameter of this type or calling {@link #current()}
+ * in the invocation thread.
+ */
+public class CallContext {
+    private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+    private final RequestContext request;
+    private final String method;
+    private final String id;
+    private final long[] durations = new long[Phase.values().length];
+    private TraceParent traceParent;
+    private long deadline;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private Collection<Runnable> cancelCallbacks; // guarded by cancelled
+
+    public CallContext(final RequestContext request, final String method, final String id) {
+        this.request = request;
+        this.method = method;
+        this.id = id;
+        this.deadline = request.getDeadline();
+        request.register(this);
+    }
+
+    public RequestContext getRequest() {
+        return request;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the span of this call, child of the incoming {@code traceparent} or a new trace if there is none.
+     * Use its {@code toString()} to propagate it to downstream services.
+     */
+    public TraceParent getTraceParent() {
+        if (traceParent == null) {
+            final TraceParent parent = request.getTraceParent();
+            traceParent = parent != null ? parent.newChild() : TraceParent.newRoot();
+        }
+        return traceParent;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} deadline of this call, {@code 0} if none.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(final long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return true if the deadline passed, long running endpoints can poll it to stop early.
+     */
+    public boolean isExpired() {
+        return DeadlineScheduler.isExpired(deadline);
+    }
+
+    /**
+     * @return true if the client gave up this call, long running endpoints should poll it to stop early.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * @param callback called when the call is cancelled (immediately if already cancelled),
+     *                 typically to cancel a JDBC statement or an HTTP call.
+     */
+    public void onCancel(final Runnable callback) {
+        synchronized (cancelled) {
+            if (!cancelled.get()) {
+                if (cancelCallbacks == null) {
+                    cancelCallbacks = new ArrayList<>(2);
+                }
+                cancelCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * @return true if this invocation cancelled the call, false if it was already cancelled.
+     */
+    public boolean cancel() {
+        final Collection<Runnable> callbacks;
+        synchronized (cancelled) {
+            if (!cancelled.compareAndSet(false, true)) {
+                return false;
+            }
+            callbacks = cancelCallbacks;
+            cancelCallbacks = null;
+        }
+        if (callbacks != null) {
+            callbacks.forEach(callback -> {
+                try {
+                    callback.run();
+                } catch (final RuntimeException re) {
+                    Logger.getLogger(CallContext.class.getName()).log(Level.WARNING, re.getMessage(), re);
+                }
+            });
+        }
+        return true;
+    }
+
+    public void record(final Phase phase, final long startNanos) {
+        addDuration(phase, System.nanoTime() - startNanos);
+    }
+
+    public void addDuration(final Phase phase, final long durationNanos) {
+        durations[phase.ordinal()] += durationNanos;
+        request.addDuration(phase, durationNanos);
+    }
+
+    /**
+     * @param phase the phase.
+     * @return the duration in nanoseconds.
+     */
+    public long getDuration(final Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * @return the call executed by the current thread, {@code null} outside of an invocation.
+     */
+    public static CallContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds this context to the current thread, mainly for transports and the handler.
+     *
+     * @return the previously bound context to restore with {@link #restore(CallContext)}.
+     */
+    public CallContext bind() {
+        final CallContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(final CallContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// only used for the requests sampled by the traffic capture
+final class CapturingReader extends FilterReader {
+    private final StringBuilder captured = new StringBuilder(256);
+
+    CapturingReader(final Reader delegate) {
+        super(delegate);
+    }
+
+    String getCaptured() {
+        return captured.toString();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int c = super.read();
+        if (c >= 0) {
+            captured.append((char) c);
+        }
+        return c;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        final int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            captured.append(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final char[] skipped = new char[(int) Math.min(n, 8192)];
+        final int read = read(skipped, 0, skipped.length);
+        return Math.max(read, 0);
+    }
+}
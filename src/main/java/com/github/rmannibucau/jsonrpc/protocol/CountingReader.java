@@ -0,0 +1,43 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// only used when a flight recorder event needs the payload size
+final class CountingReader extends FilterReader {
+    private long count;
+
+    CountingReader(final Reader delegate) {
+        super(delegate);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int c = super.read();
+        if (c >= 0) {
+            count++;
+        }
+        return c;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        final int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+// only used when a flight recorder event needs the payload size
+final class CountingWriter extends FilterWriter {
+    private long count;
+
+    CountingWriter(final Writer delegate) {
+        super(delegate);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        super.write(c);
+        count++;
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) throws IOException {
+        super.write(buffer, offset, length);
+        count += length;
+    }
+
+    @Override
+    public void write(final String string, final int offset, final int length) throws IOException {
+        super.write(string, offset, length);
+        count += length;
+    }
+}
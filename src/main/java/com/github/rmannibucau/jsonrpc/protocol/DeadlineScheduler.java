@@ -0,0 +1,120 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shared executor running the calls by priority class (highest first) then earliest deadline first,
+ * calls without deadline run after the ones having one and calls are FIFO otherwise.
+ *
+ * Calls whose deadline passed while queued are not invoked, their stage fails with a timeout error.
+ */
+public class DeadlineScheduler implements AutoCloseable {
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+
+    public DeadlineScheduler(final int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadFactory threadFactory = task -> {
+            final Thread thread = new Thread(task, DeadlineScheduler.class.getName() + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // unbounded queue so the core size is the max size
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new PriorityBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * @param deadline the {@link System#nanoTime()} deadline, {@code 0} if none.
+     * @param priority the priority class, higher values run first.
+     * @param task the call.
+     * @param <T> the result type.
+     * @return the call result.
+     */
+    public <T> CompletionStage<T> submit(final long deadline, final int priority, final Supplier<CompletionStage<T>> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(new Call<>(deadline, priority, sequence.getAndIncrement(), task, result));
+        return result;
+    }
+
+    /**
+     * @return the number of calls waiting for a thread.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow().forEach(it -> Call.class.cast(it).result
+                .completeExceptionally(new JsonRpcException(-32603, "Server shutting down")));
+    }
+
+    static boolean isExpired(final long deadline) {
+        return deadline != 0 && System.nanoTime() - deadline >= 0;
+    }
+
+    private static class Call<T> implements Runnable, Comparable<Call<?>> {
+        private final long deadline;
+        private final int priority;
+        private final long sequence;
+        private final Supplier<CompletionStage<T>> task;
+        private final CompletableFuture<T> result;
+
+        private Call(final long deadline, final int priority, final long sequence,
+                     final Supplier<CompletionStage<T>> task, final CompletableFuture<T> result) {
+            this.deadline = deadline;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) { // cancelled
+                return;
+            }
+            if (isExpired(deadline)) {
+                result.completeExceptionally(new JsonRpcException(-32603, "Deadline exceeded"));
+                return;
+            }
+            try {
+                task.get().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (final RuntimeException re) {
+                result.completeExceptionally(re);
+            }
+        }
+
+        @Override
+        public int compareTo(final Call<?> other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            if (deadline != other.deadline) {
+                if (deadline == 0) {
+                    return 1;
+                }
+                if (other.deadline == 0) {
+                    return -1;
+                }
+                return deadline - other.deadline < 0 ? -1 : 1; // nanoTime can overflow
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calls being executed for a persistent connection, it enables {@code $/cancelRequest} to find them by id.
+ */
+public class InFlightCalls {
+    private final Map<String, CallContext> calls = new ConcurrentHashMap<>();
+
+    void register(final CallContext call) {
+        calls.put(call.getId(), call);
+    }
+
+    void unregister(final CallContext call) {
+        calls.remove(call.getId(), call);
+    }
+
+    /**
+     * @param id the call identifier.
+     * @return true if a running call was cancelled.
+     */
+    public boolean cancel(final String id) {
+        final CallContext call = calls.remove(id);
+        return call != null && call.cancel();
+    }
+
+    /**
+     * Cancels all the running calls, typically when the connection is lost.
+     */
+    public void cancelAll() {
+        calls.values().forEach(CallContext::cancel);
+        calls.clear();
+    }
+}
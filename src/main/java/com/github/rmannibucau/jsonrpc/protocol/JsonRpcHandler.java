@@ -5,64 +5,198 @@ import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
 
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.json.JsonString;
 import javax.json.JsonStructure;
 import javax.json.JsonValue;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbException;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
 
+import com.github.rmannibucau.jsonrpc.capture.TrafficCapture;
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.codec.JsonbCodec;
 import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.gateway.ShardedGateway;
+import com.github.rmannibucau.jsonrpc.impl.AdaptiveDispatch;
 import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
 import com.github.rmannibucau.jsonrpc.qualifier.JsonRpc;
+import com.github.rmannibucau.jsonrpc.tracing.FlightRecorder;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+import com.github.rmannibucau.jsonrpc.tracing.Tracer;
 
 @ApplicationScoped
 public class JsonRpcHandler {
+    /**
+     * Reserved method cancelling a running call of the same connection (persistent transports only).
+     */
+    public static final String CANCEL_REQUEST = "$/cancelRequest";
+
     @Inject
     private Configuration configuration;
 
     @Inject
     @JsonRpc
-    private Jsonb jsonb;
+    private JsonRpcCodec codec;
 
     @Inject
     private HandlerRegistry registry;
 
+    @Inject
+    private Tracer tracer = Tracer.NOOP;
+
+    private DeadlineScheduler scheduler;
+
+    private ShardedGateway gateway;
+
+    private TrafficCapture capture;
+
+    @PostConstruct
+    private void init() {
+        if (scheduler == null && configuration.getSchedulerThreads() > 0) {
+            scheduler = new DeadlineScheduler(configuration.getSchedulerThreads());
+        }
+        if (gateway == null && configuration.getGatewayNodes() != null && !configuration.getGatewayNodes().trim().isEmpty()) {
+            gateway = new ShardedGateway(
+                    Stream.of(configuration.getGatewayNodes().split(","))
+                            .map(String::trim)
+                            .filter(it -> !it.isEmpty())
+                            .collect(toList()),
+                    configuration.getGatewaySelf(), configuration.getGatewayVirtualNodes(), configuration.getGatewayThreads(),
+                    configuration.getGatewayConnectTimeout(), configuration.getTimeout(), JsonProvider.provider());
+        }
+        if (capture == null && configuration.getCaptureFile() != null) {
+            capture = new TrafficCapture(Paths.get(configuration.getCaptureFile()), configuration.getCaptureSampleRate(),
+                    configuration.getCaptureQueueSize(), configuration.getCaptureMaxSize());
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        if (gateway != null) {
+            gateway.close();
+        }
+        if (capture != null) {
+            capture.close();
+        }
+    }
+
     public void handle(final Reader reader,
                        final BiConsumer<Integer, Consumer<Writer>> responseHandler,
                        final Supplier<Optional<Runnable>> asyncHandler) {
-        final JsonStructure request;
-        try {
-            request = readRequest(reader);
-        } catch (final JsonbException jsonbEx) {
-            sendResponse(responseHandler, createResponse(-32700, jsonbEx.getMessage()));
-            return;
+        handle(reader, new RequestContext(), responseHandler, asyncHandler);
+    }
+
+    public void handle(final Reader input, final RequestContext context,
+                       final BiConsumer<Integer, Consumer<Writer>> responseHandler,
+                       final Supplier<Optional<Runnable>> asyncHandler) {
+        final Reader reader;
+        if (isCaptured(context)) {
+            final CapturingReader capturing = new CapturingReader(input);
+            context.capturedRequest = capturing::getCaptured;
+            reader = capturing;
+        } else {
+            reader = input;
+        }
+        final String method;
+        final CompletionStage<?> chain;
+        if (registry.hasStreamedMethods() || configuration.isPipelinedBatches()) {
+            final AtomicReference<String> methodRef = new AtomicReference<>();
+            try {
+                chain = readStreamed(reader, context, methodRef);
+            } catch (final JsonRpcException limitEx) {
+                sendResponse(responseHandler, createResponse(limitEx.getCode(), limitEx.getMessage()), null, context);
+                return;
+            } catch (final JsonException | JsonbException jsonEx) {
+                sendResponse(responseHandler, createResponse(-32700, jsonEx.getMessage()), null, context);
+                return;
+            }
+            method = methodRef.get();
+            final CompletableFuture<?> future = chain.toCompletableFuture();
+            if (future.isDone() && !future.isCompletedExceptionally() && future.getNow(null) != null) { // sync fast path
+                sendResponse(responseHandler, future.getNow(null), method, context);
+                return;
+            }
+        } else {
+            final long parseStart = System.nanoTime();
+            final Object parseEvent = FlightRecorder.begin(FlightRecorder.REQUEST_PARSED);
+            final CountingReader counting = parseEvent == null ? null : new CountingReader(reader);
+            final JsonStructure request;
+            try {
+                request = readRequest(counting == null ? reader : counting);
+            } catch (final JsonRpcException limitEx) {
+                context.record(Phase.PARSE, parseStart);
+                FlightRecorder.commit(parseEvent, null, limitEx.getCode(), 0, counting == null ? 0 : counting.getCount(), 0);
+                sendResponse(responseHandler, createResponse(limitEx.getCode(), limitEx.getMessage()), null, context);
+                return;
+            } catch (final JsonException | JsonbException jsonEx) {
+                context.record(Phase.PARSE, parseStart);
+                FlightRecorder.commit(parseEvent, null, -32700, 0, counting == null ? 0 : counting.getCount(), 0);
+                sendResponse(responseHandler, createResponse(-32700, jsonEx.getMessage()), null, context);
+                return;
+            }
+            context.record(Phase.PARSE, parseStart);
+            method = findMethod(request);
+            if (parseEvent != null) {
+                FlightRecorder.commit(parseEvent, method, 0,
+                        request.getValueType() == JsonValue.ValueType.ARRAY ? request.asJsonArray().size() : 1,
+                        counting.getCount(), 0);
+            }
+            if (request.getValueType() == JsonValue.ValueType.OBJECT) {
+                final Response response = handleSync(request.asJsonObject(), context);
+                if (response != null) { // no async context nor future needed
+                    sendResponse(responseHandler, response, method, context);
+                    return;
+                }
+            }
+            chain = prepareResultChain(request, context);
         }
 
         final Optional<Runnable> asyncCallback = asyncHandler.get();
-        final CompletionStage<?> promise = prepareResultChain(request).handle((value, error) -> {
+        final CompletionStage<?> promise = chain.handle((value, error) -> {
             try {
                 if (value != null) {
-                    sendResponse(responseHandler, value);
+                    sendResponse(responseHandler, value, method, context);
                 } else {
-                    sendResponse(responseHandler, createResponse(-32603, error.getMessage()));
+                    sendResponse(responseHandler, createResponse(-32603, error.getMessage()), method, context);
                 }
             } finally {
                 asyncCallback.ifPresent(Runnable::run);
@@ -77,48 +211,387 @@ public class JsonRpcHandler {
             } catch (final ExecutionException e) {
                 throw new IllegalStateException(e.getCause());
             } catch (final TimeoutException e) {
-                sendResponse(responseHandler, createResponse(-32603, "Execution timed-out"));
+                context.cancel();
+                sendResponse(responseHandler, createResponse(-32603, "Execution timed-out"), method, context);
                 asyncCallback.ifPresent(Runnable::run);
             }
         }
     }
 
+    /**
+     * Executes a single request of a synchronous method (not returning a {@code CompletionStage})
+     * in the caller thread without any intermediate future.
+     *
+     * @param request the request.
+     * @param requestContext the request context.
+     * @return the response or {@code null} if the request must go through {@link #handleRequest(JsonObject, RequestContext)}.
+     */
+    public Response handleSync(final JsonObject request, final RequestContext requestContext) {
+        final JsonValue methodValue = request.get("method");
+        final String method = JsonString.class.isInstance(methodValue) ? JsonString.class.cast(methodValue).getString() : null;
+        final HandlerRegistry.JsonRpcMethodRegistration registration = method == null ? null : registry.getHandlers().get(method);
+        if (registration == null) {
+            return null;
+        }
+        final Function<JsonStructure, JsonValue> fn = registration.getSyncExecutor();
+        final AdaptiveDispatch dispatch = registration.getDispatch();
+        if (fn == null || (scheduler != null && !dispatch.isInline()) || findRemoteOwner(request, requestContext) != null) {
+            return null;
+        }
+
+        final long validateStart = System.nanoTime();
+        final Optional<Response> invalid = doValidate(request);
+        if (invalid.isPresent()) {
+            requestContext.record(Phase.VALIDATE, validateStart);
+            return invalid.get();
+        }
+        final JsonString idValue = request.getJsonString("id");
+        final String id = idValue == null ? null : idValue.getString();
+        final JsonStructure params = JsonStructure.class.cast(request.get("params"));
+        final CallContext context = new CallContext(requestContext, method, id);
+        final JsonValue timeout = request.get("$timeout");
+        if (JsonNumber.class.isInstance(timeout)) {
+            context.setDeadline(RequestContext.toDeadline(requestContext.getStart(), JsonNumber.class.cast(timeout).longValue()));
+        }
+        context.record(Phase.VALIDATE, validateStart);
+
+        final Response response = newResponse(id);
+        final InFlightCalls inFlightCalls = id == null ? null : requestContext.getInFlightCalls();
+        if (inFlightCalls != null) {
+            inFlightCalls.register(context);
+        }
+        final CallContext previous = context.bind();
+        final long start = System.nanoTime();
+        try {
+            if (context.isExpired()) {
+                throw new JsonRpcException(-32603, "Deadline exceeded");
+            }
+            response.setResult(fn.apply(params));
+        } catch (final RuntimeException re) {
+            onError(response, re);
+        } finally {
+            dispatch.onCall(System.nanoTime() - start, false);
+            CallContext.restore(previous);
+            if (inFlightCalls != null) {
+                inFlightCalls.unregister(context);
+            }
+        }
+        tracer.onCall(context);
+        return response;
+    }
+
     public CompletionStage<Response> handleRequest(final JsonObject request) {
+        return handleRequest(request, new RequestContext());
+    }
+
+    public CompletionStage<Response> handleRequest(final JsonObject request, final RequestContext requestContext) {
+        return handleRequest(request, requestContext, null);
+    }
+
+    private CompletionStage<Response> handleRequest(final JsonObject request, final RequestContext requestContext,
+                                                    final BulkCall.Slot bulk) {
+        final long validateStart = System.nanoTime();
         return doValidate(request)
-            .map(CompletableFuture::completedFuture)
+            .map(response -> {
+                requestContext.record(Phase.VALIDATE, validateStart);
+                return completedFuture(response);
+            })
             .orElseGet(() -> {
-                final Function<JsonStructure, CompletionStage<JsonValue>> fn =
-                        registry.getHandlers().get(request.getString("method"))
-                        .getExecutor();
+                final String method = request.getString("method");
+                if (CANCEL_REQUEST.equals(method)) {
+                    requestContext.record(Phase.VALIDATE, validateStart);
+                    return completedFuture(cancelRequest(request, requestContext));
+                }
+                final String owner = findRemoteOwner(request, requestContext);
+                if (owner != null) {
+                    requestContext.record(Phase.VALIDATE, validateStart);
+                    final String id = ofNullable(request.getJsonString("id")).map(JsonString::getString).orElse(null);
+                    return gateway.forward(owner, request, requestContext).handle((response, error) ->
+                            error == null && JsonObject.class.isInstance(response) ?
+                                    toResponse(response.asJsonObject()) : forwardError(id, owner, error));
+                }
+                final Function<JsonStructure, CompletionStage<JsonValue>> fn = registry.getHandlers().get(method).getExecutor();
                 final String id = ofNullable(request.getJsonString("id")).map(JsonString::getString).orElse(null);
                 final JsonStructure params = ofNullable(request.get("params")).map(JsonStructure.class::cast).orElse(null);
 
-                final Response response = newResponse(id);
-                try {
-                    return fn.apply(params).handle((result, error) -> {
-                        if (error != null) {
-                            onError(response,
-                                CompletionException.class.isInstance(error) && error.getCause() != null ?
-                                    error.getCause() : error);
-                        } else {
-                            response.setResult(result);
-                        }
-                        return response;
-                    })
-                    .toCompletableFuture();
-                } catch (final RuntimeException re) {
-                    onError(response, re);
-                    return completedFuture(response);
+                final CallContext context = new CallContext(requestContext, method, id);
+                ofNullable(request.get("$timeout"))
+                        .filter(JsonNumber.class::isInstance)
+                        .map(JsonNumber.class::cast)
+                        .ifPresent(timeout -> context.setDeadline(RequestContext.toDeadline(
+                                requestContext.getStart(), timeout.longValue())));
+                context.record(Phase.VALIDATE, validateStart);
+                return execute(context, id, () -> schedule(
+                        context, registry.getHandlers().get(method),
+                        bulk == null ? () -> fn.apply(params) : bulk));
+            });
+    }
+
+    private CompletionStage<JsonValue> schedule(final CallContext context,
+                                                final HandlerRegistry.JsonRpcMethodRegistration method,
+                                                final Supplier<CompletionStage<JsonValue>> call) {
+        final AdaptiveDispatch dispatch = method.getDispatch();
+        if (scheduler == null || dispatch.isInline()) {
+            if (context.isExpired()) {
+                throw new JsonRpcException(-32603, "Deadline exceeded");
+            }
+            return dispatch.measure(call, false);
+        }
+        final CompletionStage<JsonValue> stage = scheduler.submit(context.getDeadline(), method.getRegistration().getPriority(), () -> {
+            final CallContext previous = context.bind();
+            try {
+                return dispatch.measure(call, true);
+            } finally {
+                CallContext.restore(previous);
+            }
+        });
+        // a queued call is dropped by the scheduler once its stage is completed
+        context.onCancel(() -> stage.toCompletableFuture().completeExceptionally(cancelled()));
+        return stage;
+    }
+
+    // reserved method, params: {"id": "..."} or ["..."], it only sees the calls of the same connection
+    private Response cancelRequest(final JsonObject request, final RequestContext requestContext) {
+        final Response response = newResponse(ofNullable(request.getJsonString("id")).map(JsonString::getString).orElse(null));
+        final JsonValue params = request.get("params");
+        final JsonValue target = params == null ? null : params.getValueType() == JsonValue.ValueType.OBJECT ?
+                params.asJsonObject().get("id") : params.getValueType() == JsonValue.ValueType.ARRAY &&
+                !params.asJsonArray().isEmpty() ? params.asJsonArray().get(0) : null;
+        if (target == null || (target.getValueType() != JsonValue.ValueType.STRING &&
+                target.getValueType() != JsonValue.ValueType.NUMBER)) {
+            onError(response, new JsonRpcException(-32602, "Missing id parameter"));
+            return response;
+        }
+        final InFlightCalls calls = requestContext.getInFlightCalls();
+        final String id = JsonString.class.isInstance(target) ? JsonString.class.cast(target).getString() : target.toString();
+        response.setResult(calls != null && calls.cancel(id) ? JsonValue.TRUE : JsonValue.FALSE);
+        return response;
+    }
+
+    private static JsonRpcException cancelled() {
+        return new JsonRpcException(-32800, "Request cancelled");
+    }
+
+    private CompletableFuture<Response> execute(final CallContext context, final String id,
+                                              final Supplier<CompletionStage<JsonValue>> call) {
+        final Response response = newResponse(id);
+        final InFlightCalls inFlightCalls = id == null ? null : context.getRequest().getInFlightCalls();
+        if (inFlightCalls != null) {
+            inFlightCalls.register(context);
+        }
+        final CallContext previous = context.bind();
+        try {
+            final CompletableFuture<Response> future = call.get().handle((result, error) -> {
+                if (error != null) {
+                    onError(response,
+                        CompletionException.class.isInstance(error) && error.getCause() != null ?
+                            error.getCause() : error);
+                } else {
+                    response.setResult(result);
+                }
+                tracer.onCall(context);
+                return response;
+            })
+            .toCompletableFuture();
+            // answer right away, a late result of the endpoint is ignored
+            context.onCancel(() -> {
+                if (!future.isDone()) {
+                    final Response cancelled = newResponse(id);
+                    onError(cancelled, cancelled());
+                    future.complete(cancelled);
+                }
+            });
+            return inFlightCalls == null ? future : future.whenComplete((r, e) -> inFlightCalls.unregister(context));
+        } catch (final RuntimeException re) {
+            if (inFlightCalls != null) {
+                inFlightCalls.unregister(context);
+            }
+            onError(response, re);
+            tracer.onCall(context);
+            return completedFuture(response);
+        } finally {
+            CallContext.restore(previous);
+        }
+    }
+
+    // reads the envelope with a parser to invoke methods having streamed parameters while params are still read,
+    // it requires "jsonrpc" and "method" to be before "params" otherwise the request is buffered
+    private CompletionStage<?> readStreamed(final Reader reader, final RequestContext requestContext,
+                                            final AtomicReference<String> methodRef) {
+        long parseStart = System.nanoTime();
+        final Object parseEvent = FlightRecorder.begin(FlightRecorder.REQUEST_PARSED);
+        final CountingReader counting = parseEvent == null ? null : new CountingReader(reader);
+        boolean parsed = false; // the params of a streamed method are read by the method, not part of the parsing
+        try (final JsonParser parser = registry.getJsonProvider().createParser(
+                RequestLimits.limit(counting == null ? reader : counting, configuration))) {
+            final JsonParser.Event first = parser.next();
+            if (first == JsonParser.Event.START_ARRAY && configuration.isPipelinedBatches()) {
+                return readPipelinedBatch(parser, requestContext, parseStart, parseEvent, counting);
+            }
+            if (first != JsonParser.Event.START_OBJECT) { // batch or invalid, buffer it
+                final JsonValue request = RequestLimits.read(registry.getJsonProvider(), parser, first, 0, configuration);
+                requestContext.record(Phase.PARSE, parseStart);
+                commitParsed(parseEvent, counting, null, 0,
+                        request.getValueType() == JsonValue.ValueType.ARRAY ? request.asJsonArray().size() : 1);
+                if (!JsonStructure.class.isInstance(request)) {
+                    return completedFuture(createResponse(-32600, "Unknown request type: " + request.getValueType()));
                 }
+                return prepareResultChain(JsonStructure.class.cast(request), requestContext);
+            }
+
+            final JsonObjectBuilder builder = registry.getJsonProvider().createObjectBuilder();
+            String version = null;
+            String method = null;
+            String id = null;
+            long timeout = -1;
+            CompletionStage<Response> promise = null;
+            while (parser.next() != JsonParser.Event.END_OBJECT) {
+                final String key = parser.getString();
+                final Function<JsonParser, CompletionStage<JsonValue>> executor =
+                        promise == null && method != null && "params".equals(key) &&
+                                configuration.getJsonRpcVersion().equals(version) ?
+                                ofNullable(registry.getHandlers().get(method))
+                                        .map(HandlerRegistry.JsonRpcMethodRegistration::getStreamedExecutor)
+                                        .orElse(null) : null;
+                if (executor != null) {
+                    requestContext.record(Phase.PARSE, parseStart);
+                    commitParsed(parseEvent, counting, method, 0, 1);
+                    parsed = true;
+                    final CallContext context = new CallContext(requestContext, method, id);
+                    if (timeout >= 0) {
+                        context.setDeadline(RequestContext.toDeadline(requestContext.getStart(), timeout));
+                    }
+                    if (context.isExpired()) {
+                        skipValue(parser);
+                        promise = execute(context, id, () -> {
+                            throw new JsonRpcException(-32603, "Deadline exceeded");
+                        });
+                    } else {
+                        promise = execute(context, id, () -> executor.apply(parser));
+                    }
+                    parseStart = System.nanoTime();
+                    continue;
+                }
+                final JsonValue value = RequestLimits.read(registry.getJsonProvider(), parser, parser.next(), 1, configuration);
+                builder.add(key, value);
+                final String string = JsonString.class.isInstance(value) ? JsonString.class.cast(value).getString() : null;
+                switch (key) {
+                    case "jsonrpc":
+                        version = string;
+                        break;
+                    case "method":
+                        method = string;
+                        break;
+                    case "id":
+                        id = string;
+                        break;
+                    case "$timeout":
+                        timeout = JsonNumber.class.isInstance(value) ? JsonNumber.class.cast(value).longValue() : -1;
+                        break;
+                    default:
+                }
+            }
+            requestContext.record(Phase.PARSE, parseStart);
+            if (promise == null) {
+                final JsonObject request = builder.build();
+                methodRef.set(findMethod(request));
+                commitParsed(parseEvent, counting, methodRef.get(), 0, 1);
+                parsed = true;
+                final Response response = handleSync(request, requestContext);
+                return response != null ? completedFuture(response) : handleRequest(request, requestContext);
+            }
+            methodRef.set(method);
+            final String responseId = id; // can be after params
+            return responseId == null ? promise : promise.thenApply(response -> {
+                response.setId(responseId);
+                return response;
             });
+        } catch (final JsonRpcException limitEx) {
+            if (!parsed) {
+                commitParsed(parseEvent, counting, null, limitEx.getCode(), 0);
+            }
+            throw limitEx;
+        } catch (final JsonException | JsonbException jsonEx) {
+            if (!parsed) {
+                commitParsed(parseEvent, counting, null, -32700, 0);
+            }
+            throw jsonEx;
+        }
+    }
+
+    private void commitParsed(final Object parseEvent, final CountingReader counting, final String method,
+                              final int errorCode, final int batchSize) {
+        if (parseEvent != null) {
+            FlightRecorder.commit(parseEvent, method, errorCode, batchSize, counting.getCount(), 0);
+        }
+    }
+
+    // submits each call of the batch once read so its execution overlaps with the upload of the next ones
+    private CompletionStage<?> readPipelinedBatch(final JsonParser parser, final RequestContext requestContext,
+                                                  final long parseStart, final Object parseEvent,
+                                                  final CountingReader counting) {
+        final Object event = FlightRecorder.begin(FlightRecorder.BATCH_COMPLETED);
+        final List<CompletableFuture<Response>> futures = new ArrayList<>();
+        long start = parseStart;
+        try {
+            JsonParser.Event next;
+            while ((next = parser.next()) != JsonParser.Event.END_ARRAY) {
+                RequestLimits.checkBatchSize(futures.size() + 1, configuration);
+                final JsonValue request = RequestLimits.read(registry.getJsonProvider(), parser, next, 1, configuration);
+                requestContext.record(Phase.PARSE, start);
+                futures.add(request.getValueType() == JsonValue.ValueType.OBJECT ?
+                        handleRequest(request.asJsonObject(), requestContext).toCompletableFuture() :
+                        completedFuture(createResponse(-32600, "Batch requests must be JSON objects")));
+                start = System.nanoTime();
+            }
+            requestContext.record(Phase.PARSE, start);
+            commitParsed(parseEvent, counting, null, 0, futures.size());
+        } catch (final RuntimeException re) { // the whole batch is rejected, stop the calls already submitted
+            requestContext.cancel();
+            throw re;
+        }
+        return toBatchResponse(futures.toArray(new CompletableFuture<?>[0]), event);
     }
 
     public void setConfiguration(final Configuration configuration) {
         this.configuration = configuration;
     }
 
-    public void setJsonb(final Jsonb jsonb) { // to use without cdi
-        this.jsonb = jsonb;
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public void setTracer(final Tracer tracer) { // to use without cdi
+        this.tracer = tracer;
+    }
+
+    /**
+     * @param scheduler the executor of the calls, {@code null} to execute them in the transport thread.
+     */
+    public void setScheduler(final DeadlineScheduler scheduler) { // to use without cdi
+        this.scheduler = scheduler;
+    }
+
+    public void setJsonb(final Jsonb jsonb) { // to use without cdi, same as using the default codec
+        this.codec = new JsonbCodec(jsonb, JsonProvider.provider());
+    }
+
+    public void setCodec(final JsonRpcCodec codec) { // to use without cdi
+        this.codec = codec;
+    }
+
+    /**
+     * @param gateway the gateway forwarding the calls of sharded methods, {@code null} to execute all calls locally.
+     */
+    public void setGateway(final ShardedGateway gateway) { // to use without cdi
+        this.gateway = gateway;
+    }
+
+    /**
+     * @param capture the capture sampling the requests, {@code null} to disable it.
+     */
+    public void setCapture(final TrafficCapture capture) { // to use without cdi
+        this.capture = capture;
     }
 
     public void setRegistry(final HandlerRegistry registry) { // to use without cdi
@@ -159,7 +632,7 @@ public class JsonRpcHandler {
         if (method.second != null) {
             return of(method.second);
         }
-        if (!registry.getHandlers().containsKey(method.first)) {
+        if (!registry.getHandlers().containsKey(method.first) && !CANCEL_REQUEST.equals(method.first)) {
             return of(createResponse(-32601, "Unknown method"));
         }
         return empty();
@@ -191,31 +664,265 @@ public class JsonRpcHandler {
     }
 
     public CompletionStage<?> prepareResultChain(final JsonStructure request) {
+        return prepareResultChain(request, new RequestContext());
+    }
+
+    public CompletionStage<?> prepareResultChain(final JsonStructure request, final RequestContext context) {
         switch (request.getValueType()) {
             case OBJECT: // single request
-                return handleRequest(request.asJsonObject());
+                return handleRequest(request.asJsonObject(), context);
             case ARRAY: // batch
-                final CompletableFuture<?>[] futures = request.asJsonArray().stream()
-                        .map(it -> it.getValueType() == JsonValue.ValueType.OBJECT ?
-                                handleRequest(it.asJsonObject()) :
-                                completedFuture(createResponse(-32600, "Batch requests must be JSON objects")))
-                        .map(CompletionStage::toCompletableFuture)
-                        .toArray(CompletableFuture[]::new);
-                return CompletableFuture.allOf(futures)
-                        .thenApply(ignored -> Stream.of(futures)
-                            .map(f -> f.getNow(null))
-                            .toArray(Response[]::new));
+                final Object event = FlightRecorder.begin(FlightRecorder.BATCH_COMPLETED);
+                final JsonArray batch = request.asJsonArray();
+                return toBatchResponse(gateway == null || context.isForwarded() ?
+                        handleBatch(batch, context) : handleShardedBatch(batch, context), event);
             default:
                 return completedFuture(createResponse(-32600, "Unknown request type: " + request.getValueType()));
         }
     }
 
-    private void sendResponse(final BiConsumer<Integer, Consumer<Writer>> handler, final Object response) {
-        handler.accept(200, writer -> jsonb.toJson(response, writer));
+    private CompletableFuture<?>[] handleBatch(final JsonArray batch, final RequestContext context) {
+        final BulkCall.Slot[] bulks = BulkCall.group(batch, this::findBulkExecutor);
+        return IntStream.range(0, batch.size())
+                .mapToObj(i -> batch.get(i).getValueType() == JsonValue.ValueType.OBJECT ?
+                        handleRequest(batch.get(i).asJsonObject(), context, bulks == null ? null : bulks[i]) :
+                        completedFuture(createResponse(-32600, "Batch requests must be JSON objects")))
+                .map(CompletionStage::toCompletableFuture)
+                .toArray(CompletableFuture[]::new);
+    }
+
+    // calls owned by other nodes are forwarded as one batch per node, in parallel with the local ones
+    private CompletableFuture<?>[] handleShardedBatch(final JsonArray batch, final RequestContext context) {
+        final List<Integer> local = new ArrayList<>(batch.size());
+        final Map<String, List<Integer>> remote = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final String owner = batch.get(i).getValueType() == JsonValue.ValueType.OBJECT ?
+                    findRemoteOwner(batch.get(i).asJsonObject(), context) : null;
+            if (owner == null) {
+                local.add(i);
+            } else {
+                remote.computeIfAbsent(owner, k -> new ArrayList<>()).add(i);
+            }
+        }
+        if (remote.isEmpty()) {
+            return handleBatch(batch, context);
+        }
+
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[batch.size()];
+        remote.forEach((node, indices) -> {
+            final CompletableFuture<JsonStructure> forwarded = gateway.forward(node, subBatch(batch, indices), context);
+            for (int i = 0; i < indices.size(); i++) {
+                final int position = i;
+                final JsonValue call = batch.get(indices.get(i));
+                final String id = ofNullable(call.asJsonObject().getJsonString("id")).map(JsonString::getString).orElse(null);
+                futures[indices.get(i)] = forwarded.handle((response, error) -> // nodes answer in the request order
+                        error == null && JsonArray.class.isInstance(response) && response.asJsonArray().size() == indices.size() &&
+                                JsonObject.class.isInstance(response.asJsonArray().get(position)) ?
+                                toResponse(response.asJsonArray().getJsonObject(position)) : forwardError(id, node, error));
+            }
+        });
+        if (!local.isEmpty()) {
+            final CompletableFuture<?>[] localFutures = handleBatch(subBatch(batch, local), context);
+            for (int i = 0; i < localFutures.length; i++) {
+                futures[local.get(i)] = localFutures[i];
+            }
+        }
+        return futures;
+    }
+
+    private JsonArray subBatch(final JsonArray batch, final List<Integer> indices) {
+        final JsonArrayBuilder builder = registry.getJsonProvider().createArrayBuilder();
+        indices.forEach(i -> builder.add(batch.get(i)));
+        return builder.build();
+    }
+
+    // the node owning the shard key of the call, null if the call is executed by this node
+    private String findRemoteOwner(final JsonObject request, final RequestContext context) {
+        if (gateway == null || context.isForwarded()) {
+            return null;
+        }
+        final JsonValue method = request.get("method");
+        final HandlerRegistry.JsonRpcMethodRegistration registration = JsonString.class.isInstance(method) ?
+                registry.getHandlers().get(JsonString.class.cast(method).getString()) : null;
+        final Registration.Parameter shardKey = registration == null ? null : registration.getShardKey();
+        if (shardKey == null) {
+            return null;
+        }
+        final JsonValue params = request.get("params");
+        final JsonValue key = params == null ? null : params.getValueType() == JsonValue.ValueType.OBJECT ?
+                params.asJsonObject().get(shardKey.getName()) : params.getValueType() == JsonValue.ValueType.ARRAY &&
+                params.asJsonArray().size() > shardKey.getPosition() ? params.asJsonArray().get(shardKey.getPosition()) : null;
+        if (key == null || key.getValueType() == JsonValue.ValueType.NULL) { // the binding reports it
+            return null;
+        }
+        return gateway.findRemoteOwner(JsonString.class.isInstance(key) ? JsonString.class.cast(key).getString() : key.toString());
+    }
+
+    private Response toResponse(final JsonObject json) {
+        final Response response = newResponse(ofNullable(json.getJsonString("id")).map(JsonString::getString).orElse(null));
+        response.setResult(json.get("result"));
+        final JsonValue error = json.get("error");
+        if (JsonObject.class.isInstance(error)) {
+            final Response.ErrorResponse errorResponse = new Response.ErrorResponse();
+            final JsonNumber code = error.asJsonObject().getJsonNumber("code");
+            errorResponse.setCode(code == null ? -32603 : code.intValue());
+            errorResponse.setMessage(error.asJsonObject().getString("message", null));
+            errorResponse.setData(error.asJsonObject().get("data"));
+            response.setError(errorResponse);
+        }
+        return response;
+    }
+
+    private Response forwardError(final String id, final String node, final Throwable error) {
+        final Throwable cause = CompletionException.class.isInstance(error) && error.getCause() != null ? error.getCause() : error;
+        final Response response = newResponse(id);
+        onError(response, JsonRpcException.class.isInstance(cause) ? cause : new JsonRpcException(-32603,
+                "Can't forward the call to " + node + ": " + (cause == null ? "invalid response" : cause.getMessage()), cause));
+        return response;
+    }
+
+    private CompletionStage<Response[]> toBatchResponse(final CompletableFuture<?>[] futures, final Object event) {
+        return CompletableFuture.allOf(futures)
+                .thenApply(ignored -> {
+                    final Response[] responses = Stream.of(futures)
+                        .map(f -> f.getNow(null))
+                        .toArray(Response[]::new);
+                    FlightRecorder.commit(event, null, event == null ? 0 : errorCode(responses), responses.length, 0, 0);
+                    return responses;
+                });
+    }
+
+    // the first error code of the responses, 0 if all succeeded
+    static int errorCode(final Response... responses) {
+        for (final Response response : responses) {
+            if (response != null && response.getError() != null) {
+                return response.getError().getCode();
+            }
+        }
+        return 0;
+    }
+
+    private Function<List<JsonStructure>, List<CompletionStage<JsonValue>>> findBulkExecutor(final JsonObject request) {
+        if (doValidate(request).isPresent()) {
+            return null;
+        }
+        return ofNullable(registry.getHandlers().get(request.getString("method")))
+                .map(HandlerRegistry.JsonRpcMethodRegistration::getBulkExecutor)
+                .orElse(null);
+    }
+
+    private void skipValue(final JsonParser parser) {
+        int depth = 0;
+        do {
+            switch (parser.next()) {
+                case START_ARRAY:
+                case START_OBJECT:
+                    depth++;
+                    break;
+                case END_ARRAY:
+                case END_OBJECT:
+                    depth--;
+                    break;
+                default:
+            }
+        } while (depth > 0);
+    }
+
+    public void writeResponse(final Object response, final Writer writer) {
+        if (ResponseStreamer.isStreamed(response)) {
+            try (final ResponseStreamer streamer = newStreamer(response, null)) {
+                while (streamer.writeNext(writer)) {
+                    // no-op
+                }
+            }
+            return;
+        }
+        codec.toJson(response, writer);
+    }
+
+    /**
+     * @param response a response (or batch) with streamed results, see {@link ResponseStreamer#isStreamed(Object)}.
+     * @param context the request context if the streamer must record the write phase and notify the tracer.
+     * @return an incremental writer for this response, it must be closed.
+     */
+    public ResponseStreamer newStreamer(final Object response, final RequestContext context) {
+        return new ResponseStreamer(this, codec, response, context);
+    }
+
+    /**
+     * @param reader the request.
+     * @return the parsed request.
+     * @throws JsonRpcException if the request exceeds a configured limit (size, batch size, depth, string length).
+     */
+    public JsonStructure readRequest(final Reader reader) {
+        final Reader limited = RequestLimits.limit(reader, configuration);
+        if (configuration.getParallelBatchParsingThreshold() > 0) {
+            return ParallelBatchParser.read(
+                    registry.getJsonProvider(), limited, configuration, ForkJoinPool.commonPool(), this::parse);
+        }
+        return parse(limited);
+    }
+
+    private JsonStructure parse(final Reader reader) {
+        try (final JsonParser parser = registry.getJsonProvider().createParser(reader)) {
+            final JsonValue request = RequestLimits.read(registry.getJsonProvider(), parser, parser.next(), 0, configuration);
+            if (!JsonStructure.class.isInstance(request)) {
+                throw new JsonRpcException(-32600, "Unknown request type: " + request.getValueType());
+            }
+            return JsonStructure.class.cast(request);
+        }
+    }
+
+    /**
+     * @param request the parsed request.
+     * @return the method of a single request if registered, {@code null} otherwise (batch, unknown method).
+     */
+    public String findMethod(final JsonStructure request) {
+        if (request.getValueType() != JsonValue.ValueType.OBJECT) {
+            return null;
+        }
+        final String method = request.asJsonObject().getString("method", null);
+        return method != null && registry.getHandlers().containsKey(method) ? method : null;
+    }
+
+    void onResponseWritten(final RequestContext context) {
+        tracer.onRequest(context);
+    }
+
+    private void sendResponse(final BiConsumer<Integer, Consumer<Writer>> handler, final Object response,
+                              final String method, final RequestContext context) {
+        handler.accept(200, new ResponseSerializer(this, response, method, context));
+        recordCapture(method, context);
+    }
+
+    /**
+     * Samples the request for the traffic capture, only needed by transports not using {@link #handle}.
+     *
+     * @param context the request context.
+     * @param request the raw request, only evaluated if the request is captured.
+     */
+    public void sampleCapture(final RequestContext context, final Supplier<String> request) {
+        if (isCaptured(context)) {
+            context.capturedRequest = request;
+        }
+    }
+
+    /**
+     * Captures the request sampled by {@link #sampleCapture} once its response is sent.
+     *
+     * @param method the method of the request, {@code null} for batches or unknown methods.
+     * @param context the request context.
+     */
+    public void recordCapture(final String method, final RequestContext context) {
+        final Supplier<String> request = context.capturedRequest;
+        if (request != null) {
+            context.capturedRequest = null; // captured once even if the request timed out
+            capture.record(method, context.getStart(), System.nanoTime() - context.getStart(), request.get());
+        }
     }
 
-    private JsonStructure readRequest(final Reader reader) {
-        return jsonb.fromJson(reader, JsonStructure.class);
+    private boolean isCaptured(final RequestContext context) {
+        return capture != null && !context.isSkipInvocation() && capture.sample();
     }
 
     private static class Pair<A, B> {
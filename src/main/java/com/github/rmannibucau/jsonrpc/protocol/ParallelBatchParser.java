@@ -0,0 +1,278 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+
+// buffers the request and, for a big batch, finds the element boundaries with a structural scan
+// (strings and nesting only) to parse chunks of elements in parallel
+final class ParallelBatchParser {
+    private static final int MIN_CHUNK_CHARS = 16 * 1024;
+
+    private ParallelBatchParser() {
+        // no-op
+    }
+
+    /**
+     * @param provider the JSON provider.
+     * @param reader the request, already limited in size.
+     * @param configuration the limits and the threshold.
+     * @param pool the parsing pool.
+     * @param sequential the parser used for small requests and the ones the scan does not understand (to get the same error).
+     * @return the request.
+     */
+    static JsonStructure read(final JsonProvider provider, final Reader reader, final Configuration configuration,
+                              final ForkJoinPool pool, final Function<Reader, JsonStructure> sequential) {
+        final char[] chars;
+        final int length;
+        try {
+            char[] buffer = new char[8192];
+            int read = 0;
+            int count;
+            while ((count = reader.read(buffer, read, buffer.length - read)) >= 0) {
+                read += count;
+                if (read == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            chars = buffer;
+            length = read;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final int[] boundaries = length < configuration.getParallelBatchParsingThreshold() ? null : split(chars, length);
+        if (boundaries == null || boundaries.length == 0) {
+            return sequential.apply(new CharArrayReader(chars, 0, length));
+        }
+        RequestLimits.checkBatchSize(boundaries.length / 2, configuration);
+
+        final JsonValue[] values = new JsonValue[boundaries.length / 2];
+        final ParseTask task = new ParseTask(provider, configuration, chars, boundaries, values, 0, values.length);
+        pool.invoke(task);
+        if (task.failure.error != null) {
+            throw task.failure.error;
+        }
+        final JsonArrayBuilder builder = provider.createArrayBuilder();
+        for (final JsonValue value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param chars the request.
+     * @param length the request length.
+     * @return the start and end (exclusive) of each element of the root array,
+     * {@code null} if the request is not an array or is malformed.
+     */
+    static int[] split(final char[] chars, final int length) {
+        int i = skipWhitespaces(chars, 0, length);
+        if (i == length || chars[i] != '[') {
+            return null;
+        }
+        int[] boundaries = new int[64];
+        int count = 0;
+        int depth = 0;
+        int start = -1;
+        int end = -1;
+        boolean string = false;
+        for (i++; i < length; i++) {
+            final char c = chars[i];
+            if (string) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    string = false;
+                    end = i + 1;
+                }
+                continue;
+            }
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    continue;
+                case ',':
+                    if (depth == 0) {
+                        if (start < 0) {
+                            return null;
+                        }
+                        if (count == boundaries.length) {
+                            boundaries = Arrays.copyOf(boundaries, count * 2);
+                        }
+                        boundaries[count++] = start;
+                        boundaries[count++] = end;
+                        start = -1;
+                        continue;
+                    }
+                    break;
+                case '"':
+                    string = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        if (c != ']' || (start < 0 && count > 0) ||
+                                skipWhitespaces(chars, i + 1, length) != length) {
+                            return null;
+                        }
+                        if (start >= 0) {
+                            if (count == boundaries.length) {
+                                boundaries = Arrays.copyOf(boundaries, count + 2);
+                            }
+                            boundaries[count++] = start;
+                            boundaries[count++] = end;
+                        }
+                        return Arrays.copyOf(boundaries, count);
+                    }
+                    depth--;
+                    break;
+                default:
+            }
+            if (start < 0) {
+                start = i;
+            }
+            end = i + 1;
+        }
+        return null; // not closed
+    }
+
+    private static int skipWhitespaces(final char[] chars, final int from, final int length) {
+        int i = from;
+        while (i < length && (chars[i] == ' ' || chars[i] == '\t' || chars[i] == '\n' || chars[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    // the error of the first failing chunk, as the sequential parsing would report
+    private static class Failure {
+        private int index = Integer.MAX_VALUE;
+        private RuntimeException error;
+
+        private synchronized void onError(final int index, final RuntimeException error) {
+            if (index < this.index) {
+                this.index = index;
+                this.error = error;
+            }
+        }
+    }
+
+    private static class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final JsonProvider provider;
+        private final Configuration configuration;
+        private final char[] chars;
+        private final int[] boundaries;
+        private final JsonValue[] values;
+        private final int from;
+        private final int to;
+        private final Failure failure;
+
+        private ParseTask(final JsonProvider provider, final Configuration configuration, final char[] chars,
+                          final int[] boundaries, final JsonValue[] values, final int from, final int to) {
+            this(provider, configuration, chars, boundaries, values, from, to, new Failure());
+        }
+
+        private ParseTask(final JsonProvider provider, final Configuration configuration, final char[] chars,
+                          final int[] boundaries, final JsonValue[] values, final int from, final int to,
+                          final Failure failure) {
+            this.provider = provider;
+            this.configuration = configuration;
+            this.chars = chars;
+            this.boundaries = boundaries;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && boundaries[to * 2 - 1] - boundaries[from * 2] > MIN_CHUNK_CHARS) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ParseTask(provider, configuration, chars, boundaries, values, from, middle, failure),
+                        new ParseTask(provider, configuration, chars, boundaries, values, middle, to, failure));
+                return;
+            }
+            // the chunk is parsed as an array: '[' + elements + ']'
+            try (final JsonParser parser = provider.createParser(
+                    new ChunkReader(chars, boundaries[from * 2], boundaries[to * 2 - 1]))) {
+                final JsonArray chunk = RequestLimits.read(
+                        provider, parser, parser.next(), 0, configuration).asJsonArray();
+                if (chunk.size() != to - from) {
+                    throw new JsonRpcException(-32700, "Invalid batch element");
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    values[from + i] = chunk.get(i);
+                }
+            } catch (final RuntimeException re) {
+                failure.onError(from, re);
+            }
+        }
+    }
+
+    private static class ChunkReader extends Reader {
+        private final char[] chars;
+        private final int end;
+        private int position;
+        private boolean opened;
+        private boolean closed;
+
+        private ChunkReader(final char[] chars, final int start, final int end) {
+            this.chars = chars;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (closed) {
+                return -1;
+            }
+            int written = 0;
+            if (!opened) {
+                buffer[offset + written++] = '[';
+                opened = true;
+            }
+            final int count = Math.min(length - written, end - position);
+            System.arraycopy(chars, position, buffer, offset + written, count);
+            written += count;
+            position += count;
+            if (written < length && position == end) {
+                buffer[offset + written++] = ']';
+                closed = true;
+            }
+            return written;
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
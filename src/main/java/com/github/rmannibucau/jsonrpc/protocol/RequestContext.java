@@ -0,0 +1,156 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+import com.github.rmannibucau.jsonrpc.tracing.TraceParent;
+
+/**
+ * Transport level request (a single call or a batch) metadata, created by the transport.
+ */
+public class RequestContext {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start = System.nanoTime();
+    private final AtomicLongArray durations = new AtomicLongArray(PHASES.length); // batch calls can run concurrently
+    private TraceParent traceParent;
+    private long deadline;
+    private InFlightCalls inFlightCalls;
+    private final Queue<CallContext> calls = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+    private boolean forwarded;
+    private boolean skipInvocation;
+    volatile Supplier<String> capturedRequest; // set when the traffic capture sampled the request
+
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return the incoming trace context, {@code null} if the client didn't send any.
+     */
+    public TraceParent getTraceParent() {
+        return traceParent;
+    }
+
+    public void setTraceParent(final TraceParent traceParent) {
+        this.traceParent = traceParent;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} after which nobody waits for the response, {@code 0} if none.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(final long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param timeoutMs the time the client accepts to wait in milliseconds.
+     */
+    public void setTimeout(final long timeoutMs) {
+        setDeadline(toDeadline(start, timeoutMs));
+    }
+
+    /**
+     * @return the calls of the connection for persistent transports, {@code null} otherwise.
+     */
+    public InFlightCalls getInFlightCalls() {
+        return inFlightCalls;
+    }
+
+    public void setInFlightCalls(final InFlightCalls inFlightCalls) {
+        this.inFlightCalls = inFlightCalls;
+    }
+
+    /**
+     * @return true if the request was forwarded by another node of the gateway, it is then executed locally.
+     */
+    public boolean isForwarded() {
+        return forwarded;
+    }
+
+    public void setForwarded(final boolean forwarded) {
+        this.forwarded = forwarded;
+    }
+
+    /**
+     * @return true if the params are bound but the methods not invoked (their result is {@code null}), used by the warmup.
+     */
+    public boolean isSkipInvocation() {
+        return skipInvocation;
+    }
+
+    public void setSkipInvocation(final boolean skipInvocation) {
+        this.skipInvocation = skipInvocation;
+    }
+
+    /**
+     * Cancels all the calls of this request, typically when the client disconnected or gave up.
+     */
+    public void cancel() {
+        cancelled = true;
+        calls.forEach(CallContext::cancel);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void register(final CallContext call) {
+        calls.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+    }
+
+    static long toDeadline(final long from, final long timeoutMs) {
+        final long deadline = from + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        return deadline == 0 ? 1 : deadline; // 0 means no deadline
+    }
+
+    /**
+     * Cumulates the time spent in a phase since {@code startNanos}.
+     *
+     * @param phase the phase which ended.
+     * @param startNanos the {@link System#nanoTime()} value when the phase started.
+     */
+    public void record(final Phase phase, final long startNanos) {
+        addDuration(phase, System.nanoTime() - startNanos);
+    }
+
+    public void addDuration(final Phase phase, final long durationNanos) {
+        durations.addAndGet(phase.ordinal(), durationNanos);
+    }
+
+    /**
+     * @param phase the phase.
+     * @return the cumulated duration of the phase in nanoseconds (summed over batch calls).
+     */
+    public long getDuration(final Phase phase) {
+        return durations.get(phase.ordinal());
+    }
+
+    /**
+     * @return a {@code Server-Timing} header value with the phase durations in milliseconds.
+     */
+    public String toServerTiming() {
+        final StringBuilder builder = new StringBuilder(PHASES.length * 24);
+        for (final Phase phase : PHASES) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(phase.getMetricName()).append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.3f", getDuration(phase) / 1_000_000.));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+
+// enforces the configured limits while the request is read so an abusive request fails before being built in memory
+final class RequestLimits {
+    private RequestLimits() {
+        // no-op
+    }
+
+    static Reader limit(final Reader reader, final Configuration configuration) {
+        final long max = configuration.getMaxRequestSize();
+        return max <= 0 ? reader : new LimitedReader(reader, max);
+    }
+
+    /**
+     * @param provider the provider creating the values.
+     * @param parser the parser, {@code event} is its current event.
+     * @param event the first event of the value to read.
+     * @param depth the depth of the value, {@code 0} for the request itself.
+     * @param configuration the limits.
+     * @return the value.
+     */
+    static JsonValue read(final JsonProvider provider, final JsonParser parser, final JsonParser.Event event,
+                          final int depth, final Configuration configuration) {
+        switch (event) {
+            case START_OBJECT: {
+                checkDepth(depth, configuration);
+                final JsonObjectBuilder builder = provider.createObjectBuilder();
+                while (parser.next() != JsonParser.Event.END_OBJECT) {
+                    final String key = checkString(parser.getString(), configuration);
+                    builder.add(key, read(provider, parser, parser.next(), depth + 1, configuration));
+                }
+                return builder.build();
+            }
+            case START_ARRAY: {
+                checkDepth(depth, configuration);
+                final JsonArrayBuilder builder = provider.createArrayBuilder();
+                int size = 0;
+                JsonParser.Event next;
+                while ((next = parser.next()) != JsonParser.Event.END_ARRAY) {
+                    if (depth == 0) {
+                        checkBatchSize(++size, configuration);
+                    }
+                    builder.add(read(provider, parser, next, depth + 1, configuration));
+                }
+                return builder.build();
+            }
+            case VALUE_STRING:
+                checkString(parser.getString(), configuration);
+                return parser.getValue();
+            case VALUE_NUMBER:
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+            case VALUE_NULL:
+                return parser.getValue();
+            default:
+                throw new JsonRpcException(-32700, "Unexpected JSON event: " + event);
+        }
+    }
+
+    static void checkBatchSize(final int size, final Configuration configuration) {
+        final int max = configuration.getMaxBatchSize();
+        if (max > 0 && size > max) {
+            throw new JsonRpcException(-32600, "Batch exceeds " + max + " requests");
+        }
+    }
+
+    private static void checkDepth(final int depth, final Configuration configuration) {
+        final int max = configuration.getMaxDepth();
+        if (max > 0 && depth >= max) {
+            throw new JsonRpcException(-32600, "Request nesting exceeds " + max + " levels");
+        }
+    }
+
+    // the parser already materialized it but the request size bounds it
+    private static String checkString(final String value, final Configuration configuration) {
+        final int max = configuration.getMaxStringLength();
+        if (max > 0 && value.length() > max) {
+            throw new JsonRpcException(-32600, "String exceeds " + max + " characters");
+        }
+        return value;
+    }
+
+    private static class LimitedReader extends FilterReader {
+        private final long max;
+        private long read;
+
+        private LimitedReader(final Reader delegate, final long max) {
+            super(delegate);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int c = super.read();
+            if (c >= 0) {
+                count(1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            // never read more than the limit + 1 char so the delegate does not buffer a huge payload
+            final int count = super.read(buffer, offset, (int) Math.min(length, max - read + 1));
+            if (count > 0) {
+                count(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(Math.min(n, max - read + 1));
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(final long chars) {
+            read += chars;
+            if (read > max) {
+                throw new JsonRpcException(-32600, "Request exceeds " + max + " characters");
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import com.github.rmannibucau.jsonrpc.tracing.FlightRecorder;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+
+/**
+ * The writer callback passed to the transports, it exposes the metadata of the response
+ * for transports needing it (buffer sizing for example).
+ */
+public class ResponseSerializer implements Consumer<Writer> {
+    private final JsonRpcHandler handler;
+    private final Object response;
+    private final String method;
+    private final RequestContext context;
+
+    public ResponseSerializer(final JsonRpcHandler handler, final Object response, final String method,
+                              final RequestContext context) {
+        this.handler = handler;
+        this.response = response;
+        this.method = method;
+        this.context = context;
+    }
+
+    @Override
+    public void accept(final Writer writer) {
+        final long start = System.nanoTime();
+        final Object event = FlightRecorder.begin(FlightRecorder.RESULT_SERIALIZED);
+        final CountingWriter counting = event == null ? null : new CountingWriter(writer);
+        try {
+            handler.writeResponse(response, counting == null ? writer : counting);
+        } finally {
+            if (event != null) {
+                final Response[] responses = Response[].class.isInstance(response) ?
+                        Response[].class.cast(response) : Response.class.isInstance(response) ?
+                        new Response[]{Response.class.cast(response)} : new Response[0];
+                FlightRecorder.commit(event, method, JsonRpcHandler.errorCode(responses),
+                        responses.length, 0, counting.getCount());
+            }
+            if (context != null) {
+                context.record(Phase.WRITE, start);
+                handler.onResponseWritten(context);
+            }
+        }
+    }
+
+    /**
+     * @return true if the response has a streamed result, transports should write it progressively.
+     */
+    public boolean isStreamed() {
+        return ResponseStreamer.isStreamed(response);
+    }
+
+    /**
+     * @return the request context, it has the phase timings once the response is written.
+     */
+    public RequestContext getContext() {
+        return context;
+    }
+
+    public Object getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the registered method the response is for, {@code null} for batches and invalid requests.
+     */
+    public String getMethod() {
+        return method;
+    }
+}
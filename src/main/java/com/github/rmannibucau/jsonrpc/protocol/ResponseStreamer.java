@@ -0,0 +1,203 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.stream.Stream;
+
+import javax.json.JsonValue;
+
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.io.JsonStrings;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+
+/**
+ * Incremental writer of a response (or batch) having {@link StreamingResult} results.
+ *
+ * Each {@link #writeNext(Writer)} call writes a small part of the payload (an envelope part or a single element)
+ * so transports can pull the payload only when they can write it, this is what keeps the memory constant.
+ */
+public class ResponseStreamer implements AutoCloseable {
+    private final JsonRpcHandler handler;
+    private final JsonRpcCodec codec;
+    private final Response[] responses;
+    private final boolean batch;
+    private final RequestContext context;
+
+    private int index;
+    private boolean started; // current response envelope written
+    private long elements;
+    private boolean done;
+    private NonClosingWriter output;
+
+    ResponseStreamer(final JsonRpcHandler handler, final JsonRpcCodec codec, final Object response, final RequestContext context) {
+        this.handler = handler;
+        this.codec = codec;
+        this.batch = Response[].class.isInstance(response);
+        this.responses = batch ? Response[].class.cast(response) : new Response[]{Response.class.cast(response)};
+        this.context = context;
+    }
+
+    /**
+     * @param response the response object (single or batch).
+     * @return true if the response has a streamed result and must be written with a streamer.
+     */
+    public static boolean isStreamed(final Object response) {
+        if (Response.class.isInstance(response)) {
+            return StreamingResult.class.isInstance(Response.class.cast(response).getResult());
+        }
+        return Response[].class.isInstance(response) && Stream.of(Response[].class.cast(response))
+                .anyMatch(ResponseStreamer::isStreamed);
+    }
+
+    /**
+     * @param writer the output.
+     * @return true if there is still something to write.
+     */
+    public boolean writeNext(final Writer writer) {
+        if (done) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        try {
+            if (output == null || output.delegate != writer) {
+                output = new NonClosingWriter(writer);
+            }
+            done = !doWriteNext(output);
+            return !done;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (context != null) {
+                context.record(Phase.WRITE, start);
+                if (done) {
+                    handler.onResponseWritten(context);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        RuntimeException error = null;
+        for (final Response response : responses) {
+            if (response != null && StreamingResult.class.isInstance(response.getResult())) {
+                try {
+                    StreamingResult.class.cast(response.getResult()).close();
+                } catch (final RuntimeException re) {
+                    if (error == null) {
+                        error = re;
+                    } else {
+                        error.addSuppressed(re);
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private boolean doWriteNext(final Writer writer) throws IOException {
+        final Response response = responses[index];
+        final StreamingResult result = StreamingResult.class.isInstance(response.getResult()) ?
+                StreamingResult.class.cast(response.getResult()) : null;
+        if (result == null) {
+            startResponse(writer);
+            codec.toJson(response, writer);
+            return nextResponse(writer);
+        }
+        if (!started) {
+            startResponse(writer);
+            writer.write("{\"jsonrpc\":");
+            JsonStrings.write(writer, response.getJsonrpc());
+            if (response.getId() != null) {
+                writer.write(",\"id\":");
+                JsonStrings.write(writer, response.getId());
+            }
+            writer.write(",\"result\":[");
+            started = true;
+            return true;
+        }
+        if (result.hasNext()) {
+            if (elements++ > 0) {
+                writer.write(',');
+            }
+            writeElement(writer, result.next());
+            return true;
+        }
+        writer.write("]}");
+        result.close();
+        started = false;
+        elements = 0;
+        return nextResponse(writer);
+    }
+
+    private void startResponse(final Writer writer) throws IOException {
+        if (batch) {
+            writer.write(index == 0 ? '[' : ',');
+        }
+    }
+
+    private boolean nextResponse(final Writer writer) throws IOException {
+        index++;
+        if (index < responses.length) {
+            return true;
+        }
+        if (batch) {
+            writer.write(']');
+        }
+        return false;
+    }
+
+    // JSON-B implementations don't all support root scalars so write them directly
+    private void writeElement(final Writer writer, final Object element) throws IOException {
+        if (element == null) {
+            writer.write("null");
+        } else if (CharSequence.class.isInstance(element) || Character.class.isInstance(element)) {
+            JsonStrings.write(writer, element.toString());
+        } else if (Enum.class.isInstance(element)) {
+            JsonStrings.write(writer, Enum.class.cast(element).name());
+        } else if (Boolean.class.isInstance(element) || Integer.class.isInstance(element) || Long.class.isInstance(element)) {
+            writer.write(element.toString());
+        } else if (JsonValue.class.isInstance(element)) {
+            writer.write(element.toString());
+        } else {
+            codec.toJson(element, writer);
+        }
+    }
+
+    // codecs (JSON-B implementations) can close the writer after each value
+    private static class NonClosingWriter extends Writer {
+        private final Writer delegate;
+
+        private NonClosingWriter(final Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            delegate.write(c);
+        }
+
+        @Override
+        public void write(final char[] chars, final int off, final int len) throws IOException {
+            delegate.write(chars, off, len);
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) throws IOException {
+            delegate.write(str, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // no-op, the transport flushes when it is relevant
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
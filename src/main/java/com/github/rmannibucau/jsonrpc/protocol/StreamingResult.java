@@ -0,0 +1,56 @@
+package com.github.rmannibucau.jsonrpc.protocol;
+
+import java.util.Iterator;
+
+import javax.json.JsonValue;
+
+/**
+ * A result array whose elements are serialized one at a time when the transport writes the response.
+ *
+ * It is only serializable through {@link ResponseStreamer}, {@link #toString()} does not consume the elements.
+ */
+public class StreamingResult implements JsonValue, AutoCloseable {
+    private final Iterator<?> iterator;
+    private final AutoCloseable onClose;
+
+    /**
+     * @param iterator the elements, each one is serialized with JSON-B.
+     * @param onClose the resource to release once the elements are written (or the response is dropped), can be null.
+     */
+    public StreamingResult(final Iterator<?> iterator, final AutoCloseable onClose) {
+        this.iterator = iterator;
+        this.onClose = onClose;
+    }
+
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    public Object next() {
+        return iterator.next();
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return ValueType.ARRAY;
+    }
+
+    @Override
+    public void close() {
+        if (onClose == null) {
+            return;
+        }
+        try {
+            onClose.close();
+        } catch (final RuntimeException re) {
+            throw re;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingResult{iterator=" + iterator + '}';
+    }
+}
@@ -2,39 +2,98 @@ package com.github.rmannibucau.jsonrpc.servlet;
 
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.Optional.ofNullable;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.github.rmannibucau.jsonrpc.gateway.ShardedGateway;
+import com.github.rmannibucau.jsonrpc.io.BufferPool;
+import com.github.rmannibucau.jsonrpc.io.Utf8BufferWriter;
 import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import com.github.rmannibucau.jsonrpc.protocol.ResponseSerializer;
+import com.github.rmannibucau.jsonrpc.tracing.TraceParent;
 
 // https://www.jsonrpc.org/specification
 public class JsonRpcServlet extends HttpServlet {
     @Inject
     protected JsonRpcHandler handler;
 
+    // responses are buffered to send a Content-Length and avoid chunking
+    protected BufferPool bufferPool = new BufferPool();
+
+    // streamed results are flushed each time this many chars are serialized
+    protected int streamingBufferSize = 8 * 1024;
+
     @Override
     protected void doPost(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        final RequestContext context = new RequestContext();
+        ofNullable(req.getHeader("traceparent")).map(TraceParent::parse).ifPresent(context::setTraceParent);
+        ofNullable(req.getHeader("X-JsonRpc-Timeout"))
+                .map(String::trim)
+                .filter(it -> !it.isEmpty() && it.length() < 19 && it.chars().allMatch(Character::isDigit))
+                .map(Long::parseLong)
+                .ifPresent(context::setTimeout);
+        context.setForwarded(req.getHeader(ShardedGateway.FORWARDED_HEADER) != null);
+        final boolean serverTiming = handler.getConfiguration().isServerTiming();
         handler.handle(
             req.getReader(),
+            context,
             (status, writerConsumer) -> {
-                resp.setStatus(status);
-                try (final Writer writer = resp.getWriter()) {
-                    writerConsumer.accept(writer);
+                if (ResponseSerializer.class.isInstance(writerConsumer) &&
+                        ResponseSerializer.class.cast(writerConsumer).isStreamed()) {
+                    // chunked, the blocking writes of the container are the backpressure
+                    resp.setStatus(status);
+                    resp.setContentType("application/json");
+                    if (serverTiming) {
+                        resp.setHeader("Server-Timing", context.toServerTiming());
+                    }
+                    try (final Writer writer = new BufferedWriter(
+                            new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8), streamingBufferSize)) {
+                        writerConsumer.accept(writer);
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return;
+                }
+                final String method = ResponseSerializer.class.isInstance(writerConsumer) ?
+                        ResponseSerializer.class.cast(writerConsumer).getMethod() : null;
+                final Utf8BufferWriter buffer = bufferPool.acquire(method);
+                try {
+                    writerConsumer.accept(buffer);
+                    resp.setStatus(status);
+                    resp.setContentType("application/json");
+                    resp.setContentLength(buffer.size());
+                    if (serverTiming) {
+                        resp.setHeader("Server-Timing", context.toServerTiming());
+                    }
+                    try (final OutputStream outputStream = resp.getOutputStream()) {
+                        buffer.writeTo(outputStream);
+                    }
                 } catch (final IOException e) {
                     throw new IllegalStateException(e);
+                } finally {
+                    bufferPool.release(method, buffer);
                 }
             }, () -> {
                 if (req.isAsyncSupported()) {
                     final AsyncContext asyncContext = req.startAsync();
                     if (asyncContext != null) {
+                        asyncContext.addListener(new CancellingListener(context));
                         final AtomicBoolean done = new AtomicBoolean(false);
                         return of(() -> {
                             if (done.compareAndSet(false, true)) {
@@ -47,7 +106,44 @@ public class JsonRpcServlet extends HttpServlet {
             });
     }
 
+    // the client is gone or the container gave up: stop the calls still running
+    private static class CancellingListener implements AsyncListener {
+        private final RequestContext context;
+
+        private CancellingListener(final RequestContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            context.cancel();
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            context.cancel();
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            // no-op
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // no-op
+        }
+    }
+
     public void setHandler(final JsonRpcHandler handler) {
         this.handler = handler;
     }
+
+    public void setBufferPool(final BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public void setStreamingBufferSize(final int streamingBufferSize) {
+        this.streamingBufferSize = streamingBufferSize;
+    }
 }
@@ -0,0 +1,83 @@
+package com.github.rmannibucau.jsonrpc.socket;
+
+import java.nio.ByteBuffer;
+
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+
+// accumulates the bytes of a connection until a frame is complete, pipelined frames are consumed in order
+class FrameDecoder {
+    private final Framing framing;
+    private final long maxFrameSize;
+
+    byte[] data;
+    int start;
+    int end;
+    int scanned;
+
+    private int frameStart;
+    private int frameEnd;
+    private int next;
+
+    /**
+     * @param framing the framing of the connection.
+     * @param initialSize the initial buffer size.
+     * @param maxFrameSize the maximum size of a frame in bytes, {@code <= 0} means unlimited.
+     */
+    FrameDecoder(final Framing framing, final int initialSize, final long maxFrameSize) {
+        this.framing = framing;
+        this.maxFrameSize = maxFrameSize;
+        this.data = new byte[initialSize];
+    }
+
+    void append(final ByteBuffer input) {
+        final int length = input.remaining();
+        if (data.length - end < length) {
+            if (start > 0) { // reclaim consumed frames first
+                System.arraycopy(data, start, data, 0, end - start);
+                end -= start;
+                scanned -= start;
+                start = 0;
+            }
+            if (data.length - end < length) {
+                final byte[] newData = new byte[Math.max(data.length * 2, end + length)];
+                System.arraycopy(data, 0, newData, 0, end);
+                data = newData;
+            }
+        }
+        input.get(data, end, length);
+        end += length;
+    }
+
+    boolean nextFrame() {
+        if (start == end) {
+            start = end = scanned = 0;
+            return false;
+        }
+        return framing.decode(this);
+    }
+
+    byte[] frame() {
+        final byte[] frame = new byte[frameEnd - frameStart];
+        System.arraycopy(data, frameStart, frame, 0, frame.length);
+        start = next;
+        scanned = next;
+        return frame;
+    }
+
+    void frame(final int frameStart, final int frameEnd, final int next) {
+        this.frameStart = frameStart;
+        this.frameEnd = frameEnd;
+        this.next = next;
+    }
+
+    // called while the frame is still incomplete so a peer can't make the buffer grow without bound
+    void checkFrameSize(final long size) {
+        if (maxFrameSize > 0 && size > maxFrameSize) {
+            throw new JsonRpcException(-32600, "Request exceeds " + maxFrameSize + " bytes");
+        }
+    }
+
+    int pending() {
+        return end - start;
+    }
+}
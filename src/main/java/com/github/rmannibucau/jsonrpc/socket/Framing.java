@@ -0,0 +1,127 @@
+package com.github.rmannibucau.jsonrpc.socket;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.Locale;
+
+public enum Framing {
+    /**
+     * One JSON document per line, it relies on the fact compact JSON never contains a raw new line.
+     */
+    NDJSON {
+        @Override
+        boolean decode(final FrameDecoder decoder) {
+            final byte[] data = decoder.data;
+            for (int i = decoder.scanned; i < decoder.end; i++) {
+                if (data[i] == '\n') {
+                    int frameEnd = i;
+                    if (frameEnd > decoder.start && data[frameEnd - 1] == '\r') {
+                        frameEnd--;
+                    }
+                    decoder.frame(decoder.start, frameEnd, i + 1);
+                    return true;
+                }
+            }
+            decoder.checkFrameSize(decoder.pending());
+            decoder.scanned = decoder.end;
+            return false;
+        }
+
+        @Override
+        byte[] header(final int length) {
+            return EMPTY;
+        }
+
+        @Override
+        byte[] trailer() {
+            return NEW_LINE;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return true;
+        }
+    },
+
+    /**
+     * LSP like framing: {@code Content-Length: <bytes>\r\n\r\n<payload>}, other headers are ignored.
+     */
+    CONTENT_LENGTH {
+        @Override
+        boolean decode(final FrameDecoder decoder) {
+            final byte[] data = decoder.data;
+            int headersEnd = -1;
+            for (int i = Math.max(decoder.start, decoder.scanned - 3); i + 3 < decoder.end; i++) {
+                if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                    headersEnd = i;
+                    break;
+                }
+            }
+            if (headersEnd < 0) {
+                decoder.checkFrameSize(decoder.pending());
+                decoder.scanned = decoder.end;
+                return false;
+            }
+            final int length = parseContentLength(new String(data, decoder.start, headersEnd - decoder.start, US_ASCII));
+            decoder.checkFrameSize(length);
+            final int bodyStart = headersEnd + 4;
+            if (decoder.end - bodyStart < length) { // no overflow: bodyStart + length is only computed once buffered
+                decoder.scanned = headersEnd; // don't rescan the headers
+                return false;
+            }
+            decoder.frame(bodyStart, bodyStart + length, bodyStart + length);
+            return true;
+        }
+
+        @Override
+        byte[] header(final int length) {
+            return ("Content-Length: " + length + "\r\n\r\n").getBytes(US_ASCII);
+        }
+
+        @Override
+        byte[] trailer() {
+            return EMPTY;
+        }
+
+        @Override
+        boolean isStreamable() { // the length must be known upfront
+            return false;
+        }
+
+        private int parseContentLength(final String headers) {
+            for (final String header : headers.split("\r\n")) {
+                final int sep = header.indexOf(':');
+                if (sep > 0 && "content-length".equals(header.substring(0, sep).trim().toLowerCase(Locale.ROOT))) {
+                    try {
+                        final int length = Integer.parseInt(header.substring(sep + 1).trim());
+                        if (length < 0) {
+                            throw new IllegalArgumentException("Negative Content-Length: " + length);
+                        }
+                        return length;
+                    } catch (final NumberFormatException nfe) {
+                        throw new IllegalArgumentException("Invalid Content-Length: '" + header + "'", nfe);
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Missing Content-Length header");
+        }
+    };
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] NEW_LINE = new byte[]{'\n'};
+
+    /**
+     * @param decoder the connection input.
+     * @return true if a frame was found (and set on the decoder), false if more bytes are needed.
+     */
+    abstract boolean decode(FrameDecoder decoder);
+
+    abstract byte[] header(int length);
+
+    abstract byte[] trailer();
+
+    /**
+     * @return true if a frame can be written before its size is known (streamed results).
+     */
+    abstract boolean isStreamable();
+}
@@ -0,0 +1,420 @@
+package com.github.rmannibucau.jsonrpc.socket;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonException;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.bind.JsonbException;
+
+import com.github.rmannibucau.jsonrpc.io.BufferPool;
+import com.github.rmannibucau.jsonrpc.io.Utf8BufferWriter;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.InFlightCalls;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import com.github.rmannibucau.jsonrpc.protocol.Response;
+import com.github.rmannibucau.jsonrpc.protocol.ResponseSerializer;
+import com.github.rmannibucau.jsonrpc.protocol.ResponseStreamer;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+
+/**
+ * Servlet-less transport: JSON-RPC over a raw TCP socket using a single selector thread.
+ *
+ * Requests are framed with {@link Framing}, several requests can be pipelined on the same connection
+ * and responses are sent as soon as they are ready (clients must correlate them with their {@code id}).
+ */
+public class JsonRpcSocketServer implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(JsonRpcSocketServer.class.getName());
+
+    private final JsonRpcHandler handler;
+    private final Framing framing;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<>();
+
+    private Executor executor = Runnable::run;
+    private BufferPool bufferPool = new BufferPool();
+    private int bufferSize = 16 * 1024;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ByteBuffer readBuffer;
+    private Thread thread;
+    private volatile boolean running;
+
+    public JsonRpcSocketServer(final JsonRpcHandler handler, final Framing framing) {
+        this.handler = handler;
+        this.framing = framing;
+    }
+
+    /**
+     * By default requests are executed on the selector thread which is the fastest option for non blocking methods.
+     *
+     * @param executor the executor to use to execute the requests once parsed.
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setBufferPool(final BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public synchronized JsonRpcSocketServer start(final InetSocketAddress address) {
+        if (running) {
+            throw new IllegalStateException("Server already started");
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(address);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (final IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        readBuffer = ByteBuffer.allocateDirect(bufferSize);
+        running = true;
+        thread = new Thread(this::run, getClass().getName() + "-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    public int getPort() {
+        try {
+            return InetSocketAddress.class.cast(serverChannel.getLocalAddress()).getPort();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (selector != null) {
+            selector.keys().forEach(key -> closeQuietly(key.channel()));
+            closeQuietly(selector);
+        }
+        if (serverChannel != null) {
+            closeQuietly(serverChannel);
+        }
+        directBuffers.clear();
+        thread = null;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    if (connection.key.isValid()) {
+                        connection.key.interestOps(connection.closing ?
+                                SelectionKey.OP_WRITE : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            Connection.class.cast(key.attachment()).onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            Connection.class.cast(key.attachment()).onWritable();
+                        }
+                    } catch (final IOException | RuntimeException e) {
+                        LOGGER.log(Level.FINE, e.getMessage(), e);
+                        if (Connection.class.isInstance(key.attachment())) {
+                            Connection.class.cast(key.attachment()).close();
+                        } else {
+                            closeQuietly(key.channel());
+                        }
+                    }
+                }
+            }
+        } catch (final IOException | ClosedSelectorException e) {
+            if (running) {
+                LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        final Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private ByteBuffer acquireDirectBuffer() {
+        final ByteBuffer buffer = directBuffers.poll();
+        if (buffer != null) {
+            buffer.clear();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    private void closeQuietly(final AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (final Exception e) {
+            // no-op
+        }
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final FrameDecoder decoder = new FrameDecoder(framing, bufferSize, handler.getConfiguration().getMaxRequestSize());
+        private final Queue<Object> output = new ConcurrentLinkedQueue<>(); // ByteBuffer or StreamedFrame
+        private final InFlightCalls inFlightCalls = new InFlightCalls(); // for $/cancelRequest
+        private ByteBuffer writeBuffer; // direct, in "fill" mode between two writes
+        private SelectionKey key;
+        private boolean closing; // an error frame must be flushed then the connection closed, selector thread only
+
+        private Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void onReadable() throws IOException {
+            readBuffer.clear();
+            final int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            decoder.append(readBuffer);
+            try {
+                while (decoder.nextFrame()) {
+                    final byte[] frame = decoder.frame();
+                    if (frame.length > 0) {
+                        executor.execute(() -> execute(frame));
+                    }
+                }
+            } catch (final JsonRpcException limitEx) { // oversized frame: the stream can't be resynchronized
+                send(handler.createResponse(limitEx.getCode(), limitEx.getMessage()), null, new RequestContext());
+                closing = true;
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void onWritable() throws IOException {
+            if (writeBuffer == null) {
+                writeBuffer = acquireDirectBuffer();
+            }
+            Object item;
+            while (writeBuffer.hasRemaining() && (item = output.peek()) != null) {
+                final ByteBuffer next;
+                if (StreamedFrame.class.isInstance(item)) { // only pulled when there is room: backpressure
+                    next = StreamedFrame.class.cast(item).next();
+                    if (next == null) {
+                        output.poll();
+                        continue;
+                    }
+                } else {
+                    next = ByteBuffer.class.cast(item);
+                }
+                if (next.remaining() <= writeBuffer.remaining()) {
+                    writeBuffer.put(next);
+                    if (next == item) {
+                        output.poll();
+                    }
+                } else {
+                    final int limit = next.limit();
+                    next.limit(next.position() + writeBuffer.remaining());
+                    writeBuffer.put(next);
+                    next.limit(limit);
+                }
+            }
+            writeBuffer.flip();
+            channel.write(writeBuffer);
+            writeBuffer.compact();
+            if (writeBuffer.position() == 0 && output.isEmpty()) {
+                directBuffers.add(writeBuffer);
+                writeBuffer = null;
+                if (closing) {
+                    close();
+                    return;
+                }
+                key.interestOps(SelectionKey.OP_READ);
+                if (!output.isEmpty()) { // concurrent enqueue, ensure we don't miss it
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        private void execute(final byte[] frame) {
+            final RequestContext context = new RequestContext();
+            context.setInFlightCalls(inFlightCalls);
+            handler.sampleCapture(context, () -> new String(frame, UTF_8));
+            final long parseStart = System.nanoTime();
+            final JsonStructure request;
+            try (final Reader reader = new InputStreamReader(new ByteArrayInputStream(frame), UTF_8)) {
+                request = handler.readRequest(reader);
+            } catch (final JsonRpcException limitEx) {
+                context.record(Phase.PARSE, parseStart);
+                send(handler.createResponse(limitEx.getCode(), limitEx.getMessage()), null, context);
+                return;
+            } catch (final JsonException | JsonbException | IOException e) {
+                context.record(Phase.PARSE, parseStart);
+                send(handler.createResponse(-32700, e.getMessage()), null, context);
+                return;
+            }
+            context.record(Phase.PARSE, parseStart);
+            final String method = handler.findMethod(request);
+            try {
+                if (request.getValueType() == JsonValue.ValueType.OBJECT) {
+                    final Response response = handler.handleSync(request.asJsonObject(), context);
+                    if (response != null) {
+                        send(response, method, context);
+                        return;
+                    }
+                }
+                handler.prepareResultChain(request, context).handle((value, error) -> {
+                    send(value != null ? value : handler.createResponse(-32603, error.getMessage()), method, context);
+                    return value;
+                });
+            } catch (final RuntimeException re) {
+                send(handler.createResponse(-32603, re.getMessage()), method, context);
+            }
+        }
+
+        private void send(final Object response, final String method, final RequestContext context) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (framing.isStreamable() && ResponseStreamer.isStreamed(response)) {
+                output.add(new StreamedFrame(handler.newStreamer(response, context)));
+                pendingWrites.add(this);
+                selector.wakeup();
+                handler.recordCapture(method, context);
+                return;
+            }
+            final Utf8BufferWriter buffer = bufferPool.acquire(method);
+            try {
+                new ResponseSerializer(handler, response, method, context).accept(buffer);
+                final byte[] header = framing.header(buffer.size());
+                final byte[] trailer = framing.trailer();
+                final ByteBuffer frame = ByteBuffer.allocate(header.length + buffer.size() + trailer.length);
+                frame.put(header);
+                buffer.writeTo(frame);
+                frame.put(trailer).flip();
+                output.add(frame);
+            } finally {
+                bufferPool.release(method, buffer);
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+            handler.recordCapture(method, context);
+        }
+
+        private void close() {
+            key.cancel();
+            closeQuietly(channel);
+            inFlightCalls.cancelAll();
+            if (writeBuffer != null) {
+                directBuffers.add(writeBuffer);
+                writeBuffer = null;
+            }
+            output.stream()
+                    .filter(StreamedFrame.class::isInstance)
+                    .forEach(it -> closeQuietly(StreamedFrame.class.cast(it).streamer));
+            output.clear();
+        }
+    }
+
+    // serializes the response chunk by chunk, only when the connection can write
+    private class StreamedFrame {
+        private final ResponseStreamer streamer;
+        private final Utf8BufferWriter chunk = new Utf8BufferWriter(bufferSize);
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+        private boolean done;
+
+        private StreamedFrame(final ResponseStreamer streamer) {
+            this.streamer = streamer;
+        }
+
+        private ByteBuffer next() {
+            if (pending.hasRemaining()) {
+                return pending;
+            }
+            if (done) {
+                return null;
+            }
+            chunk.reset();
+            boolean more;
+            try {
+                do {
+                    more = streamer.writeNext(chunk);
+                } while (more && chunk.size() < bufferSize);
+            } catch (final RuntimeException re) { // can't send an error anymore, the connection will be closed
+                closeQuietly(streamer);
+                throw re;
+            }
+            final byte[] trailer = more ? null : framing.trailer();
+            final int size = chunk.size() + (trailer == null ? 0 : trailer.length);
+            if (pending.capacity() < size) {
+                pending = ByteBuffer.allocate(size);
+            }
+            pending.clear();
+            chunk.writeTo(pending);
+            if (trailer != null) {
+                pending.put(trailer);
+                done = true;
+                closeQuietly(streamer);
+            }
+            pending.flip();
+            return pending;
+        }
+    }
+}
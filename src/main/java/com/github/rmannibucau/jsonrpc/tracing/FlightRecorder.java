@@ -0,0 +1,96 @@
+package com.github.rmannibucau.jsonrpc.tracing;
+
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+
+/**
+ * Emits JDK Flight Recorder events for the request parsing, the method invocations, the result serialization
+ * and the batch completion.
+ *
+ * The events are in the Java 11 part of the multi-release jar, on Java 8 (or without the {@code jdk.jfr} module)
+ * all methods are no-op. {@link #begin(int)} returns {@code null} when the event is disabled so callers
+ * skip any extra work (payload counting for example).
+ */
+public final class FlightRecorder {
+    public static final int REQUEST_PARSED = 0;
+    public static final int METHOD_INVOKED = 1;
+    public static final int RESULT_SERIALIZED = 2;
+    public static final int BATCH_COMPLETED = 3;
+
+    private static final Delegate DELEGATE = load();
+
+    private FlightRecorder() {
+        // no-op
+    }
+
+    /**
+     * @param type the event type, one of the constants of this class.
+     * @return the started event, {@code null} if disabled.
+     */
+    public static Object begin(final int type) {
+        return DELEGATE.begin(type);
+    }
+
+    /**
+     * @param event the event returned by {@link #begin(int)}, ignored if {@code null}.
+     * @param method the JSON-RPC method if known.
+     * @param errorCode the JSON-RPC error code, {@code 0} if it succeeded.
+     * @param batchSize the number of calls, {@code 1} for a single request.
+     * @param requestSize the characters read.
+     * @param responseSize the characters written.
+     */
+    public static void commit(final Object event, final String method, final int errorCode, final int batchSize,
+                              final long requestSize, final long responseSize) {
+        if (event != null) {
+            DELEGATE.commit(event, method, errorCode, batchSize, requestSize, responseSize);
+        }
+    }
+
+    /**
+     * @return true if the events are available (it does not mean they are enabled in a recording).
+     */
+    public static boolean isAvailable() {
+        return DELEGATE != Delegate.NOOP;
+    }
+
+    public static int errorCode(final Throwable error) {
+        final Throwable cause = CompletionException.class.isInstance(error) && error.getCause() != null ?
+                error.getCause() : error;
+        return JsonRpcException.class.isInstance(cause) ? JsonRpcException.class.cast(cause).getCode() : -32099;
+    }
+
+    private static Delegate load() {
+        try {
+            return Delegate.class.cast(Class.forName(
+                    "com.github.rmannibucau.jsonrpc.tracing.jfr.JfrFlightRecorder", true,
+                    FlightRecorder.class.getClassLoader()).getConstructor().newInstance());
+        } catch (final ClassNotFoundException | NoClassDefFoundError e) { // java 8 or no jdk.jfr module
+            return Delegate.NOOP;
+        } catch (final Exception | Error e) {
+            Logger.getLogger(FlightRecorder.class.getName()).log(Level.FINE, e.getMessage(), e);
+            return Delegate.NOOP;
+        }
+    }
+
+    public interface Delegate {
+        Delegate NOOP = new Delegate() {
+            @Override
+            public Object begin(final int type) {
+                return null;
+            }
+
+            @Override
+            public void commit(final Object event, final String method, final int errorCode, final int batchSize,
+                               final long requestSize, final long responseSize) {
+                // no-op
+            }
+        };
+
+        Object begin(int type);
+
+        void commit(Object event, String method, int errorCode, int batchSize, long requestSize, long responseSize);
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.rmannibucau.jsonrpc.tracing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+
+/**
+ * Keeps the traced calls in memory, it is a local stand-in for a tracing backend (tests, debugging).
+ * Don't forget to {@link #clear()} it.
+ */
+public class InMemoryTracer implements Tracer {
+    private final Queue<CallContext> calls = new ConcurrentLinkedQueue<>();
+    private final Queue<RequestContext> requests = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void onCall(final CallContext call) {
+        calls.add(call);
+    }
+
+    @Override
+    public void onRequest(final RequestContext request) {
+        requests.add(request);
+    }
+
+    public Collection<CallContext> getCalls() {
+        return new ArrayList<>(calls);
+    }
+
+    public Collection<RequestContext> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    public void clear() {
+        calls.clear();
+        requests.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.rmannibucau.jsonrpc.tracing;
+
+public enum Phase {
+    PARSE("parse"),
+    VALIDATE("validate"),
+    BIND("bind"),
+    INVOKE("invoke"),
+    MAP("map"),
+    WRITE("write");
+
+    private final String metricName;
+
+    Phase(final String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return the name used in {@code Server-Timing} header.
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
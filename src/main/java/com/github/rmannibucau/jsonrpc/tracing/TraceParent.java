@@ -0,0 +1,99 @@
+package com.github.rmannibucau.jsonrpc.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C trace context {@code traceparent} header value: {@code <version>-<trace-id>-<parent-id>-<flags>}.
+ *
+ * @see <a href="https://www.w3.org/TR/trace-context/">W3C Trace Context</a>
+ */
+public class TraceParent {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final String traceId;
+    private final String spanId;
+    private final String flags;
+
+    public TraceParent(final String traceId, final String spanId, final String flags) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.flags = flags;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getFlags() {
+        return flags;
+    }
+
+    /**
+     * @return a span in the same trace, having this span as parent.
+     */
+    public TraceParent newChild() {
+        return new TraceParent(traceId, randomHex(8), flags);
+    }
+
+    @Override
+    public String toString() {
+        return "00-" + traceId + '-' + spanId + '-' + flags;
+    }
+
+    /**
+     * @return a new trace (sampled).
+     */
+    public static TraceParent newRoot() {
+        return new TraceParent(randomHex(16), randomHex(8), "01");
+    }
+
+    /**
+     * @param header the {@code traceparent} header value.
+     * @return the parsed value or {@code null} if the header is missing or invalid.
+     */
+    public static TraceParent parse(final String header) {
+        if (header == null) {
+            return null;
+        }
+        final String value = header.trim();
+        // version 00 is exactly 55 chars, future versions can append fields after the flags
+        if (value.length() < 55 || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-' ||
+                (value.length() > 55 && value.charAt(55) != '-') || value.startsWith("ff") ||
+                !isHex(value, 0, 2) || !isHex(value, 3, 35) || !isHex(value, 36, 52) || !isHex(value, 53, 55)) {
+            return null;
+        }
+        final String traceId = value.substring(3, 35);
+        final String spanId = value.substring(36, 52);
+        if (INVALID_TRACE_ID.equals(traceId) || INVALID_SPAN_ID.equals(spanId)) {
+            return null;
+        }
+        return new TraceParent(traceId, spanId, value.substring(53, 55));
+    }
+
+    private static boolean isHex(final String value, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomHex(final int bytes) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final char[] out = new char[bytes * 2];
+        for (int i = 0; i < bytes; i++) {
+            final int b = random.nextInt(256);
+            out[i * 2] = HEX[b >> 4];
+            out[i * 2 + 1] = HEX[b & 0xF];
+        }
+        return new String(out);
+    }
+}
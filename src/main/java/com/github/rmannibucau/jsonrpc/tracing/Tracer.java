@@ -0,0 +1,32 @@
+package com.github.rmannibucau.jsonrpc.tracing;
+
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+
+/**
+ * Tracing SPI, implementations must be fast since they are called on the request thread.
+ *
+ * It can be provided as a CDI bean or registered with a {@link java.util.ServiceLoader}.
+ */
+public interface Tracer {
+    Tracer NOOP = new Tracer() {
+    };
+
+    /**
+     * Called when a JSON-RPC call (a batch element for batches) completed.
+     *
+     * @param call the call with its phase timings.
+     */
+    default void onCall(final CallContext call) {
+        // no-op
+    }
+
+    /**
+     * Called when a request (potentially a batch) was written.
+     *
+     * @param request the request with its cumulated phase timings.
+     */
+    default void onRequest(final RequestContext request) {
+        // no-op
+    }
+}
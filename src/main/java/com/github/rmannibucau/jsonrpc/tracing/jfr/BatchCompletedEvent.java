@@ -0,0 +1,11 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.rmannibucau.jsonrpc.BatchCompleted")
+@Label("Batch Completed")
+@Description("All the calls of a batch completed")
+class BatchCompletedEvent extends RpcEvent {
+}
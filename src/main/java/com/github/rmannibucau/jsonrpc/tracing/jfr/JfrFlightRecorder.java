@@ -0,0 +1,56 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.EventType;
+
+import com.github.rmannibucau.jsonrpc.tracing.FlightRecorder;
+
+// loaded by FlightRecorder on java 11+, the event types are indexed by FlightRecorder constants
+public class JfrFlightRecorder implements FlightRecorder.Delegate {
+    private final EventType[] types = new EventType[]{
+            EventType.getEventType(RequestParsedEvent.class),
+            EventType.getEventType(MethodInvokedEvent.class),
+            EventType.getEventType(ResultSerializedEvent.class),
+            EventType.getEventType(BatchCompletedEvent.class)
+    };
+
+    @Override
+    public Object begin(final int type) {
+        if (!types[type].isEnabled()) {
+            return null;
+        }
+        final RpcEvent event = newEvent(type);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commit(final Object event, final String method, final int errorCode, final int batchSize,
+                       final long requestSize, final long responseSize) {
+        final RpcEvent rpcEvent = RpcEvent.class.cast(event);
+        rpcEvent.end();
+        if (!rpcEvent.shouldCommit()) {
+            return;
+        }
+        rpcEvent.method = method;
+        rpcEvent.errorCode = errorCode;
+        rpcEvent.batchSize = batchSize;
+        rpcEvent.requestSize = requestSize;
+        rpcEvent.responseSize = responseSize;
+        rpcEvent.commit();
+    }
+
+    private RpcEvent newEvent(final int type) {
+        switch (type) {
+            case FlightRecorder.REQUEST_PARSED:
+                return new RequestParsedEvent();
+            case FlightRecorder.METHOD_INVOKED:
+                return new MethodInvokedEvent();
+            case FlightRecorder.RESULT_SERIALIZED:
+                return new ResultSerializedEvent();
+            case FlightRecorder.BATCH_COMPLETED:
+                return new BatchCompletedEvent();
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.rmannibucau.jsonrpc.MethodInvoked")
+@Label("Method Invoked")
+@Description("A method was executed, binding and result mapping included")
+class MethodInvokedEvent extends RpcEvent {
+}
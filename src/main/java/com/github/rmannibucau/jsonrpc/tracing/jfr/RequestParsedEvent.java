@@ -0,0 +1,11 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.rmannibucau.jsonrpc.RequestParsed")
+@Label("Request Parsed")
+@Description("A request (or batch) was read and parsed")
+class RequestParsedEvent extends RpcEvent {
+}
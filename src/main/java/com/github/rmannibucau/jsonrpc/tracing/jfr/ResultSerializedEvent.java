@@ -0,0 +1,11 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.rmannibucau.jsonrpc.ResultSerialized")
+@Label("Result Serialized")
+@Description("A response (or batch of responses) was written")
+class ResultSerializedEvent extends RpcEvent {
+}
@@ -0,0 +1,31 @@
+package com.github.rmannibucau.jsonrpc.tracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+@StackTrace(false)
+@Category("JSON-RPC")
+abstract class RpcEvent extends Event {
+    @Label("Method")
+    @Description("The JSON-RPC method when known")
+    String method;
+
+    @Label("Error Code")
+    @Description("The JSON-RPC error code, 0 on success")
+    int errorCode;
+
+    @Label("Batch Size")
+    @Description("The number of calls, 1 for a single request")
+    int batchSize;
+
+    @Label("Request Size")
+    @Description("The characters read")
+    long requestSize;
+
+    @Label("Response Size")
+    @Description("The characters written")
+    long responseSize;
+}
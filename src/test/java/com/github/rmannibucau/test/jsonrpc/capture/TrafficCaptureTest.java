@@ -0,0 +1,137 @@
+package com.github.rmannibucau.test.jsonrpc.capture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.capture.TrafficCapture;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.socket.Framing;
+import com.github.rmannibucau.jsonrpc.socket.JsonRpcSocketServer;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import org.junit.jupiter.api.Test;
+
+class TrafficCaptureTest {
+    @Test
+    void captureAndRead() throws Exception {
+        final Path file = Paths.get("target/capture/traffic.capture");
+        Files.createDirectories(file.getParent());
+
+        final String single = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"héllo\"]}";
+        final String batch = "[" + single + "," + single.replace("\"1\"", "\"2\"") + "]";
+        final String unknown = "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"missing\"}";
+        try (final Jsonb jsonb = JsonbBuilder.create();
+             final TrafficCapture capture = new TrafficCapture(file, 1, 16, 1024 * 1024)) {
+            final JsonRpcHandler handler = createHandler(jsonb);
+            handler.setCapture(capture);
+            for (final String request : new String[]{single, batch, unknown}) {
+                handler.handle(new StringReader(request), new ResponseHandler(), Optional::empty);
+            }
+            capture.close();
+            assertEquals(3, capture.getCaptured());
+            assertEquals(0, capture.getDropped());
+        }
+
+        final List<TrafficCapture.Entry> entries = new ArrayList<>();
+        TrafficCapture.read(file, entries::add);
+        assertEquals(3, entries.size());
+        assertEquals("echo", entries.get(0).getMethod());
+        assertEquals(single, entries.get(0).getPayload());
+        assertEquals("", entries.get(1).getMethod());
+        assertEquals(batch, entries.get(1).getPayload());
+        assertEquals("", entries.get(2).getMethod());
+        assertEquals(unknown, entries.get(2).getPayload());
+        for (int i = 0; i < entries.size(); i++) {
+            assertTrue(entries.get(i).getDuration() > 0);
+            assertTrue(i == 0 || entries.get(i).getTimestamp() >= entries.get(i - 1).getTimestamp());
+        }
+    }
+
+    @Test
+    void socket() throws Exception {
+        final Path file = Paths.get("target/capture/socket.capture");
+        Files.createDirectories(file.getParent());
+        final String request = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"socket\"]}";
+        try (final Jsonb jsonb = JsonbBuilder.create();
+             final TrafficCapture capture = new TrafficCapture(file, 1, 16, 1024 * 1024)) {
+            final JsonRpcHandler handler = createHandler(jsonb);
+            handler.setCapture(capture);
+            try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.NDJSON)
+                    .start(new InetSocketAddress("localhost", 0));
+                 final Socket socket = new Socket("localhost", server.getPort())) {
+                socket.getOutputStream().write((request + "\n").getBytes(UTF_8));
+                socket.getOutputStream().flush();
+                assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"socket\"}",
+                        new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8)).readLine());
+            }
+            capture.close();
+        }
+        final List<TrafficCapture.Entry> entries = new ArrayList<>();
+        TrafficCapture.read(file, entries::add);
+        assertEquals(1, entries.size());
+        assertEquals("echo", entries.get(0).getMethod());
+        assertEquals(request, entries.get(0).getPayload());
+    }
+
+    @Test
+    void maxSize() throws IOException {
+        final Path file = Paths.get("target/capture/full.capture");
+        Files.createDirectories(file.getParent());
+        try (final TrafficCapture capture = new TrafficCapture(file, 1, 16, 100)) {
+            capture.record("echo", System.nanoTime(), 1, "{\"method\":\"echo\"}");
+            capture.record("echo", System.nanoTime(), 1, "{\"method\":\"echo\",\"params\":[\"a long enough payload\"]}");
+            capture.close();
+            assertEquals(1, capture.getCaptured());
+            assertEquals(1, capture.getDropped());
+        }
+        final List<TrafficCapture.Entry> entries = new ArrayList<>();
+        TrafficCapture.read(file, entries::add);
+        assertEquals(1, entries.size());
+        assertEquals("{\"method\":\"echo\"}", entries.get(0).getPayload());
+    }
+
+    @Test
+    void invalidFile() throws IOException {
+        final Path file = Paths.get("target/capture/invalid.capture");
+        Files.createDirectories(file.getParent());
+        Files.write(file, "{}\n{}\n".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> TrafficCapture.read(file, entry -> {}));
+    }
+
+    private JsonRpcHandler createHandler(final Jsonb jsonb) {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration("echo", String.class, args -> args[0],
+                singletonList(new Registration.Parameter(String.class, "value", 0, true, "")), emptyList(), ""));
+
+        final JsonRpcHandler handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+        return handler;
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.rmannibucau.test.jsonrpc.codec;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.Response;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behavior expected from any {@link JsonRpcCodec}, extend it to check another implementation.
+ */
+public abstract class CodecConformanceTest {
+    private JsonRpcCodec codec;
+
+    protected abstract JsonRpcCodec createCodec();
+
+    protected void destroyCodec(final JsonRpcCodec codec) throws Exception {
+        // no-op
+    }
+
+    @BeforeEach
+    void init() {
+        codec = createCodec();
+    }
+
+    @AfterEach
+    void destroy() throws Exception {
+        destroyCodec(codec);
+    }
+
+    @Test
+    void parseEnvelope() {
+        final String request = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"m\"," +
+                "\"params\":{\"a\":[1,-2.5,1e3,\"\\u00e9\\\"\\n\",true,false,null,{},[]],\"b\":12345678901234}}";
+        final JsonProvider provider = codec.getJsonProvider();
+        try (final JsonParser parser = provider.createParser(new StringReader(request))) {
+            assertEquals(JsonParser.Event.START_OBJECT, parser.next());
+            final JsonObject object = parser.getObject();
+            assertEquals("m", object.getString("method"));
+            assertEquals("é\"\n", object.getJsonObject("params").getJsonArray("a").getString(3));
+            assertEquals(12345678901234L, object.getJsonObject("params").getJsonNumber("b").longValue());
+            assertEquals(json(request), object);
+        }
+        assertThrows(JsonException.class, () -> {
+            try (final JsonReader reader = provider.createReader(new StringReader("{\"jsonrpc\":"))) {
+                reader.readValue();
+            }
+        });
+    }
+
+    @Test
+    void bindParameters() throws NoSuchMethodException {
+        assertEquals("a \"b\" é", codec.fromJson(json("\"a \\\"b\\\" \\u00e9\""), String.class));
+        assertEquals(3, codec.fromJson(json("3"), int.class));
+        assertEquals(3L, codec.fromJson(json("3"), Long.class));
+        assertEquals(2.5, codec.fromJson(json("2.5"), double.class));
+        assertEquals(true, codec.fromJson(JsonValue.TRUE, boolean.class));
+        assertEquals(Kind.SMALL, codec.fromJson(json("\"SMALL\""), Kind.class));
+        assertArrayEquals(new int[]{1, 2}, (int[]) codec.fromJson(json("[1,2]"), int[].class));
+        assertNull(codec.fromJson(JsonValue.NULL, Item.class));
+
+        final Item item = Item.class.cast(codec.fromJson(json("{\"name\":\"a\",\"price\":1.5,\"kind\":\"LARGE\",\"unknown\":1}"), Item.class));
+        assertEquals(new Item("a", 1.5, Kind.LARGE), item);
+
+        final Object items = codec.fromJson(json("[{\"name\":\"a\",\"price\":1},{\"name\":\"b\",\"tags\":[\"x\"]}]"), type("items"));
+        final Item second = new Item("b", 0, null);
+        second.setTags(singletonList("x"));
+        assertEquals(asList(new Item("a", 1, null), second), items);
+
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("a", 1);
+        counts.put("b", 2);
+        assertEquals(counts, codec.fromJson(json("{\"a\":1,\"b\":2}"), type("counts")));
+        assertEquals(json("{\"a\":[1]}"), codec.fromJson(json("{\"a\":[1]}"), JsonObject.class));
+    }
+
+    @Test
+    void writeResponses() {
+        final Response result = new Response();
+        result.setId("1");
+        result.setResult(json("{\"name\":\"a\",\"values\":[1,2]}"));
+        assertEquals(json("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":{\"name\":\"a\",\"values\":[1,2]}}"), write(result));
+
+        final Response error = new Response();
+        error.setId("2");
+        error.setError(new Response.ErrorResponse());
+        error.getError().setCode(-32602);
+        error.getError().setMessage("Invalid \"params\"");
+        error.getError().setData(json("[\"a\"]"));
+        assertEquals(json("{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32602,\"message\":\"Invalid \\\"params\\\"\",\"data\":[\"a\"]}}"),
+                write(error));
+
+        final Response notification = new Response(); // no id
+        notification.setResult(JsonValue.TRUE);
+        assertEquals(json("[" + write(result) + "," + write(error) + ",{\"jsonrpc\":\"2.0\",\"result\":true}]"),
+                write(new Response[]{result, error, notification}));
+
+        assertEquals(json("{\"kind\":\"SMALL\",\"name\":\"é\",\"price\":2.0}"), write(new Item("é", 2, Kind.SMALL)));
+    }
+
+    @Test
+    void toJsonValue() {
+        assertEquals(json("\"a\""), codec.toJsonValue("a"));
+        assertEquals(json("10"), codec.toJsonValue(10L));
+        assertEquals(JsonValue.TRUE, codec.toJsonValue(true));
+        assertEquals(json("{\"kind\":\"LARGE\",\"name\":\"a\",\"price\":1.0}"), codec.toJsonValue(new Item("a", 1, Kind.LARGE)));
+        assertEquals(json("[{\"name\":\"b\",\"price\":0.0,\"tags\":[]}]"), codec.toJsonValue(singletonList(withTags(new Item("b", 0, null)))));
+    }
+
+    @Test
+    void handler() throws NoSuchMethodException {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setCodec(codec);
+        registry.registerMethod(new Registration("total", double.class,
+                args -> {
+                    final List<?> items = List.class.cast(args[0]);
+                    return items.stream().mapToDouble(it -> Item.class.cast(it).getPrice()).sum();
+                },
+                singletonList(new Registration.Parameter(type("items"), "items", 0, true, "")), emptyList(), ""));
+        registry.registerMethod(new Registration("item", Item.class,
+                args -> new Item(String.class.cast(args[0]), 1, Kind.class.cast(args[1])),
+                asList(new Registration.Parameter(String.class, "name", 0, true, ""),
+                        new Registration.Parameter(type("kind"), "kind", 1, false, "")), emptyList(), ""));
+
+        final JsonRpcHandler handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setCodec(codec);
+        handler.setRegistry(registry);
+
+        assertEquals(json("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":3.5}"), call(handler,
+                "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"total\",\"params\":[[{\"name\":\"a\",\"price\":1},{\"name\":\"b\",\"price\":2.5}]]}"));
+        assertEquals(json("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":{\"kind\":\"SMALL\",\"name\":\"a\",\"price\":1.0}}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":{\"name\":\"b\",\"price\":1.0}}]"),
+                call(handler, "[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"item\",\"params\":{\"name\":\"a\",\"kind\":\"SMALL\"}}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"item\",\"params\":[\"b\"]}]"));
+        assertEquals(-32700, call(handler, "{\"jsonrpc\":").asJsonObject().getJsonObject("error").getInt("code"));
+    }
+
+    private JsonValue call(final JsonRpcHandler handler, final String request) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), responseHandler, Optional::empty);
+        return json(responseHandler.getResult().substring("200\n".length()));
+    }
+
+    private JsonValue write(final Object value) {
+        final StringWriter writer = new StringWriter();
+        codec.toJson(value, writer);
+        return json(writer.toString());
+    }
+
+    private JsonValue json(final String json) {
+        try (final JsonReader reader = codec.getJsonProvider().createReader(new StringReader(json))) {
+            return reader.readValue();
+        }
+    }
+
+    private static Item withTags(final Item item) {
+        item.setTags(emptyList());
+        return item;
+    }
+
+    private static Type type(final String name) throws NoSuchMethodException {
+        return Stream.of(Signatures.class.getMethods())
+                .filter(it -> it.getName().equals(name))
+                .findFirst()
+                .orElseThrow(NoSuchMethodException::new)
+                .getGenericParameterTypes()[0];
+    }
+
+    public interface Signatures {
+        void items(List<Item> items);
+
+        void counts(Map<String, Integer> counts);
+
+        void kind(Kind kind);
+    }
+
+    public enum Kind {
+        SMALL, LARGE
+    }
+
+    public static class Item {
+        private String name;
+        private double price;
+        private Kind kind;
+        private List<String> tags;
+
+        public Item() {
+            // no-op
+        }
+
+        private Item(final String name, final double price, final Kind kind) {
+            this.name = name;
+            this.price = price;
+            this.kind = kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(final double price) {
+            this.price = price;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public void setKind(final Kind kind) {
+            this.kind = kind;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(final List<String> tags) {
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Item item = Item.class.cast(o);
+            return Double.compare(item.price, price) == 0 && Objects.equals(name, item.name) &&
+                    kind == item.kind && Objects.equals(tags, item.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, price, kind, tags);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.rmannibucau.test.jsonrpc.codec;
+
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.codec.JsonbCodec;
+
+class JsonbCodecTest extends CodecConformanceTest {
+    @Override
+    protected JsonRpcCodec createCodec() {
+        return new JsonbCodec(JsonbBuilder.create(), JsonProvider.provider());
+    }
+
+    @Override
+    protected void destroyCodec(final JsonRpcCodec codec) throws Exception {
+        JsonbCodec.class.cast(codec).getJsonb().close();
+    }
+}
@@ -0,0 +1,277 @@
+package com.github.rmannibucau.test.jsonrpc.gateway;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.gateway.ConsistentHashRing;
+import com.github.rmannibucau.jsonrpc.gateway.ShardedGateway;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Warmup;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedGatewayTest {
+    private final List<Node> nodes = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private Jsonb jsonb;
+    private JsonProvider provider;
+    private List<String> urls;
+    private ConsistentHashRing ring;
+
+    @BeforeAll
+    void init() throws IOException {
+        jsonb = JsonbBuilder.create();
+        provider = JsonProvider.provider();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new Node(HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16)));
+        }
+        urls = nodes.stream()
+                .map(it -> "http://127.0.0.1:" + it.server.getAddress().getPort() + "/jsonrpc")
+                .collect(toList());
+        ring = new ConsistentHashRing(urls, 128);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).start(urls.get(i), new ShardedGateway(urls, urls.get(i), 128, 4, 1000, 30000, provider));
+        }
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        nodes.forEach(Node::stop);
+        executor.shutdownNow();
+        jsonb.close();
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        nodes.forEach(it -> it.requests.set(0));
+    }
+
+    @Test
+    void single() {
+        for (int i = 0; i < 30; i++) {
+            final String key = "user-" + i;
+            final JsonObject response = post(0, call(i, "kv.owner", key)).asJsonObject();
+            assertEquals(ring.owner(key) + "|" + key, response.getString("result"), response::toString);
+        }
+        // local methods are never forwarded
+        assertEquals(urls.get(0), post(0, "{\"jsonrpc\":\"2.0\",\"id\":\"l\",\"method\":\"whoami\"}").asJsonObject().getString("result"));
+        assertEquals(forwardedTo(1, 30), nodes.get(1).requests.get());
+        assertEquals(forwardedTo(2, 30), nodes.get(2).requests.get());
+    }
+
+    @Test
+    void batch() {
+        final List<String> keys = IntStream.range(0, 20).mapToObj(i -> "item-" + i).collect(toList());
+        assertTrue(keys.stream().map(ring::owner).collect(toSet()).size() == 3);
+        final String request = IntStream.range(0, keys.size())
+                .mapToObj(i -> i == 5 ? "{\"jsonrpc\":\"2.0\",\"id\":\"l\",\"method\":\"whoami\"}" :
+                        i == 6 ? "\"invalid\"" : call(i, "kv.owner", keys.get(i)))
+                .collect(joining(",", "[", "]"));
+
+        final JsonArray responses = post(0, request).asJsonArray();
+        assertEquals(keys.size(), responses.size());
+        for (int i = 0; i < keys.size(); i++) {
+            final JsonObject response = responses.getJsonObject(i);
+            if (i == 5) {
+                assertEquals(urls.get(0), response.getString("result"));
+            } else if (i == 6) {
+                assertEquals(-32600, response.getJsonObject("error").getInt("code"));
+            } else {
+                assertEquals(Integer.toString(i), response.getString("id"));
+                assertEquals(ring.owner(keys.get(i)) + "|" + keys.get(i), response.getString("result"));
+            }
+        }
+        // one forwarded sub-batch per remote owner
+        assertEquals(1, nodes.get(1).requests.get());
+        assertEquals(1, nodes.get(2).requests.get());
+    }
+
+    @Test
+    void unreachableNode() throws IOException {
+        final String self = urls.get(0);
+        final String down;
+        try (final ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            down = "http://127.0.0.1:" + socket.getLocalPort() + "/jsonrpc";
+        }
+        final ConsistentHashRing twoNodes = new ConsistentHashRing(asList(self, down), 128);
+        final String key = IntStream.range(0, 100).mapToObj(i -> "k" + i)
+                .filter(it -> twoNodes.owner(it).equals(down))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        try (final ShardedGateway gateway = new ShardedGateway(asList(self, down), self, 128, 1, 1000, 5000, provider)) {
+            final JsonRpcHandler handler = nodes.get(0).newHandler(self, gateway);
+            final JsonObject response = JsonObject.class.cast(handler.prepareResultChain(
+                    provider.createReader(new StringReader(call(1, "kv.owner", key))).readObject())
+                    .thenApply(it -> provider.createReader(new StringReader(jsonb.toJson(it))).readObject())
+                    .toCompletableFuture().join());
+            assertEquals(-32603, response.getJsonObject("error").getInt("code"));
+            assertTrue(response.getJsonObject("error").getString("message").startsWith("Can't forward the call to " + down));
+        }
+    }
+
+    @Test
+    void warmupStaysLocal() throws IOException {
+        final List<String> keys = IntStream.range(0, 20).mapToObj(i -> "warm-" + i)
+                .filter(it -> !ring.owner(it).equals(urls.get(0)))
+                .collect(toList());
+        assertTrue(keys.size() > 1);
+        final Path samples = Paths.get("target/warmup/" + ShardedGatewayTest.class.getSimpleName() + ".json");
+        Files.createDirectories(samples.getParent());
+        Files.write(samples, IntStream.range(0, keys.size())
+                .mapToObj(i -> call(i, "kv.owner", keys.get(i)))
+                .collect(joining(",", "[", "]")).getBytes(UTF_8));
+
+        final HandlerRegistry registry = nodes.get(0).newRegistry(urls.get(0));
+        final Warmup warmup = new Warmup(nodes.get(0).newHandler(registry, nodes.get(0).gateway), registry, provider);
+        warmup.setSamples(samples.toString());
+        warmup.setIterations(1);
+        warmup.setInvoke(true);
+        assertEquals(keys.size(), warmup.run());
+        // the warmup calls are executed locally, the owners never receive them
+        assertEquals(0, nodes.get(1).requests.get());
+        assertEquals(0, nodes.get(2).requests.get());
+    }
+
+    // the requests a node received for the keys 0..count of the single test
+    private int forwardedTo(final int node, final int count) {
+        return (int) IntStream.range(0, count).filter(i -> ring.owner("user-" + i).equals(urls.get(node))).count();
+    }
+
+    private String call(final int id, final String method, final String key) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":\"" + id + "\",\"method\":\"" + method + "\",\"params\":{\"key\":\"" + key + "\"}}";
+    }
+
+    private JsonStructure post(final int node, final String request) {
+        try {
+            final HttpURLConnection connection = HttpURLConnection.class.cast(new URL(urls.get(node)).openConnection());
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (final OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(request.getBytes(UTF_8));
+            }
+            assertEquals(200, connection.getResponseCode());
+            try (final JsonReader reader = provider.createReader(new InputStreamReader(connection.getInputStream(), UTF_8))) {
+                return reader.read();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Node {
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+        private ShardedGateway gateway;
+
+        private Node(final HttpServer server) {
+            this.server = server;
+        }
+
+        private void start(final String url, final ShardedGateway gateway) {
+            this.gateway = gateway;
+            final JsonRpcHandler handler = newHandler(url, gateway);
+            server.setExecutor(executor);
+            server.createContext("/jsonrpc", exchange -> {
+                final RequestContext context = new RequestContext();
+                context.setForwarded(exchange.getRequestHeaders().getFirst(ShardedGateway.FORWARDED_HEADER) != null);
+                if (context.isForwarded()) {
+                    requests.incrementAndGet();
+                }
+                try (final InputStream body = exchange.getRequestBody()) {
+                    handler.handle(new InputStreamReader(body, UTF_8), context, (status, writer) -> {
+                        final StringWriter response = new StringWriter();
+                        writer.accept(response);
+                        final byte[] bytes = response.toString().getBytes(UTF_8);
+                        try {
+                            exchange.getResponseHeaders().set("Content-Type", "application/json");
+                            exchange.sendResponseHeaders(status, bytes.length);
+                            try (final OutputStream outputStream = exchange.getResponseBody()) {
+                                outputStream.write(bytes);
+                            }
+                        } catch (final IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, Optional::empty);
+                }
+            });
+            server.start();
+        }
+
+        private JsonRpcHandler newHandler(final String url, final ShardedGateway gateway) {
+            return newHandler(newRegistry(url), gateway);
+        }
+
+        private HandlerRegistry newRegistry(final String url) {
+            final HandlerRegistry registry = new HandlerRegistry();
+            registry.setJsonb(jsonb);
+            registry.setJsonProvider(provider);
+            registry.registerMethod(new Registration(
+                    "kv.owner", String.class, args -> url + "|" + args[0],
+                    singletonList(new Registration.Parameter(String.class, "key", 0, true, "")),
+                    emptyList(), "").setShardKey("key"));
+            registry.registerMethod(new Registration("whoami", String.class, args -> url, emptyList(), emptyList(), ""));
+            return registry;
+        }
+
+        private JsonRpcHandler newHandler(final HandlerRegistry registry, final ShardedGateway gateway) {
+            final JsonRpcHandler handler = new JsonRpcHandler();
+            handler.setConfiguration(new Configuration());
+            handler.setJsonb(jsonb);
+            handler.setRegistry(registry);
+            handler.setGateway(gateway);
+            return handler;
+        }
+
+        private void stop() {
+            server.stop(0);
+            gateway.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.rmannibucau.test.jsonrpc.impl;
+
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.json.Json;
+import javax.json.JsonString;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HandlerRegistryTest {
+    private Jsonb jsonb;
+    private Method method;
+    private JsonRpcParam[] params;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        method = Endpoint.class.getMethod("hello", String.class);
+        params = new JsonRpcParam[]{method.getParameters()[0].getAnnotation(JsonRpcParam.class)};
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void lazyLookup() throws ExecutionException, InterruptedException {
+        final AtomicInteger lookups = new AtomicInteger();
+        final HandlerRegistry registry = register(1, true, lookups);
+        assertEquals(0, lookups.get());
+
+        for (int i = 0; i < 2; i++) {
+            final JsonString result = JsonString.class.cast(registry.getHandlers().get("hello_0").getExecutor()
+                    .apply(Json.createArrayBuilder().add("lazy").build())
+                    .toCompletableFuture().get());
+            assertEquals("hello lazy", result.getString());
+        }
+        assertEquals(1, lookups.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    void startupLookups(final int endpoints) {
+        for (final boolean lazy : new boolean[]{false, true}) { // the bean supplier is only called at first call
+            final AtomicInteger lookups = new AtomicInteger();
+            assertEquals(endpoints, register(endpoints, lazy, lookups).getHandlers().size());
+            assertEquals(0, lookups.get());
+        }
+    }
+
+    @Test
+    void parallelRegistration() throws Exception {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+
+        final Set<ClassLoader> loaders = ConcurrentHashMap.newKeySet();
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        final ClassLoader deployment = new URLClassLoader(new URL[0], original);
+        thread.setContextClassLoader(deployment);
+        try {
+            registry.registerInParallel(IntStream.range(0, 100)
+                    .<Runnable>mapToObj(i -> () -> {
+                        loaders.add(Thread.currentThread().getContextClassLoader());
+                        registry.registerMethodReflect(
+                                Endpoint::new, method, new MethodLiteral("hello_" + i), params, new JsonRpcException[0], false);
+                    })
+                    .collect(toList()));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+
+        assertEquals(singleton(deployment), loaders);
+        assertEquals(100, registry.getHandlers().size());
+        for (int i = 0; i < 100; i++) {
+            final JsonString result = JsonString.class.cast(registry.getHandlers().get("hello_" + i).getExecutor()
+                    .apply(Json.createArrayBuilder().add("p" + i).build())
+                    .toCompletableFuture().get());
+            assertEquals("hello p" + i, result.getString());
+        }
+    }
+
+    private HandlerRegistry register(final int endpoints, final boolean lazy, final AtomicInteger lookups) {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        IntStream.range(0, endpoints).forEach(i -> registry.registerMethodReflect(
+                () -> {
+                    lookups.incrementAndGet();
+                    return new Endpoint();
+                },
+                method, new MethodLiteral("hello_" + i), params, new JsonRpcException[0], lazy));
+        return registry;
+    }
+
+    public static class Endpoint {
+        public String hello(@JsonRpcParam("name") final String name) {
+            return "hello " + name;
+        }
+    }
+
+    private static class MethodLiteral implements JsonRpcMethod {
+        private final String value;
+
+        private MethodLiteral(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String value() {
+            return value;
+        }
+
+        @Override
+        public String documentation() {
+            return "";
+        }
+
+        @Override
+        public int priority() {
+            return 0;
+        }
+
+        @Override
+        public Dispatch dispatch() {
+            return Dispatch.AUTO;
+        }
+
+        @Override
+        public String shardKey() {
+            return "";
+        }
+
+        @Override
+        public boolean job() {
+            return false;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return JsonRpcMethod.class;
+        }
+    }
+}
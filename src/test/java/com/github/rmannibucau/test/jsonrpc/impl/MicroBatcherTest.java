@@ -0,0 +1,113 @@
+package com.github.rmannibucau.test.jsonrpc.impl;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.json.Json;
+import javax.json.JsonValue;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.MicroBatcher;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MicroBatcherTest {
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final AtomicInteger bulkCalls = new AtomicInteger();
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        register("bySize", TimeUnit.MINUTES.toMicros(1), 4);
+        register("byWindow", TimeUnit.MILLISECONDS.toMicros(200), 100);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void flushOnSize() throws Exception {
+        bulkCalls.set(0);
+        final List<CompletableFuture<JsonValue>> results = IntStream.range(0, 8)
+                .mapToObj(i -> call("bySize", i))
+                .collect(toList());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.toString(i * 2), results.get(i).get(1, TimeUnit.MINUTES).toString());
+        }
+        final MicroBatcher batcher = registry.getHandlers().get("bySize").getMicroBatcher();
+        assertEquals(2, bulkCalls.get());
+        assertEquals(2, batcher.getSizeFlushes());
+        assertEquals(0, batcher.getWindowFlushes());
+        assertEquals(4., batcher.getAverageBatchSize());
+        assertEquals(0, singleCalls.get());
+    }
+
+    @Test
+    void flushOnWindow() throws Exception {
+        final List<CompletableFuture<JsonValue>> results = IntStream.range(0, 3)
+                .mapToObj(i -> call("byWindow", i))
+                .collect(toList());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.toString(i * 2), results.get(i).get(1, TimeUnit.MINUTES).toString());
+        }
+        final MicroBatcher batcher = registry.getHandlers().get("byWindow").getMicroBatcher();
+        assertEquals(1, batcher.getWindowFlushes());
+        assertEquals(3, batcher.getCalls());
+
+        // failures are propagated to each caller
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> call("byWindow", -1).get(1, TimeUnit.MINUTES));
+        assertEquals(-32603, JsonRpcException.class.cast(error.getCause()).getCode());
+        assertEquals("negative", error.getCause().getMessage());
+    }
+
+    private CompletableFuture<JsonValue> call(final String method, final int value) {
+        return registry.getHandlers().get(method).getExecutor()
+                .apply(Json.createArrayBuilder().add(value).build())
+                .toCompletableFuture();
+    }
+
+    private void register(final String name, final long windowMicros, final int maxSize) {
+        registry.registerMethod(new Registration(
+                name, Integer.class, args -> {
+                    singleCalls.incrementAndGet();
+                    return (int) args[0] * 2;
+                },
+                singletonList(new Registration.Parameter(int.class, "value", 0, true, "")),
+                emptyList(), "")
+                .setBulkInvoker(calls -> {
+                    bulkCalls.incrementAndGet();
+                    if (calls.stream().anyMatch(it -> (int) it[0] < 0)) {
+                        throw new IllegalArgumentException("negative");
+                    }
+                    return calls.stream().map(it -> (int) it[0] * 2).collect(toList());
+                })
+                .setMicroBatching(windowMicros, maxSize));
+    }
+}
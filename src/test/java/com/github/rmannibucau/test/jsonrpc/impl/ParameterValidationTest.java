@@ -0,0 +1,138 @@
+package com.github.rmannibucau.test.jsonrpc.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ParameterValidationTest {
+    private static final AtomicInteger CALLS = new AtomicInteger();
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.setParameterValidation(true);
+        final Method method = Endpoint.class.getMethod("order", int.class, String.class, List.class);
+        registry.registerMethodReflect(new Endpoint(), method, method.getAnnotation(JsonRpcMethod.class),
+                Stream.of(method.getParameters()).map(it -> it.getAnnotation(JsonRpcParam.class)).toArray(JsonRpcParam[]::new),
+                new JsonRpcException[]{method.getAnnotation(JsonRpcException.class)});
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void valid() {
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"FAST:3:book/FAST\"}",
+                execute("{\"count\":3,\"label\":\"FAST\",\"items\":[{\"name\":\"book\",\"mode\":\"FAST\"},null]}"));
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"SLOW:1:-\"}", execute("[1,\"SLOW\"]"));
+    }
+
+    @Test
+    void invalid() {
+        final int calls = CALLS.get();
+        assertEquals(error("'count' must be an integer, got string"), execute("{\"count\":\"3\",\"label\":\"FAST\"}"));
+        assertEquals(error("'count' must be an integer, got number"), execute("[1.5,\"FAST\"]"));
+        assertEquals(error("'count' must be between -2147483648 and 2147483647"), execute("[2147483648,\"FAST\"]"));
+        assertEquals(error("'label' must be a string, got true"), execute("[1,true]"));
+        assertEquals(error("'items[1].mode' must be one of [FAST, SLOW]"),
+                execute("[1,\"a\",[{\"name\":\"a\",\"mode\":\"FAST\"},{\"name\":\"b\",\"mode\":\"NONE\"}]]"));
+        assertEquals(calls, CALLS.get());
+    }
+
+    @Test
+    void openRpc() {
+        final JsonObject document = registry.createOpenRpcSpecification("orders", "1.0");
+        assertEquals("{\"openrpc\":\"1.2.6\",\"info\":{\"title\":\"orders\",\"version\":\"1.0\"},\"methods\":[{" +
+                "\"name\":\"order\",\"description\":\"Creates an order.\",\"paramStructure\":\"either\",\"params\":[" +
+                "{\"name\":\"count\",\"required\":true,\"schema\":{\"type\":\"integer\",\"minimum\":-2147483648,\"maximum\":2147483647}}," +
+                "{\"name\":\"label\",\"description\":\"The order label.\",\"required\":true,\"schema\":{\"type\":\"string\"}}," +
+                "{\"name\":\"items\",\"required\":false,\"schema\":{\"type\":\"array\",\"items\":{\"type\":\"object\",\"properties\":{" +
+                "\"name\":{\"type\":\"string\"},\"mode\":{\"type\":\"string\",\"enum\":[\"FAST\",\"SLOW\"]}}}}}]," +
+                "\"result\":{\"name\":\"result\",\"schema\":{\"type\":\"string\"}}," +
+                "\"errors\":[{\"code\":400,\"message\":\"Bad order.\"}]}]}", document.toString());
+    }
+
+    private String error(final String message) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32602,\"message\":\"Invalid params: " + message + "\"}}";
+    }
+
+    private String execute(final String params) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"order\",\"params\":" + params + "}"),
+                responseHandler, Optional::empty);
+        return responseHandler.getResult().substring("200\n".length());
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+    public static class Item {
+        private String name;
+        private Mode mode;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(final Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Endpoint {
+        @JsonRpcMethod(value = "order", documentation = "Creates an order.")
+        @JsonRpcException(code = 400, handled = IllegalArgumentException.class, documentation = "Bad order.")
+        public String order(@JsonRpcParam(value = "count", required = true) final int count,
+                            @JsonRpcParam(value = "label", required = true, documentation = "The order label.") final String label,
+                            @JsonRpcParam("items") final List<Item> items) {
+            CALLS.incrementAndGet();
+            return label + ":" + count + ":" + (items == null ? "-" : items.get(0).getName() + "/" + items.get(0).getMode());
+        }
+    }
+}
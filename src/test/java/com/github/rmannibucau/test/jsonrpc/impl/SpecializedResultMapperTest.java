@@ -0,0 +1,272 @@
+package com.github.rmannibucau.test.jsonrpc.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import javax.json.JsonValue;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.annotation.JsonbProperty;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.codec.JsonRpcCodec;
+import com.github.rmannibucau.jsonrpc.codec.JsonbCodec;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SpecializedResultMapperTest {
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.setSpecializedResultMappers(true);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void bean() throws Exception {
+        final Bean bean = new Bean();
+        bean.setCount(3);
+        bean.setTotal(Long.MAX_VALUE);
+        bean.setRatio(1.5);
+        bean.setActive(true);
+        bean.setName("with \"quotes\"\n");
+        bean.setLevel(Level.HIGH);
+        bean.setValues(new int[]{1, 2});
+        bean.setWeights(new double[]{0.25});
+        bean.setEnabled(Boolean.FALSE);
+        bean.setChildren(asList(new Child("a"), null, new Child("b")));
+        bean.setTags(new String[]{"x", null});
+        bean.publicField = "field";
+        assertSameAsJsonb(Bean.class, bean);
+        assertSameAsJsonb(Bean.class, new Bean()); // defaults and nulls
+    }
+
+    @Test
+    void collections() throws Exception {
+        assertSameAsJsonb(SpecializedResultMapperTest.class.getDeclaredMethod("children").getGenericReturnType(),
+                asList(new Child("a"), new Child(null)));
+        assertSameAsJsonb(long[].class, new long[]{1, Long.MIN_VALUE});
+    }
+
+    @Test
+    void fallbacks() throws Exception {
+        assertSameAsJsonb(Bean.class, new SubBean()); // runtime type has more properties
+        final Renamed renamed = new Renamed();
+        renamed.setValue("v");
+        assertSameAsJsonb(Renamed.class, renamed); // annotated
+        final WithMap withMap = new WithMap();
+        withMap.setValues(singletonMap("k", 1));
+        assertSameAsJsonb(WithMap.class, withMap); // unsupported property type
+    }
+
+    @Test
+    void customCodec() throws Exception { // the specialized mappers mimic JSON-B so they can't replace another codec
+        final JsonbCodec delegate = new JsonbCodec(jsonb, JsonProvider.provider());
+        final HandlerRegistry custom = new HandlerRegistry();
+        custom.setJsonProvider(JsonProvider.provider());
+        custom.setCodec(new JsonRpcCodec() {
+            @Override
+            public JsonProvider getJsonProvider() {
+                return delegate.getJsonProvider();
+            }
+
+            @Override
+            public Object fromJson(final JsonValue value, final Type type) {
+                return delegate.fromJson(value, type);
+            }
+
+            @Override
+            public void toJson(final Object value, final Writer writer) {
+                delegate.toJson(singletonMap("custom", value), writer);
+            }
+        });
+        custom.setSpecializedResultMappers(true);
+        custom.registerMethod(new Registration("child", Child.class, args -> new Child("a"), emptyList(), emptyList(), ""));
+        assertEquals("{\"custom\":{\"name\":\"a\"}}",
+                custom.getHandlers().get("child").getExecutor().apply(null).toCompletableFuture().get().toString());
+    }
+
+    private void assertSameAsJsonb(final Type type, final Object value) throws ExecutionException, InterruptedException {
+        final String method = "m" + registry.getHandlers().size();
+        registry.registerMethod(new Registration(method, type, args -> value, emptyList(), emptyList(), ""));
+        final JsonValue actual = registry.getHandlers().get(method).getExecutor().apply(null).toCompletableFuture().get();
+        assertEquals(jsonb.fromJson(jsonb.toJson(value), JsonValue.class).toString(), actual.toString());
+    }
+
+    private List<Child> children() {
+        return null;
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class Child {
+        private String name;
+
+        public Child(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Bean {
+        public String publicField;
+        private int count;
+        private long total;
+        private double ratio;
+        private boolean active;
+        private Boolean enabled;
+        private String name;
+        private Level level;
+        private int[] values;
+        private double[] weights;
+        private List<Child> children;
+        private String[] tags;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(final long total) {
+            this.total = total;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(final double ratio) {
+            this.ratio = ratio;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public void setLevel(final Level level) {
+            this.level = level;
+        }
+
+        public int[] getValues() {
+            return values;
+        }
+
+        public void setValues(final int[] values) {
+            this.values = values;
+        }
+
+        public double[] getWeights() {
+            return weights;
+        }
+
+        public void setWeights(final double[] weights) {
+            this.weights = weights;
+        }
+
+        public List<Child> getChildren() {
+            return children;
+        }
+
+        public void setChildren(final List<Child> children) {
+            this.children = children;
+        }
+
+        public String[] getTags() {
+            return tags;
+        }
+
+        public void setTags(final String[] tags) {
+            this.tags = tags;
+        }
+    }
+
+    public static class SubBean extends Bean {
+        public String getExtra() {
+            return "extra";
+        }
+    }
+
+    public static class Renamed {
+        @JsonbProperty("renamed")
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(final String value) {
+            this.value = value;
+        }
+    }
+
+    public static class WithMap {
+        private Map<String, Integer> values;
+
+        public Map<String, Integer> getValues() {
+            return values;
+        }
+
+        public void setValues(final Map<String, Integer> values) {
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.rmannibucau.test.jsonrpc.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.impl.Warmup;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WarmupTest {
+    private static final AtomicInteger SAVES = new AtomicInteger();
+    private static final AtomicReference<String> LAST_SAVE = new AtomicReference<>();
+
+    private final AtomicInteger pings = new AtomicInteger();
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        final Method method = Endpoint.class.getMethod("save", String.class, int.class, List.class);
+        registry.registerMethodReflect(new Endpoint(), method, method.getAnnotation(JsonRpcMethod.class),
+                Stream.of(method.getParameters()).map(it -> it.getAnnotation(JsonRpcParam.class)).toArray(JsonRpcParam[]::new),
+                new JsonRpcException[0]);
+        registry.registerMethod(new Registration("ping", String.class, args -> {
+            pings.incrementAndGet();
+            return "pong";
+        }, emptyList(), emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        SAVES.set(0);
+        LAST_SAVE.set(null);
+        pings.set(0);
+    }
+
+    @Test
+    void skipInvocation() {
+        final Warmup warmup = new Warmup(handler, registry, JsonProvider.provider());
+        warmup.setIterations(2);
+        registry.setReady(false);
+        assertEquals(6, warmup.run()); // 2 methods + a batch
+        assertTrue(registry.isReady());
+        assertEquals(0, SAVES.get());
+        assertEquals(0, pings.get());
+    }
+
+    @Test
+    void invoke() {
+        final Warmup warmup = new Warmup(handler, registry, JsonProvider.provider());
+        warmup.setIterations(1);
+        warmup.setInvoke(true);
+        assertEquals(3, warmup.run());
+        assertEquals(2, SAVES.get()); // alone and in the batch
+        assertEquals(2, pings.get());
+        assertEquals("sample:1:a/FAST", LAST_SAVE.get());
+    }
+
+    @Test
+    void samples() throws Exception {
+        final Path samples = Paths.get("target/warmup/" + WarmupTest.class.getSimpleName() + ".json");
+        Files.createDirectories(samples.getParent());
+        Files.write(samples, ("[" +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"ping\"}," +
+                "[{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"ping\"},{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"ping\"}]" +
+                "]").getBytes(UTF_8));
+        final Warmup warmup = new Warmup(handler, registry, JsonProvider.provider());
+        warmup.setIterations(3);
+        warmup.setInvoke(true);
+        warmup.setSamples(samples.toString());
+        assertEquals(6, warmup.run());
+        assertEquals(9, pings.get());
+        assertEquals(0, SAVES.get());
+    }
+
+    @Test
+    void duration() {
+        final Warmup warmup = new Warmup(handler, registry, JsonProvider.provider());
+        warmup.setDuration(50);
+        final long start = System.nanoTime();
+        assertTrue(warmup.run() > 0);
+        assertTrue(System.nanoTime() - start >= 50_000_000);
+        assertEquals(0, SAVES.get());
+    }
+
+    @Test
+    void disabled() {
+        registry.setReady(false);
+        assertEquals(0, new Warmup(handler, registry, JsonProvider.provider()).run());
+        assertTrue(registry.isReady());
+        assertEquals(0, SAVES.get());
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+    public static class Item {
+        private char code;
+        private Mode mode;
+
+        public char getCode() {
+            return code;
+        }
+
+        public void setCode(final char code) {
+            this.code = code;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(final Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Endpoint {
+        @JsonRpcMethod("save")
+        public String save(@JsonRpcParam("name") final String name,
+                           @JsonRpcParam("count") final int count,
+                           @JsonRpcParam("items") final List<Item> items) {
+            SAVES.incrementAndGet();
+            final String value = name + ":" + count + ":" + items.get(0).getCode() + "/" + items.get(0).getMode();
+            LAST_SAVE.set(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.rmannibucau.test.jsonrpc.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import com.github.rmannibucau.jsonrpc.io.BufferPool;
+import com.github.rmannibucau.jsonrpc.io.Utf8BufferWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Utf8BufferWriterTest {
+    @ParameterizedTest
+    @ValueSource(strings = {"", "ascii", "café", "€100", "emoji 😀 end", "😀😁"})
+    void encode(final String value) throws IOException {
+        final Utf8BufferWriter writer = new Utf8BufferWriter(1);
+        // split writes to ensure surrogate pairs spanning two writes are handled
+        for (int i = 0; i < value.length(); i++) {
+            writer.write(value, i, 1);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        assertArrayEquals(value.getBytes(UTF_8), out.toByteArray());
+        assertEquals(out.size(), writer.size());
+    }
+
+    @Test
+    void poolPredictsSizePerKey() throws IOException {
+        final BufferPool pool = new BufferPool(2, 4096, 32);
+        final Utf8BufferWriter buffer = pool.acquire("m");
+        assertEquals(32, buffer.capacity());
+        buffer.write(new String(new char[500]).replace('\0', 'a'));
+        pool.release("m", buffer);
+
+        final Utf8BufferWriter reused = pool.acquire("m");
+        assertSame(buffer, reused);
+        assertEquals(0, reused.size());
+        assertEquals(500 + (500 >> 3) + 16, pool.predictSize("m"));
+        assertEquals(32, pool.predictSize("other"));
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.rmannibucau.test.jsonrpc.job;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.job.JobManager;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+class JobManagerTest {
+    private final JsonProvider provider = JsonProvider.provider();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Path directory;
+    private Jsonb jsonb;
+    private JobManager jobManager;
+    private JsonRpcHandler handler;
+
+    @BeforeEach
+    void init(final TestInfo info) throws IOException {
+        directory = Paths.get("target/jobs/" + info.getTestMethod().orElseThrow(IllegalStateException::new).getName());
+        if (Files.exists(directory)) {
+            try (final Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(it -> it.toFile().delete());
+            }
+        }
+        jsonb = JsonbBuilder.create();
+        start(60_000);
+    }
+
+    @AfterEach
+    void destroy() throws Exception {
+        release.countDown();
+        jobManager.close();
+        jsonb.close();
+    }
+
+    @Test
+    void completed() throws InterruptedException {
+        final String id = submit("report", "[\"sales\"]");
+        assertEquals("RUNNING", call("job.status", id).getJsonObject("result").getString("state"));
+        assertEquals("{\"code\":-32001,\"message\":\"Job '" + id + "' is running\"}",
+                call("job.result", id).getJsonObject("error").toString());
+
+        release.countDown();
+        await(id);
+        final JsonObject status = call("job.status", id).getJsonObject("result");
+        assertEquals("COMPLETED", status.getString("state"));
+        assertEquals("report", status.getString("method"));
+        assertTrue(status.getJsonNumber("completed").longValue() >= status.getJsonNumber("submitted").longValue());
+        assertEquals("{\"name\":\"sales\",\"rows\":3}", call("job.result", id).getJsonObject("result").toString());
+    }
+
+    @Test
+    void failed() throws InterruptedException {
+        final String id = submit("report", "[\"fail\"]");
+        release.countDown();
+        await(id);
+        assertEquals("{\"code\":400,\"message\":\"Bad report\"}", call("job.result", id).getJsonObject("error").toString());
+        assertEquals(400, call("job.status", id).getJsonObject("result").getInt("errorCode"));
+    }
+
+    @Test
+    void invalidParams() {
+        assertEquals(-32601, call("report", "[]").getJsonObject("error").getInt("code"));
+        assertEquals(-32602, call("job.status", "[\"missing\"]").getJsonObject("error").getInt("code"));
+    }
+
+    @Test
+    void restart() throws InterruptedException {
+        final String completed = submit("report", "[\"sales\"]");
+        release.countDown();
+        await(completed);
+        final String running = submit("slow", "[]");
+
+        jobManager.close();
+        start(60_000);
+        assertEquals("{\"name\":\"sales\",\"rows\":3}", call("job.result", completed).getJsonObject("result").toString());
+        assertEquals("{\"code\":-32603,\"message\":\"Job interrupted by a restart\"}",
+                call("job.result", running).getJsonObject("error").toString());
+    }
+
+    @Test
+    void expiration() throws InterruptedException, IOException {
+        final String id = submit("report", "[\"sales\"]");
+        release.countDown();
+        await(id);
+        final long size = Files.size(directory.resolve("jobs.journal"));
+
+        jobManager.close();
+        Thread.sleep(20);
+        start(10); // compacted when opened
+        assertEquals(-32602, call("job.status", id).getJsonObject("error").getInt("code"));
+
+        jobManager.close();
+        start(60_000);
+        assertEquals(-32602, call("job.status", id).getJsonObject("error").getInt("code"));
+        assertTrue(Files.size(directory.resolve("jobs.journal")) <= size);
+    }
+
+    @Test
+    void streamingResult() throws NoSuchMethodException {
+        final Type rows = JobManagerTest.class.getDeclaredMethod("rows").getGenericReturnType();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJobManager(jobManager);
+        assertThrows(IllegalArgumentException.class, () -> registry.registerMethod(
+                new Registration("rows", rows, args -> Stream.of("a"), emptyList(), emptyList(), "").setJob(true)));
+    }
+
+    private Stream<String> rows() {
+        return Stream.empty();
+    }
+
+    private void start(final long ttl) {
+        jobManager = new JobManager(directory, ttl, 2, 1024, provider);
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(provider);
+        registry.setJobManager(jobManager);
+        registry.registerJobMethods();
+        registry.registerMethod(new Registration("report", Report.class, args -> {
+            try {
+                release.await(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if ("fail".equals(args[0])) {
+                throw new IllegalArgumentException("Bad report");
+            }
+            final Report report = new Report();
+            report.setName(String.class.cast(args[0]));
+            report.setRows(3);
+            return report;
+        }, singletonList(new Registration.Parameter(String.class, "name", 0, true, "")),
+                singletonList(new Registration.ExceptionMapping(singletonList(IllegalArgumentException.class), 400, "")), "")
+                .setJob(true));
+        registry.registerMethod(new Registration("slow", String.class, args -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }, emptyList(), emptyList(), "").setJob(true));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    private String submit(final String method, final String params) {
+        return call(method, params).getJsonObject("result").getString("jobId");
+    }
+
+    private void await(final String id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (!"RUNNING".equals(call("job.status", id).getJsonObject("result").getString("state"))) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Job " + id + " didn't complete");
+    }
+
+    private JsonObject call(final String method, final String params) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"" + method + "\",\"params\":" +
+                (params.startsWith("[") ? params : "[\"" + params + "\"]") + "}"), responseHandler, Optional::empty);
+        return provider.createReader(new StringReader(responseHandler.getResult().substring("200\n".length()))).readObject();
+    }
+
+    public static class Report {
+        private String name;
+        private int rows;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public void setRows(final int rows) {
+            this.rows = rows;
+        }
+    }
+}
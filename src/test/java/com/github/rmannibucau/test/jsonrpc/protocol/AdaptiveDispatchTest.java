@@ -0,0 +1,110 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.AdaptiveDispatch;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.DeadlineScheduler;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AdaptiveDispatchTest {
+    private final AtomicReference<Thread> lastThread = new AtomicReference<>();
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private DeadlineScheduler scheduler;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.setInlineThresholdMicros(1000);
+        register("fast", 0, JsonRpcMethod.Dispatch.AUTO);
+        register("slow", 5, JsonRpcMethod.Dispatch.AUTO);
+        register("pinned", 0, JsonRpcMethod.Dispatch.OFFLOAD);
+
+        scheduler = new DeadlineScheduler(2);
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+        handler.setScheduler(scheduler);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        scheduler.close();
+        jsonb.close();
+    }
+
+    @Test
+    void adapt() {
+        for (int i = 0; i < 20; i++) {
+            execute("fast");
+            execute("slow");
+            execute("pinned");
+        }
+
+        final AdaptiveDispatch fast = registry.getHandlers().get("fast").getDispatch();
+        assertTrue(fast.isInline());
+        assertTrue(fast.getOffloadedCalls() >= 1); // until measured
+        assertEquals(20, fast.getOffloadedCalls() + fast.getInlineCalls());
+        execute("fast");
+        assertEquals(Thread.currentThread(), lastThread.get());
+
+        final AdaptiveDispatch slow = registry.getHandlers().get("slow").getDispatch();
+        assertFalse(slow.isInline());
+        assertTrue(slow.getAverageNanos() >= 5_000_000, () -> Long.toString(slow.getAverageNanos()));
+        assertEquals(20, slow.getOffloadedCalls());
+        execute("slow");
+        assertNotEquals(Thread.currentThread(), lastThread.get());
+
+        final AdaptiveDispatch pinned = registry.getHandlers().get("pinned").getDispatch();
+        assertFalse(pinned.isInline());
+        assertEquals(20, pinned.getOffloadedCalls());
+    }
+
+    private void execute(final String method) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"" + method + "\"}"),
+                responseHandler, Optional::empty);
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"" + method + "\"}", responseHandler.getResult());
+    }
+
+    private void register(final String name, final long sleepMs, final JsonRpcMethod.Dispatch dispatch) {
+        registry.registerMethod(new Registration(name, String.class, args -> {
+            lastThread.set(Thread.currentThread());
+            if (sleepMs > 0) {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return name;
+        }, emptyList(), emptyList(), "").setDispatch(dispatch));
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyOrderStrategy;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Ensures the bytes allocated per request on the hot path don't regress.
+ * Budgets are per request, after warmup, and include the JSON-B (johnzon) allocations so keep some margin.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AllocationBudgetTest {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 2_000;
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create(new JsonbConfig().withPropertyOrderStrategy(PropertyOrderStrategy.LEXICOGRAPHICAL));
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        final MyRpcEndpoints endpoints = new MyRpcEndpoints();
+        Stream.of("simpleParams", "objectParam", "exception")
+                .map(name -> Stream.of(MyRpcEndpoints.class.getMethods())
+                        .filter(it -> it.getName().equals(name))
+                        .findFirst()
+                        .orElseThrow(IllegalArgumentException::new))
+                .forEach(method -> registry.registerMethodReflect(
+                        endpoints, method, method.getAnnotation(JsonRpcMethod.class),
+                        Stream.of(method.getParameters())
+                                .map(p -> p.getAnnotation(JsonRpcParam.class))
+                                .toArray(JsonRpcParam[]::new),
+                        method.getAnnotationsByType(JsonRpcException.class)));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Scenario.class)
+    void budget(final Scenario scenario) {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(com.sun.management.ThreadMXBean.class.isInstance(threadMXBean), "No allocation counter available");
+        final com.sun.management.ThreadMXBean allocations = com.sun.management.ThreadMXBean.class.cast(threadMXBean);
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled(),
+                "Allocation counter disabled");
+
+        for (int i = 0; i < WARMUP; i++) {
+            execute(scenario.request);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long start = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            execute(scenario.request);
+        }
+        final long perRequest = (allocations.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+        assertTrue(perRequest <= scenario.budget,
+                () -> scenario + " allocated " + perRequest + " bytes per request, budget is " + scenario.budget);
+    }
+
+    private void execute(final String request) {
+        try (final StringReader reader = new StringReader(request)) {
+            handler.handle(reader, NullResponseHandler.INSTANCE, Optional::empty);
+        }
+    }
+
+    private enum Scenario {
+        SIMPLE_STRING(call("test2", "[\"first\",222]"), 8 * 1024),
+        POJO_PARAM(call("test3", "[{\"data1\":\"first\",\"data2\":222}]"), 16 * 1024),
+        BATCH_100(IntStream.range(0, 100)
+                .mapToObj(i -> call("test2", "[\"value_" + i + "\"," + i + "]"))
+                .collect(joining(",", "[", "]")), 640 * 1024),
+        ERROR(call("test6", "[]"), 24 * 1024);
+
+        private final String request;
+        private final long budget;
+
+        Scenario(final String request, final long budget) {
+            this.request = request;
+            this.budget = budget;
+        }
+
+        private static String call(final String method, final String params) {
+            return "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"" + method + "\",\"params\":" + params + "}";
+        }
+    }
+
+    // don't count the response accumulation in the budget
+    private static class NullResponseHandler extends Writer implements BiConsumer<Integer, Consumer<Writer>> {
+        private static final NullResponseHandler INSTANCE = new NullResponseHandler();
+
+        @Override
+        public void accept(final Integer status, final Consumer<Writer> writerConsumer) {
+            writerConsumer.accept(this);
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            // no-op
+        }
+
+        @Override
+        public void flush() {
+            // no-op
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcBatchable;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BatchableTest {
+    private final Endpoints endpoints = new Endpoints();
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        for (final Method method : Endpoints.class.getMethods()) {
+            if (method.isAnnotationPresent(JsonRpcMethod.class)) {
+                registry.registerMethodReflect(endpoints, method, method.getAnnotation(JsonRpcMethod.class),
+                        Stream.of(method.getParameters()).map(p -> p.getAnnotation(JsonRpcParam.class)).toArray(JsonRpcParam[]::new),
+                        method.getAnnotationsByType(JsonRpcException.class));
+            }
+        }
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void singleParameter() {
+        endpoints.singleCalls.set(0);
+        endpoints.bulkCalls.set(0);
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"user_1\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":3}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":\"user_2\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"result\":\"user_3\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32601,\"message\":\"Unknown method\"}}" +
+                        "]",
+                execute("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"user.get\",\"params\":[1]}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"sum\",\"params\":[1,2]}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"user.get\",\"params\":{\"id\":2}}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"method\":\"user.get\",\"params\":[3]}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"5\",\"method\":\"missing\"}" +
+                        "]"));
+        assertEquals(0, endpoints.singleCalls.get());
+        assertEquals(1, endpoints.bulkCalls.get());
+    }
+
+    @Test
+    void parameterSetsAndFailure() {
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":3}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":7}" +
+                        "]",
+                execute("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"sum\",\"params\":[1,2]}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"sum\",\"params\":[3,4]}" +
+                        "]"));
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":1,\"message\":\"negative\"}}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":1,\"message\":\"negative\"}}" +
+                        "]",
+                execute("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"sum\",\"params\":[1,2]}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"sum\",\"params\":[-3,4]}" +
+                        "]"));
+    }
+
+    private String execute(final String request) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+
+    public static class Endpoints {
+        private final AtomicInteger singleCalls = new AtomicInteger();
+        private final AtomicInteger bulkCalls = new AtomicInteger();
+
+        @JsonRpcMethod("user.get")
+        public String get(@JsonRpcParam("id") final long id) {
+            singleCalls.incrementAndGet();
+            return "user_" + id;
+        }
+
+        @JsonRpcBatchable("user.get")
+        public List<String> getAll(final List<Long> ids) { // SELECT ... WHERE id IN (...)
+            bulkCalls.incrementAndGet();
+            return ids.stream().map(id -> "user_" + id).collect(toList());
+        }
+
+        @JsonRpcMethod("sum")
+        @JsonRpcException(handled = IllegalArgumentException.class, code = 1)
+        public int sum(@JsonRpcParam("a") final int a, @JsonRpcParam("b") final int b) {
+            return a + b;
+        }
+
+        @JsonRpcBatchable("sum")
+        public CompletionStage<List<Integer>> sums(final List<Object[]> parameters) {
+            if (parameters.stream().anyMatch(it -> (int) it[0] < 0)) {
+                throw new IllegalArgumentException("negative");
+            }
+            return CompletableFuture.completedFuture(parameters.stream()
+                    .map(it -> (int) it[0] + (int) it[1])
+                    .collect(toList()));
+        }
+    }
+}
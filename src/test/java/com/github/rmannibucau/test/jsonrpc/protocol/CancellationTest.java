@@ -0,0 +1,119 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
+import com.github.rmannibucau.jsonrpc.protocol.InFlightCalls;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CancellationTest {
+    private final AtomicReference<CallContext> running = new AtomicReference<>();
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "never", CancellationTest.class.getDeclaredMethod("never").getGenericReturnType(), args -> {
+                    running.set(CallContext.current());
+                    return new CompletableFuture<>();
+                }, singletonList(new Registration.Parameter(String.class, "ignored", 0, false, "")),
+                emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void cancelRequest() throws InterruptedException {
+        final InFlightCalls connection = new InFlightCalls();
+        final RequestContext first = new RequestContext();
+        first.setInFlightCalls(connection);
+        final ResponseHandler pending = new ResponseHandler();
+        final CountDownLatch done = new CountDownLatch(1);
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"never\"}"), first,
+                pending, () -> Optional.of(done::countDown));
+        final CallContext call = running.get();
+        final AtomicBoolean callback = new AtomicBoolean();
+        call.onCancel(() -> callback.set(true));
+        assertEquals("", pending.getResult());
+
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":true}",
+                execute(connection, "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"$/cancelRequest\",\"params\":{\"id\":\"1\"}}"));
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(call.isCancelled());
+        assertTrue(callback.get());
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32800,\"message\":\"Request cancelled\"}}",
+                pending.getResult());
+
+        // already done
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":false}",
+                execute(connection, "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"$/cancelRequest\",\"params\":[\"1\"]}"));
+    }
+
+    @Test
+    void disconnect() throws InterruptedException {
+        final RequestContext context = new RequestContext();
+        final ResponseHandler pending = new ResponseHandler();
+        final CountDownLatch done = new CountDownLatch(1);
+        handler.handle(new StringReader("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"never\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"never\"}]"), context,
+                pending, () -> Optional.of(done::countDown));
+        context.cancel();
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(running.get().isCancelled());
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32800,\"message\":\"Request cancelled\"}}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32800,\"message\":\"Request cancelled\"}}]",
+                pending.getResult());
+    }
+
+    private CompletableFuture<String> never() {
+        return null;
+    }
+
+    private String execute(final InFlightCalls connection, final String request) {
+        final RequestContext context = new RequestContext();
+        context.setInFlightCalls(connection);
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), context, responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+}
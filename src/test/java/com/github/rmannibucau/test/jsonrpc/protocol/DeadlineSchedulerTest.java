@@ -0,0 +1,110 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.DeadlineScheduler;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.Test;
+
+class DeadlineSchedulerTest {
+    @Test
+    void priorityThenEarliestDeadlineFirst() throws InterruptedException, ExecutionException, TimeoutException {
+        try (final DeadlineScheduler scheduler = new DeadlineScheduler(1)) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletionStage<String> blocker = scheduler.submit(0, 0, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return completedFuture("blocker");
+            });
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+
+            final long now = System.nanoTime();
+            final List<String> order = new CopyOnWriteArrayList<>();
+            final CompletableFuture<?>[] calls = new CompletableFuture<?>[]{
+                    submit(scheduler, order, "none", 0, 0),
+                    submit(scheduler, order, "late", now + TimeUnit.MINUTES.toNanos(2), 0),
+                    submit(scheduler, order, "soon", now + TimeUnit.MINUTES.toNanos(1), 0),
+                    submit(scheduler, order, "urgent", 0, 10),
+                    submit(scheduler, order, "none2", 0, 0)
+            };
+            release.countDown();
+            blocker.toCompletableFuture().get(1, TimeUnit.MINUTES);
+            CompletableFuture.allOf(calls).get(1, TimeUnit.MINUTES);
+            assertEquals(asList("urgent", "soon", "late", "none", "none2"), order);
+        }
+    }
+
+    @Test
+    void expiredCallsAreNotInvoked() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        try (final Jsonb jsonb = JsonbBuilder.create();
+             final DeadlineScheduler scheduler = new DeadlineScheduler(2)) {
+            final HandlerRegistry registry = new HandlerRegistry();
+            registry.setJsonb(jsonb);
+            registry.setJsonProvider(JsonProvider.provider());
+            registry.registerMethod(new Registration(
+                    "count", Integer.class, args -> invocations.incrementAndGet(),
+                    singletonList(new Registration.Parameter(String.class, "ignored", 0, false, "")),
+                    emptyList(), "").setPriority(1));
+
+            final JsonRpcHandler handler = new JsonRpcHandler();
+            handler.setConfiguration(new Configuration());
+            handler.setJsonb(jsonb);
+            handler.setRegistry(registry);
+
+            assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32603,\"message\":\"Deadline exceeded\"}}",
+                    execute(handler, "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"count\",\"$timeout\":0}"));
+            assertEquals(0, invocations.get());
+
+            handler.setScheduler(scheduler);
+            assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32603,\"message\":\"Deadline exceeded\"}}",
+                    execute(handler, "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"count\",\"$timeout\":0}"));
+            assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":1}",
+                    execute(handler, "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"count\",\"$timeout\":60000}"));
+            assertEquals(1, invocations.get());
+        }
+    }
+
+    private CompletableFuture<?> submit(final DeadlineScheduler scheduler, final List<String> order,
+                                        final String name, final long deadline, final int priority) {
+        return scheduler.submit(deadline, priority, () -> {
+            order.add(name);
+            return completedFuture(name);
+        }).toCompletableFuture();
+    }
+
+    private String execute(final JsonRpcHandler handler, final String request) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+}
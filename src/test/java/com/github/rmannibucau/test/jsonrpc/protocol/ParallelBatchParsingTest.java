@@ -0,0 +1,90 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.stream.IntStream;
+
+import javax.json.JsonException;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ParallelBatchParsingTest {
+    private Jsonb jsonb;
+    private JsonRpcHandler sequential;
+    private JsonRpcHandler parallel;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+
+        sequential = newHandler(registry, 0);
+        parallel = newHandler(registry, 1);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void sameRequests() {
+        final String batch = IntStream.range(0, 5000)
+                .mapToObj(i -> i % 3 == 0 ? " 1 " : i % 3 == 1 ?
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"" + i + "\",\"method\":\"m\",\"params\":[\"],{\\\"\\\\\",{\"a\":[1,{}]},null]}" :
+                        "\n{\"jsonrpc\":\"2.0\",\"method\":\"[\\u0022\",\"params\":{}}\t")
+                .collect(joining(",", " [", "]\n"));
+        assertEquals(sequential.readRequest(new StringReader(batch)), parallel.readRequest(new StringReader(batch)));
+        for (final String request : new String[]{"[]", "[ ]", "[1]", "{\"jsonrpc\":\"2.0\"}", "[[],{}]"}) {
+            assertEquals(sequential.readRequest(new StringReader(request)), parallel.readRequest(new StringReader(request)));
+        }
+    }
+
+    @Test
+    void sameErrors() {
+        for (final String request : new String[]{"[1,]", "[,1]", "[1 2]", "[1]]", "[{\"a\" 1}]", "[\"a]", "[1"}) {
+            assertEquals(outcome(sequential, request), outcome(parallel, request), request);
+        }
+        assertEquals("Batch exceeds 10000 requests", assertThrows(JsonRpcException.class,
+                () -> parallel.readRequest(new StringReader(IntStream.range(0, 10001)
+                        .mapToObj(Integer::toString)
+                        .collect(joining(",", "[", "]"))))).getMessage());
+    }
+
+    // the parsed request or the error type
+    private String outcome(final JsonRpcHandler handler, final String request) {
+        try {
+            return handler.readRequest(new StringReader(request)).toString();
+        } catch (final JsonException je) {
+            return JsonException.class.getName();
+        }
+    }
+
+    private JsonRpcHandler newHandler(final HandlerRegistry registry, final int threshold) {
+        final Configuration configuration = new Configuration();
+        configuration.setMaxBatchSize(10000);
+        configuration.setParallelBatchParsingThreshold(threshold);
+
+        final JsonRpcHandler handler = new JsonRpcHandler();
+        handler.setConfiguration(configuration);
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+        return handler;
+    }
+}
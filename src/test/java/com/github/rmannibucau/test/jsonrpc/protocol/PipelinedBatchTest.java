@@ -0,0 +1,138 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PipelinedBatchTest {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicReference<CallContext> running = new AtomicReference<>();
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> {
+                    calls.incrementAndGet();
+                    return args[0];
+                },
+                singletonList(new Registration.Parameter(String.class, "value", 0, true, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "never", PipelinedBatchTest.class.getDeclaredMethod("never").getGenericReturnType(), args -> {
+                    running.set(CallContext.current());
+                    return new CompletableFuture<>();
+                }, emptyList(), emptyList(), ""));
+
+        final Configuration configuration = new Configuration();
+        configuration.setPipelinedBatches(true);
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(configuration);
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void dispatchWhileReading() {
+        calls.set(0);
+        final ChunkedRequest request = new ChunkedRequest(
+                "[{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"a\"]}",
+                ",{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"b\"]}",
+                ",\"invalid\"]");
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"a\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":\"b\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"Batch requests must be JSON objects\"}}" +
+                        "]",
+                execute(request));
+        // each call ran before the next chunk was read
+        assertEquals("0,1,2", request.callsPerChunk.toString());
+    }
+
+    @Test
+    void invalidBatchCancelsSubmittedCalls() {
+        running.set(null);
+        final String response = execute(new ChunkedRequest(
+                "[{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"never\"}",
+                ",{\"jsonrpc\":"));
+        assertTrue(response.startsWith("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32700,"), response);
+        assertTrue(running.get().isCancelled());
+    }
+
+    private CompletableFuture<String> never() {
+        return null;
+    }
+
+    private String execute(final Reader reader) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(reader, responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+
+    // simulates a slow upload, one chunk per read
+    private class ChunkedRequest extends Reader {
+        private final String[] chunks;
+        private final StringBuilder callsPerChunk = new StringBuilder();
+        private int index;
+
+        private ChunkedRequest(final String... chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (index == chunks.length) {
+                return -1;
+            }
+            if (callsPerChunk.length() > 0) {
+                callsPerChunk.append(',');
+            }
+            callsPerChunk.append(calls.get());
+            final String chunk = chunks[index++];
+            if (chunk.length() > length) {
+                throw new IllegalStateException("Unexpected buffer size: " + length);
+            }
+            chunk.getChars(0, chunk.length(), buffer, offset);
+            return chunk.length();
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
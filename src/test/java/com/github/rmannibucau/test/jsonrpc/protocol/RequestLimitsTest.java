@@ -0,0 +1,197 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import javax.json.JsonArray;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RequestLimitsTest {
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> String.valueOf(args[0]),
+                singletonList(new Registration.Parameter(Object.class, "value", 0, false, "")),
+                emptyList(), ""));
+
+        final Configuration configuration = new Configuration();
+        configuration.setMaxRequestSize(1024);
+        configuration.setMaxBatchSize(3);
+        configuration.setMaxDepth(4);
+        configuration.setMaxStringLength(16);
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(configuration);
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void withinLimits() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"[[1]]\"}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[[[1]]]}")));
+    }
+
+    @Test
+    void size() {
+        final EndlessRequest request = new EndlessRequest();
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"Request exceeds 1024 characters\"}}",
+                execute(request));
+        assertTrue(request.produced < 64 * 1024, () -> "read " + request.produced + " chars");
+    }
+
+    @Test
+    void batchSize() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"Batch exceeds 3 requests\"}}",
+                execute(new StringReader(IntStream.range(0, 4)
+                        .mapToObj(i -> "{\"jsonrpc\":\"2.0\",\"method\":\"echo\"}")
+                        .collect(joining(",", "[", "]")))));
+    }
+
+    @Test
+    void depth() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"Request nesting exceeds 4 levels\"}}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"params\":[[[[1]]]]}")));
+    }
+
+    @Test
+    void stringLength() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"String exceeds 16 characters\"}}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"params\":[\"01234567890123456789\"]}")));
+    }
+
+    @Test
+    void disabledByDefault() {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> String.valueOf(args[0]),
+                singletonList(new Registration.Parameter(Object.class, "value", 0, false, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "count", Long.class, args -> {
+                    final JsonParser parser = JsonParser.class.cast(args[0]);
+                    long values = 0;
+                    while (parser.hasNext()) {
+                        if (parser.next() == JsonParser.Event.VALUE_NUMBER) {
+                            values++;
+                        }
+                    }
+                    return values;
+                },
+                singletonList(new Registration.Parameter(JsonParser.class, "values", 0, true, "")),
+                emptyList(), ""));
+
+        final JsonRpcHandler defaults = new JsonRpcHandler();
+        defaults.setConfiguration(new Configuration());
+        defaults.setJsonb(jsonb);
+        defaults.setRegistry(registry);
+
+        final ResponseHandler batch = new ResponseHandler();
+        defaults.handle(new StringReader(IntStream.range(0, 2000)
+                .mapToObj(i -> "{\"jsonrpc\":\"2.0\",\"id\":\"" + i + "\",\"method\":\"echo\",\"params\":[" + i + "]}")
+                .collect(joining(",", "[", "]"))), batch, Optional::empty);
+        assertEquals(2000, jsonb.fromJson(batch.getResult().substring("200\n".length()), JsonArray.class).size());
+
+        final ResponseHandler streamed = new ResponseHandler(); // 20M characters
+        defaults.handle(new LargeRequest("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"count\",\"params\":[[", 10_000_000, "]]}"),
+                streamed, Optional::empty);
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":10000000}", streamed.getResult());
+    }
+
+    private String execute(final Reader reader) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(reader, responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+
+    // prefix, then "1,1,...,1" then suffix without materializing it
+    private static class LargeRequest extends Reader {
+        private final String prefix;
+        private final long values;
+        private final String suffix;
+        private long index;
+
+        private LargeRequest(final String prefix, final long values, final String suffix) {
+            this.prefix = prefix;
+            this.values = values;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public int read(final char[] chars, final int off, final int len) {
+            final long end = prefix.length() + values * 2 - 1 + suffix.length();
+            if (index >= end) {
+                return -1;
+            }
+            final int count = (int) Math.min(len, end - index);
+            for (int i = 0; i < count; i++) {
+                final long current = index + i;
+                final long body = current - prefix.length();
+                chars[off + i] = current < prefix.length() ? prefix.charAt((int) current) :
+                        (body < values * 2 - 1 ? (body % 2 == 0 ? '1' : ',') : suffix.charAt((int) (body - values * 2 + 1)));
+            }
+            index += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
+    // never ends, the request must be rejected before reading it all
+    private static class EndlessRequest extends Reader {
+        private long produced;
+
+        @Override
+        public int read(final char[] chars, final int off, final int len) {
+            for (int i = 0; i < len; i++) { // [1,1,1,...
+                final long index = produced + i;
+                chars[off + i] = index == 0 ? '[' : (index % 2 == 1 ? '1' : ',');
+            }
+            produced += len;
+            return len;
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
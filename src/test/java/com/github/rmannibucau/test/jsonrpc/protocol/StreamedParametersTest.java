@@ -0,0 +1,218 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StreamedParametersTest {
+    private static final int ROWS = 200_000;
+
+    private final AtomicLong readWhenFirstRow = new AtomicLong();
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+    private GeneratedRequest generated;
+    private Type rowsType;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        rowsType = StreamedParametersTest.class.getDeclaredMethod("rowsType").getGenericReturnType();
+        registry.registerMethod(new Registration(
+                "ingest", String.class, args -> {
+                    final Stream<?> rows = Stream.class.cast(args[1]);
+                    final AtomicLong count = new AtomicLong();
+                    final AtomicLong sum = new AtomicLong();
+                    rows.forEach(row -> {
+                        if (count.getAndIncrement() == 0 && generated != null) {
+                            readWhenFirstRow.set(generated.produced);
+                        }
+                        sum.addAndGet(MyRpcEndpoints.SomeModel.class.cast(row).getData2());
+                    });
+                    return args[0] + ":" + count.get() + ":" + sum.get();
+                },
+                asList(
+                        new Registration.Parameter(String.class, "name", 0, true, ""),
+                        new Registration.Parameter(rowsType, "rows", 1, true, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "events", Integer.class, args -> {
+                    final JsonParser parser = (JsonParser) args[0];
+                    int events = 0;
+                    while (parser.hasNext()) {
+                        parser.next();
+                        events++;
+                    }
+                    return events;
+                },
+                asList(new Registration.Parameter(JsonParser.class, "value", 0, true, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "raw", String.class, args -> new BufferedReader((Reader) args[0]).lines().collect(joining()),
+                asList(new Registration.Parameter(Reader.class, "value", 0, true, "")),
+                emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void streamedWhileReading() {
+        generated = new GeneratedRequest(ROWS);
+        try {
+            assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"bulk:" + ROWS + ":" + ((long) ROWS * (ROWS - 1) / 2) + "\"}",
+                    execute(generated));
+            assertTrue(readWhenFirstRow.get() < generated.produced / 10,
+                    () -> "first row consumed after reading " + readWhenFirstRow.get() + " chars on " + generated.produced);
+        } finally {
+            generated = null;
+        }
+    }
+
+    @Test
+    void idAfterParamsAndNamedParams() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":\"x:2:3\"}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"method\":\"ingest\"," +
+                        "\"params\":{\"unknown\":[1,{}],\"name\":\"x\",\"rows\":[{\"data2\":1},{\"data2\":2}],\"ignored\":true}," +
+                        "\"id\":\"2\"}")));
+    }
+
+    @Test
+    void namedParamsAfterStreamed() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"7\",\"result\":\"x:2:3\"}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"7\",\"method\":\"ingest\"," +
+                        "\"params\":{\"rows\":[{\"data2\":1},{\"data2\":2}],\"name\":\"x\"}}")));
+    }
+
+    @Test
+    void streamedParameterMustBeLast() {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        assertThrows(IllegalArgumentException.class, () -> registry.registerMethod(new Registration(
+                "invalid", String.class, args -> "",
+                asList(
+                        new Registration.Parameter(rowsType, "rows", 0, true, ""),
+                        new Registration.Parameter(String.class, "name", 1, true, "")),
+                emptyList(), "")));
+    }
+
+    @Test
+    void streamedParameterCantBeSharded() {
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        assertThrows(IllegalArgumentException.class, () -> registry.registerMethod(new Registration(
+                "invalid", String.class, args -> "",
+                asList(
+                        new Registration.Parameter(String.class, "name", 0, true, ""),
+                        new Registration.Parameter(rowsType, "rows", 1, true, "")),
+                emptyList(), "").setShardKey("name")));
+    }
+
+    @Test
+    void parser() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":7}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"events\",\"params\":[{\"a\":[1,true]}, 2]}")));
+    }
+
+    @Test
+    void reader() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"result\":\"{\\\"a\\\":[1.5,true,null,\\\"q\\\\\\\"\\\"],\\\"b\\\":{}}\"}",
+                execute(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"method\":\"raw\"," +
+                        "\"params\":[{\"a\": [1.5, true, null, \"q\\\"\"], \"b\": {}}]}")));
+    }
+
+    @Test
+    void bufferedWhenParamsBeforeMethod() {
+        assertEquals("200\n[{\"jsonrpc\":\"2.0\",\"id\":\"5\",\"result\":\"y:1:4\"},{\"jsonrpc\":\"2.0\",\"id\":\"6\",\"result\":\"z:0:0\"}]",
+                execute(new StringReader("[" +
+                        "{\"params\":[\"y\",[{\"data2\":4}]],\"jsonrpc\":\"2.0\",\"id\":\"5\",\"method\":\"ingest\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"6\",\"method\":\"ingest\",\"params\":[\"z\",[]]}" +
+                        "]")));
+    }
+
+    private String execute(final Reader reader) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(reader, responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+
+    private Stream<MyRpcEndpoints.SomeModel> rowsType() {
+        return null;
+    }
+
+    // generates the request on the fly to never have it in memory
+    private static class GeneratedRequest extends Reader {
+        private final int rows;
+        private final StringBuilder buffer = new StringBuilder();
+        private int offset;
+        private int row = -1;
+        private volatile long produced;
+
+        private GeneratedRequest(final int rows) {
+            this.rows = rows;
+            buffer.append("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"ingest\",\"params\":[\"bulk\",[");
+        }
+
+        @Override
+        public int read(final char[] chars, final int off, final int len) {
+            if (offset == buffer.length()) {
+                buffer.setLength(0);
+                offset = 0;
+                row++;
+                if (row < rows) {
+                    buffer.append(row == 0 ? "" : ",").append("{\"data1\":\"row\",\"data2\":").append(row).append('}');
+                } else if (row == rows) {
+                    buffer.append("]]}");
+                } else {
+                    return -1;
+                }
+            }
+            final int count = Math.min(len, buffer.length() - offset);
+            buffer.getChars(offset, offset + count, chars, off);
+            offset += count;
+            produced += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyOrderStrategy;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StreamingResultTest {
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create(new JsonbConfig().withPropertyOrderStrategy(PropertyOrderStrategy.LEXICOGRAPHICAL));
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "stream", Stream.class, args -> Stream.of(model("a", 1), null, model("b\"", 2)),
+                emptyList(), emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "iterator", Iterator.class, args -> asList("x", "y").iterator(), emptyList(), emptyList(), ""));
+        registry.registerMethod(new Registration( // async + empty
+                "asyncStream", StreamingResultTest.class.getDeclaredMethod("asyncStream").getGenericReturnType(),
+                args -> CompletableFuture.completedFuture(Stream.empty()), emptyList(), emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "plain", String.class, args -> "ok", singletonList(new Registration.Parameter(String.class, "ignored", 0, false, "")),
+                emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void single() {
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":[{\"data1\":\"a\",\"data2\":1},null,{\"data1\":\"b\\\"\",\"data2\":2}]}",
+                execute("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"stream\"}"));
+    }
+
+    @Test
+    void batch() {
+        assertEquals("200\n[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"ok\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":[\"x\",\"y\"]}," +
+                        "{\"jsonrpc\":\"2.0\",\"result\":[]}" +
+                        "]",
+                execute("[" +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"plain\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"iterator\"}," +
+                        "{\"jsonrpc\":\"2.0\",\"method\":\"asyncStream\"}" +
+                        "]"));
+    }
+
+    private String execute(final String request) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), responseHandler, Optional::empty);
+        return responseHandler.getResult();
+    }
+
+    private MyRpcEndpoints.SomeModel model(final String data1, final int data2) {
+        final MyRpcEndpoints.SomeModel model = new MyRpcEndpoints.SomeModel();
+        model.data1 = data1;
+        model.setData2(data2);
+        return model;
+    }
+
+    private CompletableFuture<Stream<String>> asyncStream() {
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.rmannibucau.test.jsonrpc.protocol;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SyncPathTest {
+    // the async context is only requested when a future is involved
+    private static final Supplier<Optional<Runnable>> NO_ASYNC = () -> fail("unexpected async handling");
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> {
+                    if ("fail".equals(args[0])) {
+                        throw new IllegalArgumentException("failed");
+                    }
+                    return args[0];
+                },
+                singletonList(new Registration.Parameter(String.class, "value", 0, true, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "async", SyncPathTest.class.getDeclaredMethod("async").getGenericReturnType(),
+                args -> CompletableFuture.completedFuture("done"), emptyList(), emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void synchronousEndpoint() {
+        assertNotNull(registry.getHandlers().get("echo").getSyncExecutor());
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"ok\"}",
+                execute("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"ok\"]}", NO_ASYNC));
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32603,\"message\":\"failed\"}}",
+                execute("{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"fail\"]}", NO_ASYNC));
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32601,\"message\":\"Unknown method\"}}",
+                execute("{\"jsonrpc\":\"2.0\",\"method\":\"missing\"}", Optional::empty));
+    }
+
+    @Test
+    void synchronousEndpointWithStreamedReading() { // pipelined batches read the requests while parsing them
+        final Configuration configuration = new Configuration();
+        configuration.setPipelinedBatches(true);
+        final JsonRpcHandler pipelined = new JsonRpcHandler();
+        pipelined.setConfiguration(configuration);
+        pipelined.setJsonb(jsonb);
+        pipelined.setRegistry(registry);
+
+        final ResponseHandler responseHandler = new ResponseHandler();
+        pipelined.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"ok\"]}"),
+                responseHandler, NO_ASYNC);
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"ok\"}", responseHandler.getResult());
+    }
+
+    @Test
+    void asynchronousEndpoint() {
+        assertNull(registry.getHandlers().get("async").getSyncExecutor());
+        assertEquals("200\n{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\"done\"}",
+                execute("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"async\"}", Optional::empty));
+    }
+
+    private CompletableFuture<String> async() {
+        return null;
+    }
+
+    private String execute(final String request, final Supplier<Optional<Runnable>> asyncHandler) {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        handler.handle(new StringReader(request), responseHandler, asyncHandler);
+        return responseHandler.getResult();
+    }
+}
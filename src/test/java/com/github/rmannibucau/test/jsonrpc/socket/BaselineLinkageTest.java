@@ -0,0 +1,123 @@
+package com.github.rmannibucau.test.jsonrpc.socket;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.rmannibucau.jsonrpc.socket.JsonRpcSocketServer;
+import org.junit.jupiter.api.Test;
+
+// the jar targets java 8 but is built on java 11+: a buffer call linked to a covariant override
+// of java 9/13 kills the selector thread with a NoSuchMethodError on older runtimes
+class BaselineLinkageTest {
+    private static final Collection<String> BUFFER_METHODS = new HashSet<>(asList(
+            "position", "limit", "mark", "reset", "clear", "flip", "rewind"));
+    private static final Collection<String> MAPPED_BUFFER_METHODS = new HashSet<>(asList(
+            "duplicate", "slice", "compact"));
+
+    @Test
+    void noJava9BufferMethods() throws IOException, URISyntaxException {
+        final Path classes = Paths.get(JsonRpcSocketServer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        final List<Path> files;
+        try (final Stream<Path> walk = Files.walk(classes)) {
+            files = walk
+                    .filter(it -> it.getFileName().toString().endsWith(".class"))
+                    .filter(it -> !classes.relativize(it).startsWith("META-INF")) // versioned classes can use them
+                    .collect(toList());
+        }
+        assertTrue(files.stream().anyMatch(it -> it.getFileName().toString().startsWith("JsonRpcSocketServer")));
+
+        final List<String> invalid = new ArrayList<>();
+        for (final Path file : files) {
+            try (final InputStream stream = Files.newInputStream(file)) {
+                findInvalidCalls(new DataInputStream(stream))
+                        .forEach(it -> invalid.add(classes.relativize(file) + ": " + it));
+            }
+        }
+        assertEquals(new ArrayList<>(), invalid);
+    }
+
+    private List<String> findInvalidCalls(final DataInputStream input) throws IOException {
+        input.readInt(); // magic
+        input.readUnsignedShort(); // minor
+        input.readUnsignedShort(); // major
+        final int count = input.readUnsignedShort();
+        final String[] utf8 = new String[count];
+        final int[] classNames = new int[count];
+        final int[] nameAndTypes = new int[count * 2];
+        final List<int[]> methodRefs = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            final int tag = input.readUnsignedByte();
+            switch (tag) {
+                case 1: // utf8
+                    utf8[i] = input.readUTF();
+                    break;
+                case 7: // class
+                case 8: // string
+                case 16: // method type
+                case 19: // module
+                case 20: // package
+                    classNames[i] = input.readUnsignedShort();
+                    break;
+                case 10: // method
+                    methodRefs.add(new int[]{input.readUnsignedShort(), input.readUnsignedShort()});
+                    break;
+                case 12: // name and type
+                    nameAndTypes[i * 2] = input.readUnsignedShort();
+                    nameAndTypes[i * 2 + 1] = input.readUnsignedShort();
+                    break;
+                case 15: // method handle
+                    input.skipBytes(3);
+                    break;
+                case 5: // long
+                case 6: // double
+                    input.skipBytes(8);
+                    i++;
+                    break;
+                case 3: // integer
+                case 4: // float
+                case 9: // field
+                case 11: // interface method
+                case 17: // dynamic
+                case 18: // invoke dynamic
+                    input.skipBytes(4);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown constant pool tag: " + tag);
+            }
+        }
+        return methodRefs.stream()
+                .map(ref -> {
+                    final String owner = utf8[classNames[ref[0]]];
+                    final String name = utf8[nameAndTypes[ref[1] * 2]];
+                    final String descriptor = utf8[nameAndTypes[ref[1] * 2 + 1]];
+                    return isInvalid(owner, name, descriptor) ? owner + "." + name + descriptor : null;
+                })
+                .filter(it -> it != null)
+                .collect(toList());
+    }
+
+    private boolean isInvalid(final String owner, final String name, final String descriptor) {
+        if (!owner.startsWith("java/nio/") || !owner.endsWith("Buffer")) {
+            return false;
+        }
+        if (BUFFER_METHODS.contains(name)) {
+            return descriptor.endsWith("Buffer;") && !descriptor.endsWith(")Ljava/nio/Buffer;");
+        }
+        return MAPPED_BUFFER_METHODS.contains(name) && descriptor.endsWith(")Ljava/nio/MappedByteBuffer;");
+    }
+}
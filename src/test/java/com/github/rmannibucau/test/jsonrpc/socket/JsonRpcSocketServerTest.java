@@ -0,0 +1,200 @@
+package com.github.rmannibucau.test.jsonrpc.socket;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.socket.Framing;
+import com.github.rmannibucau.jsonrpc.socket.JsonRpcSocketServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JsonRpcSocketServerTest {
+    private final AtomicInteger closedStreams = new AtomicInteger();
+
+    private Jsonb jsonb;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> ">" + args[0] + "<",
+                singletonList(new Registration.Parameter(String.class, "value", 0, true, "")),
+                emptyList(), ""));
+        registry.registerMethod(new Registration(
+                "rows", Stream.class, args -> IntStream.range(0, Integer.class.cast(args[0]))
+                        .mapToObj(i -> "row_" + i)
+                        .onClose(closedStreams::incrementAndGet),
+                singletonList(new Registration.Parameter(Integer.class, "count", 0, true, "")),
+                emptyList(), ""));
+
+        final Configuration configuration = new Configuration();
+        configuration.setMaxRequestSize(1024);
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(configuration);
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void ndjsonPipelining() throws IOException {
+        try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.NDJSON)
+                .start(new InetSocketAddress("localhost", 0));
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write((
+                    "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"a\"]}\n" +
+                    "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"b\"]}\r\n" +
+                    "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"echo\",").getBytes(UTF_8));
+            outputStream.flush();
+            outputStream.write("\"params\":[\"c\"]}\n{invalid\n".getBytes(UTF_8));
+            outputStream.flush();
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            final Set<String> responses = new HashSet<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(reader.readLine());
+            }
+            assertEquals(4, responses.size());
+            assertEquals(3, responses.stream().filter(it -> it.matches("\\{\"jsonrpc\":\"2.0\",\"id\":\"[123]\",\"result\":\">[abc]<\"}")).count());
+            assertEquals(1, responses.stream().filter(it -> it.contains("\"code\":-32700")).count());
+        }
+    }
+
+    @Test
+    void contentLength() throws IOException {
+        try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.CONTENT_LENGTH)
+                .start(new InetSocketAddress("localhost", 0));
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final byte[] payload = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"\u00e9t\u00e9\"]}".getBytes(UTF_8);
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(("Content-Type: application/json\r\nContent-Length: " + payload.length + "\r\n\r\n").getBytes(UTF_8));
+            outputStream.write(payload, 0, 10);
+            outputStream.flush();
+            outputStream.write(payload, 10, payload.length - 10);
+            outputStream.flush();
+
+            final DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+            final String headers = readHeaders(inputStream);
+            final byte[] response = new byte[Integer.parseInt(headers.substring("Content-Length: ".length()).trim())];
+            inputStream.readFully(response);
+            assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":\">\u00e9t\u00e9<\"}", new String(response, UTF_8));
+        }
+    }
+
+    @Test
+    void streamedResult() throws IOException {
+        final int closed = closedStreams.get();
+        try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.NDJSON)
+                .start(new InetSocketAddress("localhost", 0));
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write((
+                    "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"rows\",\"params\":[100000]}\n" +
+                    "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"a\"]}\n").getBytes(UTF_8));
+            outputStream.flush();
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            final JsonObject rows = jsonb.fromJson(reader.readLine(), JsonObject.class);
+            assertEquals("1", rows.getString("id"));
+            final JsonArray result = rows.getJsonArray("result");
+            assertEquals(100000, result.size());
+            assertEquals("row_0", result.getString(0));
+            assertEquals("row_99999", result.getString(99999));
+            assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":\">a<\"}", reader.readLine());
+        }
+        assertEquals(closed + 1, closedStreams.get());
+    }
+
+    @Test
+    void ndjsonLineTooLarge() throws IOException {
+        try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.NDJSON)
+                .start(new InetSocketAddress("localhost", 0));
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final OutputStream outputStream = socket.getOutputStream();
+            final byte[] chunk = new byte[512];
+            Arrays.fill(chunk, (byte) ' ');
+            for (int i = 0; i < 4; i++) { // never sends the new line
+                outputStream.write(chunk);
+                outputStream.flush();
+            }
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            assertTrue(reader.readLine().contains("\"code\":-32600"));
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    void contentLengthTooLarge() throws IOException {
+        try (final JsonRpcSocketServer server = new JsonRpcSocketServer(handler, Framing.CONTENT_LENGTH)
+                .start(new InetSocketAddress("localhost", 0));
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("Content-Length: 2147483647\r\n\r\n{".getBytes(UTF_8));
+            outputStream.flush();
+
+            final DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+            final String headers = readHeaders(inputStream);
+            final byte[] response = new byte[Integer.parseInt(headers.substring("Content-Length: ".length()).trim())];
+            inputStream.readFully(response);
+            assertTrue(new String(response, UTF_8).contains("\"code\":-32600"));
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    private String readHeaders(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            final int b = stream.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of stream");
+            }
+            out.write(b);
+            matched = (b == '\r' && (matched == 0 || matched == 2)) || (b == '\n' && (matched == 1 || matched == 3)) ? matched + 1 : 0;
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.rmannibucau.test.jsonrpc.tracing;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.impl.Registration;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.tracing.FlightRecorder;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlightRecorderTest {
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        registry.registerMethod(new Registration(
+                "echo", String.class, args -> {
+                    if ("fail".equals(args[0])) {
+                        throw new IllegalArgumentException("failed");
+                    }
+                    return args[0];
+                },
+                singletonList(new Registration.Parameter(String.class, "value", 0, true, "")),
+                emptyList(), ""));
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @Test
+    void events() throws Exception {
+        assertTrue(FlightRecorder.isAvailable());
+
+        final String request = "[" +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"ok\"]}," +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"fail\"]}" +
+                "]";
+        final Path dump = Paths.get("target/jfr/" + FlightRecorderTest.class.getSimpleName() + ".jfr");
+        Files.createDirectories(dump.getParent());
+        try (final Recording recording = new Recording()) {
+            recording.enable("com.github.rmannibucau.jsonrpc.RequestParsed");
+            recording.enable("com.github.rmannibucau.jsonrpc.MethodInvoked");
+            recording.enable("com.github.rmannibucau.jsonrpc.ResultSerialized");
+            recording.enable("com.github.rmannibucau.jsonrpc.BatchCompleted");
+            recording.start();
+            handler.handle(new StringReader(request), new ResponseHandler(), Optional::empty);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        final RecordedEvent parsed = find(events, "RequestParsed").get(0);
+        assertEquals(2, parsed.getInt("batchSize"));
+        assertEquals(request.length(), parsed.getLong("requestSize"));
+
+        final List<RecordedEvent> invoked = find(events, "MethodInvoked");
+        assertEquals(2, invoked.size());
+        assertEquals("echo", invoked.get(0).getString("method"));
+        assertEquals(0, invoked.get(0).getInt("errorCode"));
+        assertEquals(-32603, invoked.get(1).getInt("errorCode"));
+
+        final RecordedEvent batch = find(events, "BatchCompleted").get(0);
+        assertEquals(2, batch.getInt("batchSize"));
+        assertEquals(-32603, batch.getInt("errorCode"));
+
+        final RecordedEvent serialized = find(events, "ResultSerialized").get(0);
+        assertEquals(2, serialized.getInt("batchSize"));
+        assertTrue(serialized.getLong("responseSize") > 0);
+        assertTrue(serialized.getDuration().toNanos() >= 0);
+    }
+
+    @Test
+    void pipelinedBatch() throws Exception { // read while parsed
+        final Configuration configuration = new Configuration();
+        configuration.setPipelinedBatches(true);
+        final JsonRpcHandler pipelined = new JsonRpcHandler();
+        pipelined.setConfiguration(configuration);
+        pipelined.setJsonb(jsonb);
+        pipelined.setRegistry(registry);
+
+        final String request = "[" +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"echo\",\"params\":[\"a\"]}," +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"method\":\"echo\",\"params\":[\"b\"]}" +
+                "]";
+        final Path dump = Paths.get("target/jfr/" + FlightRecorderTest.class.getSimpleName() + "_pipelined.jfr");
+        Files.createDirectories(dump.getParent());
+        try (final Recording recording = new Recording()) {
+            recording.enable("com.github.rmannibucau.jsonrpc.RequestParsed");
+            recording.start();
+            pipelined.handle(new StringReader(request), new ResponseHandler(), Optional::empty);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        final List<RecordedEvent> parsed = find(RecordingFile.readAllEvents(dump), "RequestParsed");
+        assertEquals(1, parsed.size());
+        assertEquals(2, parsed.get(0).getInt("batchSize"));
+        assertEquals(request.length(), parsed.get(0).getLong("requestSize"));
+    }
+
+    private List<RecordedEvent> find(final List<RecordedEvent> events, final String name) {
+        final List<RecordedEvent> found = events.stream()
+                .filter(it -> it.getEventType().getName().equals("com.github.rmannibucau.jsonrpc." + name))
+                .collect(toList());
+        assertTrue(!found.isEmpty(), name);
+        return found;
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.rmannibucau.test.jsonrpc.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.spi.JsonProvider;
+
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcException;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcMethod;
+import com.github.rmannibucau.jsonrpc.annotations.JsonRpcParam;
+import com.github.rmannibucau.jsonrpc.configuration.Configuration;
+import com.github.rmannibucau.jsonrpc.impl.HandlerRegistry;
+import com.github.rmannibucau.jsonrpc.protocol.CallContext;
+import com.github.rmannibucau.jsonrpc.protocol.JsonRpcHandler;
+import com.github.rmannibucau.jsonrpc.protocol.RequestContext;
+import com.github.rmannibucau.jsonrpc.protocol.Specification;
+import com.github.rmannibucau.jsonrpc.tracing.InMemoryTracer;
+import com.github.rmannibucau.jsonrpc.tracing.Phase;
+import com.github.rmannibucau.jsonrpc.tracing.TraceParent;
+import com.github.rmannibucau.test.jsonrpc.protocol.ResponseHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TracingTest {
+    private final InMemoryTracer tracer = new InMemoryTracer();
+
+    private Jsonb jsonb;
+    private HandlerRegistry registry;
+    private JsonRpcHandler handler;
+
+    @BeforeAll
+    void init() throws NoSuchMethodException {
+        jsonb = JsonbBuilder.create();
+        registry = new HandlerRegistry();
+        registry.setJsonb(jsonb);
+        registry.setJsonProvider(JsonProvider.provider());
+        final Method method = Endpoints.class.getMethod("traced", CallContext.class, String.class);
+        registry.registerMethodReflect(
+                new Endpoints(), method, method.getAnnotation(JsonRpcMethod.class),
+                Stream.of(method.getParameters())
+                        .map(p -> p.getAnnotation(JsonRpcParam.class))
+                        .toArray(JsonRpcParam[]::new),
+                new JsonRpcException[0]);
+
+        handler = new JsonRpcHandler();
+        handler.setConfiguration(new Configuration());
+        handler.setJsonb(jsonb);
+        handler.setRegistry(registry);
+        handler.setTracer(tracer);
+    }
+
+    @AfterAll
+    void destroy() throws Exception {
+        jsonb.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        tracer.clear();
+    }
+
+    @Test
+    void propagatesTraceParent() {
+        final RequestContext context = new RequestContext();
+        context.setTraceParent(TraceParent.parse("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"));
+        final ResponseHandler response = new ResponseHandler();
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"traced\",\"params\":[\"x\"]}"),
+                context, response, Optional::empty);
+
+        final String result = response.getResult();
+        assertTrue(result.contains("\"result\":\"traced:x:00-0af7651916cd43dd8448eb211c80319c-"), result);
+        assertNotEquals(-1, result.indexOf("-01\""), result);
+
+        final Collection<CallContext> calls = tracer.getCalls();
+        assertEquals(1, calls.size());
+        final CallContext call = calls.iterator().next();
+        assertEquals("traced", call.getMethod());
+        assertEquals("0af7651916cd43dd8448eb211c80319c", call.getTraceParent().getTraceId());
+        assertNotEquals("b7ad6b7169203331", call.getTraceParent().getSpanId());
+        Stream.of(Phase.VALIDATE, Phase.BIND, Phase.INVOKE, Phase.MAP)
+                .forEach(phase -> assertTrue(call.getDuration(phase) > 0, phase::name));
+
+        assertEquals(1, tracer.getRequests().size());
+        assertTrue(context.getDuration(Phase.PARSE) > 0);
+        assertTrue(context.getDuration(Phase.WRITE) > 0);
+        assertTrue(context.toServerTiming().matches(
+                "parse;dur=[0-9.]+, validate;dur=[0-9.]+, bind;dur=[0-9.]+, " +
+                        "invoke;dur=[0-9.]+, map;dur=[0-9.]+, write;dur=[0-9.]+"), context.toServerTiming());
+    }
+
+    @Test
+    void newTraceWithoutParent() {
+        final ResponseHandler response = new ResponseHandler();
+        handler.handle(new StringReader("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"traced\",\"params\":{\"value\":\"y\"}}"),
+                response, Optional::empty);
+        assertTrue(response.getResult().contains("\"result\":\"traced:y:00-"), response.getResult());
+        assertEquals(1, tracer.getCalls().size());
+    }
+
+    @Test
+    void contextIsNotAParameter() {
+        final Specification.MethodSpecification spec = registry.createSpecification().getMethods().get("traced");
+        assertEquals(1, spec.getParameters().size());
+        assertEquals("value", spec.getParameters().iterator().next().getName());
+        assertEquals(0, spec.getParameters().iterator().next().getPosition());
+    }
+
+    @Test
+    void invalidTraceParent() {
+        Stream.of("", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331",
+                "00-00000000000000000000000000000000-b7ad6b7169203331-01",
+                "ff-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+                "00-0AF7651916CD43DD8448EB211C80319C-b7ad6b7169203331-01")
+                .forEach(header -> assertNull(TraceParent.parse(header), header));
+    }
+
+    public static class Endpoints {
+        @JsonRpcMethod("traced")
+        public String traced(final CallContext context, @JsonRpcParam("value") final String value) {
+            return "traced:" + value + ':' + context.getTraceParent();
+        }
+    }
+}